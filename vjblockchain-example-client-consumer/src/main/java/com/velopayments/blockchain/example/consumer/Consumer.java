@@ -56,69 +56,67 @@ public class Consumer implements Runnable {
      */
     private void readCerts(VelochainConnection conn)
     throws ExecutionException, IOException, InterruptedException {
-        UUID lastBlockId = ROOT_UUID;
-
-        for (;;) {
-            Optional<UUID> nextBlockId = conn.getNextBlockId(lastBlockId);
-            if (nextBlockId.isPresent()) {
-                readBlock(conn, nextBlockId.orElse(ROOT_UUID));
-                lastBlockId = nextBlockId.orElse(ROOT_UUID);
-            } else {
-                try {
-                    Thread.sleep(5000);
-                } catch (InterruptedException e) {
+        CountDownLatch finished = new CountDownLatch(1);
+
+        try (BlockPublisher publisher = new BlockPublisher(conn)) {
+            publisher.subscribe(new BlockSubscriber() {
+                private BlockSubscription subscription;
+
+                @Override
+                public void onSubscribe(BlockSubscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
                 }
-            }
+
+                @Override
+                public void onNext(BlockRecord block) {
+                    readBlock(block);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    System.out.println("Could not read blocks: " + error);
+                    finished.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    finished.countDown();
+                }
+            }, ROOT_UUID);
+
+            finished.await();
         }
     }
 
     /**
-     * Read the provided block.
+     * Read the provided block.  Transactions are parsed in parallel, and
+     * printed in block order.
      */
     private void
-    readBlock(VelochainConnection conn, UUID blockId)
-    throws ExecutionException, IOException, InterruptedException {
-        Certificate cert =
-            conn.getBlockById(blockId).orElseThrow(
-                () -> new IOException("Could not read block " + blockId));
-        byte[] block = cert.toByteArray();
-
-        CertificateReader reader =
-            new CertificateReader(
-                new CertificateParser(
-                    Certificate.fromByteArray(block)));
-
-        for (int i = 0; i < reader.count(Field.WRAPPED_TRANSACTION_TUPLE);
-             ++i) {
-
-            try {
-                readTransaction(
-                    reader.get(
-                        Field.WRAPPED_TRANSACTION_TUPLE, i).asByteArray());
-            } catch (MissingFieldException e) {
-                System.out.println("Missing transaction " + Integer.valueOf(i));
-            }
-        }
+    readBlock(BlockRecord block) {
+        BlockTransactions.parallelStream(block.getCertificate())
+            .map(this::readTransaction)
+            .forEachOrdered(System.out::println);
     }
 
     /**
      * Read the provided transaction.
      */
-    private void
-    readTransaction(byte[] transaction) {
+    private String
+    readTransaction(Certificate transaction) {
         try {
-            CertificateReader reader =
-                new CertificateReader(
-                    new CertificateParser(
-                        Certificate.fromByteArray(transaction)));
+            LazyCertificateReader reader =
+                new LazyCertificateReader(transaction);
 
             UUID transactionID = reader.getFirst(Field.CERTIFICATE_ID).asUUID();
             String message = reader.getFirst(0x0401).asString();
 
-            System.out.println(transactionID + ": " + message);
+            return transactionID + ": " + message;
 
         } catch (Throwable e) {
-            System.out.println("Could not parse transaction.");
+            return "Could not parse transaction.";
         }
     }
 
@@ -1,10 +1,13 @@
 package com.velopayments.blockchain.example.producer;
 
 import com.velopayments.blockchain.cert.*;
+import com.velopayments.blockchain.client.TransactionStatus;
 import com.velopayments.blockchain.client.VelochainConnection;
 import com.velopayments.blockchain.crypt.EncryptionPrivateKey;
 import java.io.*;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 public class Producer implements Runnable {
@@ -57,6 +60,7 @@ public class Producer implements Runnable {
      * Write certificates to blockchain.
      */
     private void writeCerts(VelochainConnection conn) throws IOException {
+        List<Certificate> transactions = new ArrayList<>();
         for (int i = 0; i < 1000; ++i) {
             CertificateBuilder builder =
                 CertificateBuilder.createCertificateBuilder(
@@ -72,15 +76,17 @@ public class Producer implements Runnable {
             builder.addString(
                 0x0401, "Example transaction " + Integer.valueOf(i + 1));
 
-            System.out.println(
-                "Submitting transaction " + Integer.valueOf(i + 1));
+            transactions.add(builder.emit());
+        }
 
-            conn.submit(builder.emit());
+        System.out.println(
+            "Submitting " + transactions.size() + " transactions");
 
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-            }
+        List<TransactionStatus> statuses = conn.submitBatch(transactions);
+        for (int i = 0; i < statuses.size(); ++i) {
+            System.out.println(
+                "Transaction " + Integer.valueOf(i + 1) + ": "
+                    + statuses.get(i));
         }
     }
 
@@ -0,0 +1,34 @@
+package com.velopayments.blockchain.agentd;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request made by blocking on the calling thread, used by the default
+ * asynchronous methods of {@link ProtocolHandler}.
+ */
+@FunctionalInterface
+interface BlockingRequest<T> {
+
+    T call() throws IOException;
+
+    /**
+     * Make a request on the calling thread.
+     *
+     * @param request   The request to make.
+     *
+     * @return a future which is already completed with the result of the
+     *         request, or with the exception it threw.
+     */
+    static <T> CompletableFuture<T> complete(BlockingRequest<T> request) {
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(request.call());
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+}
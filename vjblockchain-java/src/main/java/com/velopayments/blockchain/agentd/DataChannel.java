@@ -2,6 +2,7 @@ package com.velopayments.blockchain.agentd;
 
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Class representing a data channel between client and server
@@ -43,4 +44,18 @@ public interface DataChannel {
      */
     byte[] recv(int nBytes) throws IOException;
 
+    /**
+     * Read from the channel until the buffer has no bytes remaining.
+     *
+     * Implementations which buffer reads copy directly into the given buffer
+     * without allocating an intermediate array.
+     *
+     * @param buffer    The buffer to fill
+     *
+     * @throws IOException
+     */
+    default void recv(ByteBuffer buffer) throws IOException {
+        buffer.put(recv(buffer.remaining()));
+    }
+
 }
@@ -2,25 +2,34 @@ package com.velopayments.blockchain.agentd;
 
 import com.velopayments.blockchain.init.Initializer;
 
-public class OuterEnvelopeReader {
+/**
+ * Decrypt responses from agentd.
+ *
+ * The cipher is keyed in native memory the first time a shared secret is
+ * used, and kept until the secret changes or the reader is closed.
+ */
+public class OuterEnvelopeReader implements AutoCloseable {
 
     public OuterEnvelopeReader() {
         this.iv = 0x8000000000000001L;
     }
 
-    public int decryptHeader(byte[] key, byte[] header)
+    public synchronized int decryptHeader(byte[] key, byte[] header)
     {
         return
             decryptHeaderNative(
-                Initializer.getInstance(), key, iv, header);
+                Initializer.getInstance(), session(key).getHandle(), iv,
+                header);
     }
 
-    public byte[] decryptPayload(byte[] key, byte[] header, byte[] payload)
+    public synchronized byte[] decryptPayload(
+        byte[] key, byte[] header, byte[] payload)
         throws MessageVerificationException
     {
         byte[] decryptedPayload =
             decryptPayloadNative(
-                Initializer.getInstance(), key, iv, header, payload);
+                Initializer.getInstance(), session(key).getHandle(), iv,
+                header, payload);
 
         //increment iv after decrypting payload.
         ++iv;
@@ -28,12 +37,44 @@ public class OuterEnvelopeReader {
         return decryptedPayload;
     }
 
+    /**
+     * Release the native cipher state.  A closed reader cannot be used again.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        releaseSession();
+    }
+
+    private OuterEnvelopeSession session(byte[] key) {
+        if (closed) {
+            throw new IllegalStateException("Reader is closed.");
+        }
+
+        if (null == session || !session.isKeyedWith(key)) {
+            releaseSession();
+            session = new OuterEnvelopeSession(key);
+        }
+
+        return session;
+    }
+
+    private void releaseSession() {
+        if (null != session) {
+            session.close();
+            session = null;
+        }
+    }
+
     private long iv;
+    private OuterEnvelopeSession session;
+    private boolean closed;
 
     private native int decryptHeaderNative(
-            long nativeInst, byte[] key, long iv, byte[] header);
+            long nativeInst, long session, long iv, byte[] header);
 
     private native byte[] decryptPayloadNative(
-            long nativeInst, byte[] key, long iv, byte[] header, byte[] payload)
+            long nativeInst, long session, long iv, byte[] header,
+            byte[] payload)
         throws MessageVerificationException;
 }
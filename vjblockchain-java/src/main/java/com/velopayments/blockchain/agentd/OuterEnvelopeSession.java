@@ -0,0 +1,91 @@
+package com.velopayments.blockchain.agentd;
+
+import com.velopayments.blockchain.init.Initializer;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Native cipher state for one direction of an agentd session.
+ *
+ * The shared secret is copied into native memory, and the stream cipher is
+ * keyed from it, once per session rather than once per packet.  Each packet
+ * only sets the cipher's IV.
+ *
+ * A session is not thread safe; its owner must serialize its use, and must
+ * not use it once it is closed.
+ */
+final class OuterEnvelopeSession implements AutoCloseable {
+
+    private final long nativeInst;
+    private final byte[] key;
+    private long session;
+
+    /**
+     * Create a session keyed with a shared secret.
+     *
+     * @param key           The shared secret.
+     */
+    OuterEnvelopeSession(byte[] key) {
+        this.nativeInst = Initializer.getInstance();
+        this.key = key.clone();
+        this.session = createNative(nativeInst, key);
+    }
+
+    /**
+     * Determine whether this session is keyed with a shared secret.
+     *
+     * @param key           The shared secret.
+     *
+     * @return true if this session is open and uses this shared secret.
+     */
+    boolean isKeyedWith(byte[] key) {
+        return 0 != session && MessageDigest.isEqual(this.key, key);
+    }
+
+    /**
+     * Get the native session pointer.
+     *
+     * @return the native session pointer.
+     *
+     * @throws IllegalStateException if the session is closed.
+     */
+    long getHandle() {
+        if (0 == session) {
+            throw new IllegalStateException("Session is closed.");
+        }
+
+        return session;
+    }
+
+    /**
+     * Release the native session, clearing its key.  Closing a session
+     * again does nothing.
+     */
+    @Override
+    public void close() {
+        if (0 != session) {
+            releaseNative(nativeInst, session);
+            session = 0;
+            Arrays.fill(key, (byte)0);
+        }
+    }
+
+    /**
+     * Create a native session.
+     *
+     * @param nativeInst the native instance pointer.
+     * @param key the shared secret.
+     *
+     * @return the native session pointer.
+     */
+    private static native long createNative(long nativeInst, byte[] key);
+
+    /**
+     * Release a native session.
+     *
+     * @param nativeInst the native instance pointer.
+     * @param session the native session pointer.
+     */
+    private static native void releaseNative(long nativeInst, long session);
+}
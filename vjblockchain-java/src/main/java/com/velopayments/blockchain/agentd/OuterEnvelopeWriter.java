@@ -2,18 +2,25 @@ package com.velopayments.blockchain.agentd;
 
 import com.velopayments.blockchain.init.Initializer;
 
-public class OuterEnvelopeWriter {
+/**
+ * Encrypt requests to agentd.
+ *
+ * The cipher is keyed in native memory the first time a shared secret is
+ * used, and kept until the secret changes or the writer is closed.
+ */
+public class OuterEnvelopeWriter implements AutoCloseable {
 
     public OuterEnvelopeWriter() {
         this.iv = 0x0000000000000001L;
     }
 
-    public byte[] encryptPayload(byte[] key, byte[] payload)
+    public synchronized byte[] encryptPayload(byte[] key, byte[] payload)
     {
         //encrypt the payload
         byte[] encryptedPayload =
             encryptPayloadNative(
-                Initializer.getInstance(), key, iv, payload);
+                Initializer.getInstance(), session(key).getHandle(), iv,
+                payload);
 
         //increment iv after encrypting payload
         ++iv;
@@ -21,8 +28,39 @@ public class OuterEnvelopeWriter {
         return encryptedPayload;
     }
 
+    /**
+     * Release the native cipher state.  A closed writer cannot be used again.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        releaseSession();
+    }
+
+    private OuterEnvelopeSession session(byte[] key) {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed.");
+        }
+
+        if (null == session || !session.isKeyedWith(key)) {
+            releaseSession();
+            session = new OuterEnvelopeSession(key);
+        }
+
+        return session;
+    }
+
+    private void releaseSession() {
+        if (null != session) {
+            session.close();
+            session = null;
+        }
+    }
+
     private long iv;
-    private native byte[] encryptPayloadNative(
-            long nativeInst, byte[] key, long iv, byte[] payload);
+    private OuterEnvelopeSession session;
+    private boolean closed;
 
+    private native byte[] encryptPayloadNative(
+            long nativeInst, long session, long iv, byte[] payload);
 }
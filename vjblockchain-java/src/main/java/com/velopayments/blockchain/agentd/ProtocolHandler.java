@@ -1,12 +1,25 @@
 package com.velopayments.blockchain.agentd;
 
 import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.client.BlockRecord;
+import com.velopayments.blockchain.client.TransactionRecord;
 import java.io.IOException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Handler for implementing the wire protocol
+ *
+ * Each blocking request method has an asynchronous counterpart, suffixed with
+ * Async, which returns as soon as the request has been sent.  Many requests
+ * may be outstanding at once on a single connection.  The returned futures
+ * are completed by the thread which reads responses from agentd, so
+ * dependent stages should not block; use the *Async stage methods with an
+ * executor for work that might.
+ *
+ * By default, each asynchronous method makes its blocking counterpart's
+ * request on the calling thread, and returns an already completed future.
  */
 public interface ProtocolHandler {
 
@@ -24,11 +37,38 @@ public interface ProtocolHandler {
      */
     void submit(Certificate transaction) throws IOException;
 
+    /**
+     * Submit a certificate to the blockchain agent asynchronously.
+     *
+     * By default, a submission which does not throw is reported as a
+     * status of 0.
+     *
+     * @return a future which is completed with the submission status from
+     *         the agent, where 0 indicates success.
+     */
+    default CompletableFuture<Long>
+    submitAsync(Certificate transaction) {
+
+        return BlockingRequest.complete(() -> {
+            submit(transaction);
+            return 0L;
+        });
+    }
+
     /**
      * Get the latest block id from the blockchain agent.
      */
     UUID getLatestBlockId() throws IOException;
 
+    /**
+     * Get the latest block id from the blockchain agent asynchronously.
+     */
+    default CompletableFuture<UUID>
+    getLatestBlockIdAsync() {
+
+        return BlockingRequest.complete(() -> getLatestBlockId());
+    }
+
     /**
      * Get a block by UUID.
      *
@@ -36,6 +76,56 @@ public interface ProtocolHandler {
      */
     Optional<Certificate> getBlockById(UUID blockId) throws IOException;
 
+    /**
+     * Get a block by UUID asynchronously.
+     *
+     * @param blockId The block id to get.
+     */
+    default CompletableFuture<Optional<Certificate>>
+    getBlockByIdAsync(UUID blockId) {
+
+        return BlockingRequest.complete(() -> getBlockById(blockId));
+    }
+
+    /**
+     * Get a block by UUID, along with the block metadata returned with it.
+     *
+     * By default, the block and its next block id are read with two
+     * requests, and the rest of the metadata from the block certificate.
+     *
+     * @param blockId The block id to get.
+     */
+    default Optional<BlockRecord> getBlockRecordById(UUID blockId)
+    throws IOException {
+
+        Optional<Certificate> block = getBlockById(blockId);
+        if (!block.isPresent()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(
+            BlockRecord.fromCertificate(
+                blockId, getNextBlockId(blockId), block.get()));
+    }
+
+    /**
+     * Get a block by UUID asynchronously, along with the block metadata
+     * returned with it.
+     *
+     * By default, the block and its next block id are requested together,
+     * and the rest of the metadata is read from the block certificate.
+     *
+     * @param blockId The block id to get.
+     */
+    default CompletableFuture<Optional<BlockRecord>>
+    getBlockRecordByIdAsync(UUID blockId) {
+
+        return getBlockByIdAsync(blockId).thenCombine(
+            getNextBlockIdAsync(blockId),
+            (block, next) -> block.map(
+                cert -> BlockRecord.fromCertificate(blockId, next, cert)));
+    }
+
     /**
      * Given a block id, get the next block id if possible.
      *
@@ -43,6 +133,17 @@ public interface ProtocolHandler {
      */
     Optional<UUID> getNextBlockId(UUID blockId) throws IOException;
 
+    /**
+     * Given a block id, get the next block id asynchronously if possible.
+     *
+     * @param blockId The block id.
+     */
+    default CompletableFuture<Optional<UUID>>
+    getNextBlockIdAsync(UUID blockId) {
+
+        return BlockingRequest.complete(() -> getNextBlockId(blockId));
+    }
+
     /**
      * Given a block id, get the previous block id if possible.
      *
@@ -50,6 +151,17 @@ public interface ProtocolHandler {
      */
     Optional<UUID> getPrevBlockId(UUID blockId) throws IOException;
 
+    /**
+     * Given a block id, get the previous block id asynchronously if possible.
+     *
+     * @param blockId The block id.
+     */
+    default CompletableFuture<Optional<UUID>>
+    getPrevBlockIdAsync(UUID blockId) {
+
+        return BlockingRequest.complete(() -> getPrevBlockId(blockId));
+    }
+
     /**
      * Get a transaction by UUID.
      *
@@ -57,6 +169,53 @@ public interface ProtocolHandler {
      */
     Optional<Certificate> getTransactionById(UUID txnId) throws IOException;
 
+    /**
+     * Get a transaction by UUID asynchronously.
+     *
+     * @param txnId The transaction id.
+     */
+    default CompletableFuture<Optional<Certificate>>
+    getTransactionByIdAsync(UUID txnId) {
+
+        return BlockingRequest.complete(() -> getTransactionById(txnId));
+    }
+
+    /**
+     * Get a transaction by UUID, along with the transaction metadata returned
+     * with it.
+     *
+     * @param txnId The transaction id.
+     *
+     * @throws UnsupportedOperationException by default, since the
+     * transaction state cannot be read through the other requests.
+     */
+    default Optional<TransactionRecord> getTransactionRecordById(UUID txnId)
+    throws IOException {
+
+        throw new UnsupportedOperationException(
+            "Transaction records are not supported by this handler.");
+    }
+
+    /**
+     * Get a transaction by UUID asynchronously, along with the transaction
+     * metadata returned with it.  By default, the future is completed with
+     * an {@code UnsupportedOperationException}, since the transaction state
+     * cannot be read through the other requests.
+     *
+     * @param txnId The transaction id.
+     */
+    default CompletableFuture<Optional<TransactionRecord>>
+    getTransactionRecordByIdAsync(UUID txnId) {
+
+        CompletableFuture<Optional<TransactionRecord>> unsupported =
+            new CompletableFuture<>();
+        unsupported.completeExceptionally(
+            new UnsupportedOperationException(
+                "Transaction records are not supported by this handler."));
+
+        return unsupported;
+    }
+
     /**
      * Get the next transaction id given a transaction id.
      *
@@ -64,6 +223,17 @@ public interface ProtocolHandler {
      */
     Optional<UUID> getTransactionNextId(UUID txnId) throws IOException;
 
+    /**
+     * Get the next transaction id given a transaction id asynchronously.
+     *
+     * @param txnId The transaction id.
+     */
+    default CompletableFuture<Optional<UUID>>
+    getTransactionNextIdAsync(UUID txnId) {
+
+        return BlockingRequest.complete(() -> getTransactionNextId(txnId));
+    }
+
     /**
      * Get the previous transaction id given a transaction id.
      *
@@ -71,6 +241,17 @@ public interface ProtocolHandler {
      */
     Optional<UUID> getTransactionPreviousId(UUID txnId) throws IOException;
 
+    /**
+     * Get the previous transaction id given a transaction id asynchronously.
+     *
+     * @param txnId The transaction id.
+     */
+    default CompletableFuture<Optional<UUID>>
+    getTransactionPreviousIdAsync(UUID txnId) {
+
+        return BlockingRequest.complete(() -> getTransactionPreviousId(txnId));
+    }
+
     /**
      * Get the block id of a transaction.
      *
@@ -78,6 +259,17 @@ public interface ProtocolHandler {
      */
     Optional<UUID> getTransactionBlockId(UUID txnId) throws IOException;
 
+    /**
+     * Get the block id of a transaction asynchronously.
+     *
+     * @param txnId The transaction id.
+     */
+    default CompletableFuture<Optional<UUID>>
+    getTransactionBlockIdAsync(UUID txnId) {
+
+        return BlockingRequest.complete(() -> getTransactionBlockId(txnId));
+    }
+
     /**
      * Get the first transaction id of an artifact.
      *
@@ -85,6 +277,18 @@ public interface ProtocolHandler {
      */
     Optional<UUID> getArtifactFirstTxnId(UUID artifactId) throws IOException;
 
+    /**
+     * Get the first transaction id of an artifact asynchronously.
+     *
+     * @param artifactId The artifact id.
+     */
+    default CompletableFuture<Optional<UUID>>
+    getArtifactFirstTxnIdAsync(UUID artifactId) {
+
+        return BlockingRequest.complete(
+            () -> getArtifactFirstTxnId(artifactId));
+    }
+
     /**
      * Get the last transaction id of an artifact.
      *
@@ -92,6 +296,17 @@ public interface ProtocolHandler {
      */
     Optional<UUID> getArtifactLastTxnId(UUID artifactId) throws IOException;
 
+    /**
+     * Get the last transaction id of an artifact asynchronously.
+     *
+     * @param artifactId The artifact id.
+     */
+    default CompletableFuture<Optional<UUID>>
+    getArtifactLastTxnIdAsync(UUID artifactId) {
+
+        return BlockingRequest.complete(() -> getArtifactLastTxnId(artifactId));
+    }
+
     /**
      * Given a block height, get the block id if possible.
      *
@@ -99,6 +314,17 @@ public interface ProtocolHandler {
      */
     Optional<UUID> getBlockIdByBlockHeight(long height) throws IOException;
 
+    /**
+     * Given a block height, get the block id asynchronously if possible.
+     *
+     * @param height The block height.
+     */
+    default CompletableFuture<Optional<UUID>>
+    getBlockIdByBlockHeightAsync(long height) {
+
+        return BlockingRequest.complete(() -> getBlockIdByBlockHeight(height));
+    }
+
     /**
      * Get the current connection status.
      *
@@ -107,4 +333,24 @@ public interface ProtocolHandler {
      * @throws IOException derivative if the connection is not valid.
      */
     int getConnectionStatus() throws IOException;
+
+    /**
+     * Get the current connection status asynchronously.
+     *
+     * @return a future which is completed with 0 if the connection is valid,
+     *         or completed exceptionally if the connection is not valid.
+     */
+    default CompletableFuture<Integer>
+    getConnectionStatusAsync() {
+
+        return BlockingRequest.complete(() -> getConnectionStatus());
+    }
+
+    /**
+     * Release the session cipher state held for this connection.  The data
+     * channel is not closed; it belongs to the caller.  By default, there
+     * is nothing to release.
+     */
+    default void close() {
+    }
 }
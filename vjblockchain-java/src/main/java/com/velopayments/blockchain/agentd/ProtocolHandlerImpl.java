@@ -1,6 +1,8 @@
 package com.velopayments.blockchain.agentd;
 
 import com.velopayments.blockchain.cert.*;
+import com.velopayments.blockchain.client.BlockRecord;
+import com.velopayments.blockchain.client.TransactionRecord;
 import com.velopayments.blockchain.crypt.EncryptionPrivateKey;
 import com.velopayments.blockchain.crypt.EncryptionPublicKey;
 import com.velopayments.blockchain.crypt.HMAC;
@@ -10,14 +12,26 @@ import com.velopayments.blockchain.util.EqualsUtil;
 import com.velopayments.blockchain.util.UuidUtil;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.ConnectException;
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 public class ProtocolHandlerImpl implements ProtocolHandler {
 
+    private static final Logger LOG =
+        Logger.getLogger(ProtocolHandlerImpl.class.getName());
+
     public static final long PROTOCOL_VERSION    = 1L;
     public static final long CRYPTO_SUITE_VERSION = 1L;
 
@@ -58,6 +72,23 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
 
     private byte[] sharedSecret;
 
+    /* requests are sent under this lock so that the outer envelope IV and
+     * the order of packets on the wire always agree. */
+    private final Object sendLock = new Object();
+
+    /* each request carries a unique offset, which agentd echoes back in the
+     * response so that out-of-order responses can be matched to callers. */
+    private final AtomicInteger requestOffset = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<byte[]>> pendingResponses =
+        new ConcurrentHashMap<>();
+
+    private Thread responseReader;
+    private volatile Throwable responseReaderFailure;
+
+    /* response headers are read into this buffer, which is only touched by
+     * the response reader thread. */
+    private final ByteBuffer responseHeader = ByteBuffer.allocate(5);
+
     public ProtocolHandlerImpl(
             DataChannel dataChannel, UUID agentId, UUID entityId,
             EncryptionPublicKey agentPublicEncKey,
@@ -85,202 +116,487 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
     @Override
     public void submit(Certificate transaction) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        awaitResponse(submitAsync(transaction));
+    }
 
-        CertificateReader reader =
-            new CertificateReader(new CertificateParser(transaction));
-        UUID transactionId = null;
-        UUID artifactId = null;
+    @Override
+    public CompletableFuture<Long> submitAsync(Certificate transaction) {
 
-        //get the transaction id.
-        try {
-            transactionId = reader.getFirst(Field.CERTIFICATE_ID).asUUID();
-        } catch (MissingFieldException e) {
-            //TODO - we should bubble up this exception instead of masking it.
-            throw new IOException("Missing transaction id.");
-        } catch (FieldConversionException e) {
-            //TODO - we should bubble up this exception instead of masking it.
-            throw new IOException("Invalid transaction id.");
-        }
+        return request(
+            () -> writeSubmitRequest(transaction),
+            this::readSubmitResponse);
+    }
 
-        //get the artifact id.
-        try {
-            artifactId = reader.getFirst(Field.ARTIFACT_ID).asUUID();
-        } catch (MissingFieldException e) {
-            //TODO - we should bubble up this exception instead of masking it.
-            throw new IOException("Missing artifact id.");
-        } catch (FieldConversionException e) {
-            //TODO - we should bubble up this exception instead of masking it.
-            throw new IOException("Invalid artifact id.");
-        }
+    @Override
+    public UUID getLatestBlockId() throws IOException {
 
-        // write the submit request
-        writeSubmitRequest(transactionId, artifactId, transaction);
+        return awaitResponse(getLatestBlockIdAsync());
+    }
 
-        // read the submit response
-        long status = readSubmitResponse();
+    @Override
+    public CompletableFuture<UUID> getLatestBlockIdAsync() {
 
-        // TODO - send the status back to the caller
+        return request(
+            this::writeGetLatestBlockIdRequest,
+            this::readGetLatestBlockIdResponse);
     }
 
     @Override
-    public UUID getLatestBlockId() throws IOException {
+    public Optional<Certificate> getBlockById(UUID blockId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getBlockByIdAsync(blockId));
+    }
 
-        writeGetLatestBlockIdRequest();
+    @Override
+    public CompletableFuture<Optional<Certificate>>
+    getBlockByIdAsync(UUID blockId) {
 
-        return readGetLatestBlockIdResponse();
+        return getBlockRecordByIdAsync(blockId).thenApply(
+            block -> block.map(BlockRecord::getCertificate));
     }
 
     @Override
-    public Optional<Certificate> getBlockById(UUID blockId) throws IOException {
+    public Optional<BlockRecord>
+    getBlockRecordById(UUID blockId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getBlockRecordByIdAsync(blockId));
+    }
 
-        writeGetBlockByIdRequest(blockId);
+    @Override
+    public CompletableFuture<Optional<BlockRecord>>
+    getBlockRecordByIdAsync(UUID blockId) {
 
-        return readGetBlockByIdResponse();
+        return request(
+            () -> writeGetBlockByIdRequest(blockId),
+            this::readGetBlockByIdResponse);
     }
 
     @Override
     public Optional<UUID> getNextBlockId(UUID blockId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getNextBlockIdAsync(blockId));
+    }
 
-        writeGetNextBlockIdRequest(blockId);
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getNextBlockIdAsync(UUID blockId) {
 
-        return readGetNextBlockIdResponse();
+        return request(
+            () -> writeGetNextBlockIdRequest(blockId),
+            this::readGetNextBlockIdResponse);
     }
 
     @Override
     public Optional<UUID> getPrevBlockId(UUID blockId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getPrevBlockIdAsync(blockId));
+    }
 
-        writeGetPrevBlockIdRequest(blockId);
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getPrevBlockIdAsync(UUID blockId) {
 
-        return readGetPrevBlockIdResponse();
+        return request(
+            () -> writeGetPrevBlockIdRequest(blockId),
+            this::readGetPrevBlockIdResponse);
     }
 
     @Override
     public Optional<Certificate>
     getTransactionById(UUID txnId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getTransactionByIdAsync(txnId));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Certificate>>
+    getTransactionByIdAsync(UUID txnId) {
+
+        return getTransactionRecordByIdAsync(txnId).thenApply(
+            txn -> txn.map(TransactionRecord::getCertificate));
+    }
 
-        writeGetTransactionByIdRequest(txnId);
+    @Override
+    public Optional<TransactionRecord>
+    getTransactionRecordById(UUID txnId) throws IOException {
 
-        return readGetTransactionByIdResponse();
+        return awaitResponse(getTransactionRecordByIdAsync(txnId));
+    }
+
+    @Override
+    public CompletableFuture<Optional<TransactionRecord>>
+    getTransactionRecordByIdAsync(UUID txnId) {
+
+        return request(
+            () -> writeGetTransactionByIdRequest(txnId),
+            this::readGetTransactionByIdResponse);
     }
 
     @Override
     public Optional<UUID> getTransactionNextId(UUID txnId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getTransactionNextIdAsync(txnId));
+    }
 
-        writeGetTransactionNextIdRequest(txnId);
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getTransactionNextIdAsync(UUID txnId) {
 
-        return readGetTransactionNextIdResponse();
+        return request(
+            () -> writeGetTransactionNextIdRequest(txnId),
+            this::readGetTransactionNextIdResponse);
     }
 
     @Override
     public Optional<UUID> getTransactionPreviousId(UUID txnId)
     throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getTransactionPreviousIdAsync(txnId));
+    }
 
-        writeGetTransactionPreviousIdRequest(txnId);
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getTransactionPreviousIdAsync(UUID txnId) {
 
-        return readGetTransactionPreviousIdResponse();
+        return request(
+            () -> writeGetTransactionPreviousIdRequest(txnId),
+            this::readGetTransactionPreviousIdResponse);
     }
 
     @Override
     public Optional<UUID> getTransactionBlockId(UUID txnId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getTransactionBlockIdAsync(txnId));
+    }
 
-        writeGetTransactionBlockIdRequest(txnId);
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getTransactionBlockIdAsync(UUID txnId) {
 
-        return readGetTransactionBlockIdResponse();
+        return request(
+            () -> writeGetTransactionBlockIdRequest(txnId),
+            this::readGetTransactionBlockIdResponse);
     }
 
     @Override
     public Optional<UUID>
     getArtifactFirstTxnId(UUID artifactId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getArtifactFirstTxnIdAsync(artifactId));
+    }
 
-        writeGetArtifactFirstTxnIdRequest(artifactId);
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getArtifactFirstTxnIdAsync(UUID artifactId) {
 
-        return readGetArtifactGetFirstTxnIdRequest();
+        return request(
+            () -> writeGetArtifactFirstTxnIdRequest(artifactId),
+            this::readGetArtifactGetFirstTxnIdRequest);
     }
 
     @Override
     public Optional<UUID>
     getArtifactLastTxnId(UUID artifactId) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getArtifactLastTxnIdAsync(artifactId));
+    }
 
-        writeGetArtifactLastTxnIdRequest(artifactId);
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getArtifactLastTxnIdAsync(UUID artifactId) {
 
-        return readGetArtifactGetLastTxnIdRequest();
+        return request(
+            () -> writeGetArtifactLastTxnIdRequest(artifactId),
+            this::readGetArtifactGetLastTxnIdRequest);
     }
 
     @Override
     public Optional<UUID>
     getBlockIdByBlockHeight(long height) throws IOException {
 
-        /* sharedSecret is populated when connect() successfully completes. */
-        if (sharedSecret == null) {
-            throw new ConnectException("Not connected. Call connect() first.");
-        }
+        return awaitResponse(getBlockIdByBlockHeightAsync(height));
+    }
 
-        writeGetBlockIdByBlockHeight(height);
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getBlockIdByBlockHeightAsync(long height) {
 
-        return readGetBlockIdByBlockHeight();
+        return request(
+            () -> writeGetBlockIdByBlockHeight(height),
+            this::readGetBlockIdByBlockHeight);
     }
 
     @Override
     public int
     getConnectionStatus() throws IOException {
 
-        writeGetConnectionStatus();
+        return awaitResponse(getConnectionStatusAsync());
+    }
+
+    @Override
+    public CompletableFuture<Integer>
+    getConnectionStatusAsync() {
+
+        return request(
+            this::writeGetConnectionStatus, this::readGetConnectionStatus);
+    }
+
+    @Override
+    public void close() {
+        try {
+            outerEnvelopeWriter.close();
+        } finally {
+            outerEnvelopeReader.close();
+        }
+    }
+
+    /**
+     * Write a request which requires a connection, and decode its response
+     * when it arrives.
+     *
+     * @param writer    Writes the request, returning the pending response.
+     * @param decoder   Decodes the response payload.
+     *
+     * @return a future which is completed with the decoded response, or
+     *         completed exceptionally if the request could not be written or
+     *         the response could not be read.
+     */
+    private <T> CompletableFuture<T>
+    request(RequestWriter writer, ResponseDecoder<T> decoder) {
+
+        /* sharedSecret is populated when connect() successfully completes. */
+        if (sharedSecret == null) {
+            return failedFuture(
+                new ConnectException("Not connected. Call connect() first."));
+        }
+
+        CompletableFuture<byte[]> response;
+        try {
+            response = writer.write();
+        } catch (IOException | RuntimeException e) {
+            return failedFuture(e);
+        }
+
+        return decodeResponse(response, decoder);
+    }
+
+    /**
+     * Decode a response when it arrives.  Decoding runs on the response
+     * reader thread.
+     *
+     * @param response  The pending response payload.
+     * @param decoder   Decodes the response payload.
+     *
+     * @return a future which is completed with the decoded response.
+     */
+    private static <T> CompletableFuture<T>
+    decodeResponse(
+        CompletableFuture<byte[]> response, ResponseDecoder<T> decoder) {
+
+        return response.thenApply(decryptedPayload -> {
+            try {
+                return decoder.decode(decryptedPayload);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Create a future which has already failed with the given cause.
+     */
+    private static <T> CompletableFuture<T> failedFuture(Throwable cause) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
 
-        return readGetConnectionStatus();
+        return future;
+    }
+
+    /**
+     * Writes a request to agentd.
+     */
+    @FunctionalInterface
+    private interface RequestWriter {
+        CompletableFuture<byte[]> write() throws IOException;
+    }
+
+    /**
+     * Decodes the decrypted payload of a response from agentd.
+     */
+    @FunctionalInterface
+    private interface ResponseDecoder<T> {
+        T decode(byte[] decryptedPayload) throws IOException;
+    }
+
+    /**
+     * Start the thread which reads responses from the data channel and hands
+     * each one to the caller waiting on its offset, if it is not already
+     * running.  This allows many requests to be in flight on a single
+     * connection.  Must be called with the send lock held.
+     */
+    private void startResponseReader() {
+        if (null == responseReader) {
+            responseReader =
+                new Thread(this::readResponses, "agentd-response-reader");
+            responseReader.setDaemon(true);
+            responseReader.start();
+        }
+    }
+
+    /**
+     * Response reader loop.  This runs until the data channel is closed or a
+     * framing, MAC or decryption error occurs, at which point every
+     * outstanding request is failed with the cause.  Responses which match
+     * no outstanding request are logged and dropped.
+     */
+    private void readResponses() {
+        try {
+            for (;;) {
+                byte[] decryptedPayload = readResponse();
+
+                // every response begins with request ID, status, and the
+                // offset of the request that it answers.
+                int offset = (int)ByteUtil.ntohl(decryptedPayload, 8);
+
+                /* a stray or duplicate response is dropped; it says nothing
+                 * about the health of the session. */
+                CompletableFuture<byte[]> response =
+                    pendingResponses.remove(offset);
+                if (null == response) {
+                    LOG.warning(
+                        "Dropping response with unexpected offset: " + offset);
+                    continue;
+                }
+
+                response.complete(decryptedPayload);
+            }
+        } catch (Throwable e) {
+            failPendingResponses(e);
+        }
+    }
+
+    /**
+     * Read and decrypt a single response packet from the data channel.
+     *
+     * @return the decrypted response payload.
+     *
+     * @throws IOException
+     */
+    private byte[] readResponse() throws IOException {
+
+        // receive the header: type, size
+        responseHeader.clear();
+        dataChannel.recv(responseHeader);
+        byte[] header = responseHeader.array();
+        int payloadSize = outerEnvelopeReader.decryptHeader(
+            sharedSecret, header);
+
+        if (payloadSize < 12) // at least 3 x 4 bytes
+        {
+            throw new InvalidPayloadSizeException("Invalid payload size ("
+                + payloadSize + "). Expected at least 12 bytes.");
+        }
+
+        // read the HMAC and the payload.
+        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+
+        // decrypt the payload
+        return outerEnvelopeReader.decryptPayload(
+            sharedSecret, header, encryptedPayload);
+    }
+
+    /**
+     * Fail every outstanding request.  Requests made after this point fail
+     * immediately.
+     *
+     * @param cause The reason that the response reader stopped.
+     */
+    private void failPendingResponses(Throwable cause) {
+        responseReaderFailure = cause;
+
+        for (Integer offset : pendingResponses.keySet()) {
+            CompletableFuture<byte[]> response =
+                pendingResponses.remove(offset);
+            if (null != response) {
+                response.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * Get the offset to use for the next request.
+     */
+    private int nextRequestOffset() {
+        return requestOffset.getAndIncrement();
+    }
+
+    /**
+     * Encrypt and send a request, registering for the response carrying the
+     * same offset.  This method does not wait for the response.
+     *
+     * @param offset    The offset written into this request.
+     * @param request   The unencrypted request packet.
+     *
+     * @return a future which is completed with the decrypted response payload.
+     *
+     * @throws IOException
+     */
+    private CompletableFuture<byte[]> sendRequest(int offset, byte[] request)
+    throws IOException {
+
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        pendingResponses.put(offset, response);
+
+        /* the reader may have stopped before this request was registered. */
+        Throwable failure = responseReaderFailure;
+        if (null != failure) {
+            pendingResponses.remove(offset);
+            throw new IOException("Connection to agentd failed.", failure);
+        }
+
+        try {
+            synchronized (sendLock) {
+                startResponseReader();
+                dataChannel.send(outerEnvelopeWriter.encryptPayload(
+                    sharedSecret, request));
+            }
+        } catch (IOException | RuntimeException e) {
+            pendingResponses.remove(offset);
+            throw e;
+        }
+
+        return response;
+    }
+
+    /**
+     * Wait for a response to arrive.
+     *
+     * @param response  The future returned when the request was sent.
+     *
+     * @return the decoded response.
+     *
+     * @throws IOException if the connection failed before the response
+     *                     arrived.
+     */
+    private static <T> T awaitResponse(CompletableFuture<T> response)
+    throws IOException {
+
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while waiting for response.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
     }
 
     /**
@@ -532,7 +848,9 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
 
 
         // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
+        responseHeader.clear();
+        dataChannel.recv(responseHeader);
+        byte[] header = responseHeader.array();
         int payloadSize = outerEnvelopeReader.decryptHeader(
                 sharedSecret, header);
 
@@ -580,7 +898,41 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
 
     }
 
-    private void writeSubmitRequest(
+    private CompletableFuture<byte[]>
+    writeSubmitRequest(Certificate transaction) throws IOException {
+
+        // only the two ids are read, so the certificate is not fully parsed.
+        LazyCertificateReader reader = new LazyCertificateReader(transaction);
+        UUID transactionId = null;
+        UUID artifactId = null;
+
+        //get the transaction id.
+        try {
+            transactionId = reader.getFirst(Field.CERTIFICATE_ID).asUUID();
+        } catch (MissingFieldException e) {
+            //TODO - we should bubble up this exception instead of masking it.
+            throw new IOException("Missing transaction id.");
+        } catch (FieldConversionException e) {
+            //TODO - we should bubble up this exception instead of masking it.
+            throw new IOException("Invalid transaction id.");
+        }
+
+        //get the artifact id.
+        try {
+            artifactId = reader.getFirst(Field.ARTIFACT_ID).asUUID();
+        } catch (MissingFieldException e) {
+            //TODO - we should bubble up this exception instead of masking it.
+            throw new IOException("Missing artifact id.");
+        } catch (FieldConversionException e) {
+            //TODO - we should bubble up this exception instead of masking it.
+            throw new IOException("Invalid artifact id.");
+        }
+
+        return writeSubmitRequest(transactionId, artifactId, transaction);
+    }
+
+    private CompletableFuture<byte[]>
+    writeSubmitRequest(
                         UUID transactionId, UUID artifactId,
                         Certificate transaction) throws IOException {
 
@@ -595,8 +947,7 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | transaction certificate                        |   N bytes    | */
         /* | ---------------------------------------------- | ------------ | */
 
-        byte[] certificateBytes = transaction.toByteArray();
-        byte[] request = new byte[certificateBytes.length + 40];
+        byte[] request = new byte[transaction.size() + 40];
 
         // bytes 0-3: UNAUTH_PROTOCOL_REQ_ID_TRANSACTION_SUBMIT
         byte[] reqBytes =
@@ -604,7 +955,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: transaction id
@@ -616,43 +968,22 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(artifactIdBytes, 0, request, 24, 16);
 
         // transaction certificate
-        System.arraycopy(
-            certificateBytes, 0, request, 40, certificateBytes.length);
+        transaction.copyTo(request, 40);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
-    private long readSubmitResponse() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-                sharedSecret, header);
-
-        if (payloadSize != 12) // 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected 12 bytes.");
-        }
-
-        byte[] responseHMAC = dataChannel.recv(32);
-
-        byte[] encryptedPayloadTail = dataChannel.recv(payloadSize);
-
-        //the payload is the MAC and the payload bytes.
-        byte[] encryptedPayload =
-            new byte[responseHMAC.length + encryptedPayloadTail.length];
-        System.arraycopy(
-            responseHMAC, 0, encryptedPayload, 0, responseHMAC.length);
-        System.arraycopy(
-            encryptedPayloadTail, 0, encryptedPayload, responseHMAC.length,
-            encryptedPayloadTail.length);
+    private long readSubmitResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // we have a valid encrypted payload, now to decrypt it
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-                sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
+
+        if (payloadSize != 12) // 3 x 4 bytes
+        {
+            throw new InvalidPayloadSizeException("Invalid payload size ("
+                + payloadSize + "). Expected 12 bytes.");
+        }
 
         /* | Transaction submit response packet.                           | */
         /* | ---------------------------------------------- | ------------ | */
@@ -664,8 +995,7 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-                Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_TRANSACTION_SUBMIT)
         {
             throw new InvalidRequestIdException(
@@ -673,13 +1003,13 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // get status.
-        long status = ByteUtil.ntohl(
-                Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
 
         return status;
     }
 
-    private void writeGetLatestBlockIdRequest() throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetLatestBlockIdRequest() throws IOException {
 
         /* | Get Latest Block ID request packet.                           | */
         /* | ---------------------------------------------- | ------------ | */
@@ -697,20 +1027,18 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
-    private UUID readGetLatestBlockIdResponse() throws IOException {
+    private UUID readGetLatestBlockIdResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-                sharedSecret, header);
+        int payloadSize = decryptedPayload.length;
 
         if (payloadSize != 12 && payloadSize != 28) // 3 x 4 bytes + 16 bytes
         {
@@ -718,13 +1046,6 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
                 + payloadSize + "). Expected either 12 or 28 bytes.");
         }
 
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
-
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-                sharedSecret, header, encryptedPayload);
-
         /* | Get Latest Block ID response packet.                          | */
         /* | ---------------------------------------------- | ------------ | */
         /* | DATA                                           | SIZE         | */
@@ -736,16 +1057,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-                Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_LATEST_BLOCK_ID_GET) {
             throw new InvalidRequestIdException(
                     "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-                Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             // TODO - replace with better exception.
             throw new IOException("bad status code in call.");
@@ -757,13 +1076,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // return the UUID.
-        byte[] uuidBytes = new byte[16];
-        System.arraycopy(decryptedPayload, 12, uuidBytes, 0, 16);
-        return UuidUtil.getUUIDFromBytes(uuidBytes);
+        return UuidUtil.getUUIDFromBytes(decryptedPayload, 12);
     }
 
 
-    private void writeGetBlockByIdRequest(UUID blockId) throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetBlockByIdRequest(UUID blockId) throws IOException {
 
         /* | Get Block by ID request packet.                               | */
         /* | ---------------------------------------------- | ------------ | */
@@ -782,7 +1100,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: block id
@@ -790,30 +1109,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(blockIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
-    private Optional<Certificate>
-    readGetBlockByIdResponse() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    private Optional<BlockRecord>
+    readGetBlockByIdResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Block by ID response packet.                              | */
         /* | ---------------------------------------------- | ------------ | */
@@ -832,16 +1135,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_BLOCK_BY_ID_GET) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -854,14 +1155,24 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
             return Optional.empty();
         }
 
-        // get certificate
-        byte[] certificate = Arrays.copyOfRange(
-            decryptedPayload, payloadHeaderSize,
-            payloadSize);
-        return Optional.of(Certificate.fromByteArray(certificate));
+        // the certificate is a view of the payload; it is not copied.
+        Certificate certificate =
+            Certificate.fromByteArray(
+                decryptedPayload, payloadHeaderSize,
+                payloadSize - payloadHeaderSize);
+
+        return Optional.of(
+            new BlockRecord(
+                UuidUtil.getUUIDFromBytes(decryptedPayload, 12),
+                UuidUtil.getUUIDFromBytes(decryptedPayload, 28),
+                UuidUtil.getOptUUIDFromBytes(decryptedPayload, 44),
+                UuidUtil.getUUIDFromBytes(decryptedPayload, 60),
+                ByteUtil.ntohll(decryptedPayload, 76),
+                certificate));
     }
 
-    private void writeGetNextBlockIdRequest(UUID blockId) throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetNextBlockIdRequest(UUID blockId) throws IOException {
 
         /* | Get Next Block by ID request packet.                          | */
         /* | ---------------------------------------------- | ------------ | */
@@ -880,7 +1191,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: block id
@@ -888,30 +1200,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(blockIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private Optional<UUID>
-    readGetNextBlockIdResponse() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetNextBlockIdResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Block by ID response packet.                              | */
         /* | ---------------------------------------------- | ------------ | */
@@ -924,16 +1220,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_BLOCK_ID_GET_NEXT) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -947,12 +1241,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // read next block id.
-        byte[] nextBlockIdBytes = Arrays.copyOfRange(
-            decryptedPayload, 3 * 4, 3 * 4 + 16);
-        return Optional.of(UuidUtil.getUUIDFromBytes(nextBlockIdBytes));
+        return Optional.of(
+            UuidUtil.getUUIDFromBytes(decryptedPayload, 3 * 4));
     }
 
-    private void writeGetPrevBlockIdRequest(UUID blockId) throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetPrevBlockIdRequest(UUID blockId) throws IOException {
 
         /* | Get Prev Block by ID request packet.                          | */
         /* | ---------------------------------------------- | ------------ | */
@@ -971,7 +1265,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: block id
@@ -979,30 +1274,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(blockIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private Optional<UUID>
-    readGetPrevBlockIdResponse() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetPrevBlockIdResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Block by ID response packet.                              | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1015,16 +1294,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_BLOCK_ID_GET_PREV) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -1038,13 +1315,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // read prev block id.
-        byte[] prevBlockIdBytes = Arrays.copyOfRange(
-            decryptedPayload, 3 * 4, 3 * 4 + 16);
-        return Optional.of(UuidUtil.getUUIDFromBytes(prevBlockIdBytes));
+        return Optional.of(
+            UuidUtil.getUUIDFromBytes(decryptedPayload, 3 * 4));
     }
 
-    private void writeGetTransactionByIdRequest(UUID txnId)
-    throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetTransactionByIdRequest(UUID txnId) throws IOException {
 
         /* | Get Transaction by ID request packet.                         | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1063,7 +1339,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: txn id
@@ -1071,30 +1348,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(txnIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
-    private Optional<Certificate>
-    readGetTransactionByIdResponse() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    private Optional<TransactionRecord>
+    readGetTransactionByIdResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Transaction by ID response packet.                        | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1114,16 +1375,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_TRANSACTION_BY_ID_GET) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -1136,15 +1395,25 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
             return Optional.empty();
         }
 
-        // get certificate
-        byte[] certificate = Arrays.copyOfRange(
-            decryptedPayload, payloadHeaderSize,
-            payloadSize);
-        return Optional.of(Certificate.fromByteArray(certificate));
+        // the certificate is a view of the payload; it is not copied.
+        Certificate certificate =
+            Certificate.fromByteArray(
+                decryptedPayload, payloadHeaderSize,
+                payloadSize - payloadHeaderSize);
+
+        return Optional.of(
+            new TransactionRecord(
+                UuidUtil.getUUIDFromBytes(decryptedPayload, 12),
+                UuidUtil.getOptUUIDFromBytes(decryptedPayload, 28),
+                UuidUtil.getOptUUIDFromBytes(decryptedPayload, 44),
+                UuidUtil.getUUIDFromBytes(decryptedPayload, 60),
+                UuidUtil.getUUIDFromBytes(decryptedPayload, 76),
+                (int)ByteUtil.ntohl(decryptedPayload, 100),
+                certificate));
     }
 
-    private void writeGetTransactionNextIdRequest(UUID txnId)
-    throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetTransactionNextIdRequest(UUID txnId) throws IOException {
 
         /* | Get Transaction next ID request packet.                       | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1163,7 +1432,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: txn id
@@ -1171,30 +1441,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(txnIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private Optional<UUID>
-    readGetTransactionNextIdResponse() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetTransactionNextIdResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Transaction Next ID response packet.                      | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1207,16 +1461,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_TRANSACTION_ID_GET_NEXT) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -1230,13 +1482,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // get uuid
-        byte[] nextTxnIdBytes = Arrays.copyOfRange(
-            decryptedPayload, 3 * 4, 3 * 4 + 16);
-        return Optional.of(UuidUtil.getUUIDFromBytes(nextTxnIdBytes));
+        return Optional.of(
+            UuidUtil.getUUIDFromBytes(decryptedPayload, 3 * 4));
     }
 
-    private void writeGetTransactionPreviousIdRequest(UUID txnId)
-    throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetTransactionPreviousIdRequest(UUID txnId) throws IOException {
 
         /* | Get Transaction prev ID request packet.                       | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1255,7 +1506,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: txn id
@@ -1263,30 +1515,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(txnIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private Optional<UUID>
-    readGetTransactionPreviousIdResponse() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetTransactionPreviousIdResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Transaction Prev ID response packet.                      | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1299,16 +1535,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_TRANSACTION_ID_GET_PREV) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -1322,13 +1556,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // get uuid
-        byte[] prevTxnIdBytes = Arrays.copyOfRange(
-            decryptedPayload, 3 * 4, 3 * 4 + 16);
-        return Optional.of(UuidUtil.getUUIDFromBytes(prevTxnIdBytes));
+        return Optional.of(
+            UuidUtil.getUUIDFromBytes(decryptedPayload, 3 * 4));
     }
 
-    private void writeGetTransactionBlockIdRequest(UUID txnId)
-    throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetTransactionBlockIdRequest(UUID txnId) throws IOException {
 
         /* | Get Transaction block ID request packet.                      | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1348,7 +1581,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: txn id
@@ -1356,30 +1590,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(txnIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private Optional<UUID>
-    readGetTransactionBlockIdResponse() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetTransactionBlockIdResponse(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Transaction Block ID response packet.                     | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1392,16 +1610,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_TRANSACTION_ID_GET_BLOCK_ID) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -1415,13 +1631,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // get uuid
-        byte[] blockTxnIdBytes = Arrays.copyOfRange(
-            decryptedPayload, 3 * 4, 3 * 4 + 16);
-        return Optional.of(UuidUtil.getUUIDFromBytes(blockTxnIdBytes));
+        return Optional.of(
+            UuidUtil.getUUIDFromBytes(decryptedPayload, 3 * 4));
     }
 
-    private void writeGetArtifactFirstTxnIdRequest(UUID artifactId)
-    throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetArtifactFirstTxnIdRequest(UUID artifactId) throws IOException {
 
         /* | Get Artifact first transaction ID request packet.             | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1441,7 +1656,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: artifact id
@@ -1449,30 +1665,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(artifactIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private Optional<UUID>
-    readGetArtifactGetFirstTxnIdRequest() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetArtifactGetFirstTxnIdRequest(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Artifact First Transaction ID response packet.            | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1485,16 +1685,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_ARTIFACT_FIRST_TXN_BY_ID_GET) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -1508,13 +1706,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // get uuid
-        byte[] firstTxnIdBytes = Arrays.copyOfRange(
-            decryptedPayload, 3 * 4, 3 * 4 + 16);
-        return Optional.of(UuidUtil.getUUIDFromBytes(firstTxnIdBytes));
+        return Optional.of(
+            UuidUtil.getUUIDFromBytes(decryptedPayload, 3 * 4));
     }
 
-    private void writeGetArtifactLastTxnIdRequest(UUID artifactId)
-    throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetArtifactLastTxnIdRequest(UUID artifactId) throws IOException {
 
         /* | Get Artifact first transaction ID request packet.             | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1534,7 +1731,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-23: artifact id
@@ -1542,30 +1740,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(artifactIdBytes, 0, request, 8, 16);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private Optional<UUID>
-    readGetArtifactGetLastTxnIdRequest() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetArtifactGetLastTxnIdRequest(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Artifact Last Transaction ID response packet.             | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1578,16 +1760,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_ARTIFACT_LAST_TXN_BY_ID_GET) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -1601,12 +1781,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // get uuid
-        byte[] lastTxnIdBytes = Arrays.copyOfRange(
-            decryptedPayload, 3 * 4, 3 * 4 + 16);
-        return Optional.of(UuidUtil.getUUIDFromBytes(lastTxnIdBytes));
+        return Optional.of(
+            UuidUtil.getUUIDFromBytes(decryptedPayload, 3 * 4));
     }
 
-    private void writeGetBlockIdByBlockHeight(long height) throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetBlockIdByBlockHeight(long height) throws IOException {
 
         /* | Get Block ID by Block Height request packet.                  | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1626,7 +1806,8 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // bytes 8-15: block height
@@ -1634,30 +1815,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(blockHeightBytes, 0, request, 8, 8);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private Optional<UUID>
-    readGetBlockIdByBlockHeight() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetBlockIdByBlockHeight(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Block ID by Block Height response packet.                 | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1670,16 +1835,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_BLOCK_ID_BY_HEIGHT_GET) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* TODO - there might be a different error than not found. */
             return Optional.empty();
@@ -1693,12 +1856,12 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         }
 
         // get uuid
-        byte[] blockIdBytes = Arrays.copyOfRange(
-            decryptedPayload, 3 * 4, 3 * 4 + 16);
-        return Optional.of(UuidUtil.getUUIDFromBytes(blockIdBytes));
+        return Optional.of(
+            UuidUtil.getUUIDFromBytes(decryptedPayload, 3 * 4));
     }
 
-    private void writeGetConnectionStatus() throws IOException {
+    private CompletableFuture<byte[]>
+    writeGetConnectionStatus() throws IOException {
 
         /* | Get Connection Status request packet.                         | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1717,34 +1880,19 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         System.arraycopy(reqBytes, 0, request, 0, 4);
 
         // bytes 4-7: offset
-        byte[] offsetBytes = ByteUtil.htonl(0);
+        int offset = nextRequestOffset();
+        byte[] offsetBytes = ByteUtil.htonl(offset);
         System.arraycopy(offsetBytes, 0, request, 4, 4);
 
         // send the request to the server
-        dataChannel.send(outerEnvelopeWriter.encryptPayload(
-            sharedSecret, request));
+        return sendRequest(offset, request);
     }
 
     private int
-    readGetConnectionStatus() throws IOException {
-
-        // receive the header: type, size
-        byte[] header = dataChannel.recv(5);
-        int payloadSize = outerEnvelopeReader.decryptHeader(
-            sharedSecret, header);
-
-        if (payloadSize < 12) // at least 3 x 4 bytes
-        {
-            throw new InvalidPayloadSizeException("Invalid payload size ("
-                + payloadSize + "). Expected at least 12 bytes.");
-        }
-
-        // read the HMAC and the payload.
-        byte[] encryptedPayload = dataChannel.recv(payloadSize + 32);
+    readGetConnectionStatus(byte[] decryptedPayload)
+    throws IOException {
 
-        // decrypt the payload
-        byte[] decryptedPayload = outerEnvelopeReader.decryptPayload(
-            sharedSecret, header, encryptedPayload);
+        int payloadSize = decryptedPayload.length;
 
         /* | Get Connection Status response packet.                        | */
         /* | ---------------------------------------------- | ------------ | */
@@ -1756,16 +1904,14 @@ public class ProtocolHandlerImpl implements ProtocolHandler {
         /* | ---------------------------------------------- | ------------ | */
 
         // verify request ID
-        long requestId = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 0, 4));
+        long requestId = ByteUtil.ntohl(decryptedPayload, 0);
         if (requestId != UNAUTH_PROTOCOL_REQ_ID_STATUS_GET) {
             throw new InvalidRequestIdException(
                 "Invalid request ID: " + requestId);
         }
 
         // get status
-        long status = ByteUtil.ntohl(
-            Arrays.copyOfRange(decryptedPayload, 4, 8));
+        long status = ByteUtil.ntohl(decryptedPayload, 4);
         if (status != 0) {
             /* doesn't matter, but make it non-zero. */
             return 1;
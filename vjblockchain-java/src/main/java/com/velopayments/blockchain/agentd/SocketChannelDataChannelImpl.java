@@ -0,0 +1,156 @@
+package com.velopayments.blockchain.agentd;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Data channel over a blocking NIO socket channel.
+ *
+ * Reads are served from a reusable direct buffer, which is refilled with as
+ * much as the socket has available, so a single read from the socket often
+ * covers a header, HMAC, and payload.  {@link #recv(ByteBuffer)} copies
+ * straight into the caller's buffer; {@link #recv(int)} returns a new array,
+ * since the array is handed on to the caller.
+ *
+ * Each message is sent with one write when it fits in the write buffer.
+ * The outer envelope writer already returns a packet's header, HMAC and
+ * payload as one array, so there are no separate buffers to gather.
+ *
+ * One thread may send while another receives, but sends and receives must
+ * each be serialized by the caller.
+ */
+public class SocketChannelDataChannelImpl implements DataChannel {
+
+    /**
+     * The default size of the read and write buffers.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private String host;
+    private Integer port;
+
+    private SocketChannel channel;
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer writeBuffer;
+
+    /**
+     * Constructor method to create a disconnected channel.
+     *
+     * @param host          the host to establish a remote connection to
+     * @param port          the port number to establish a remote connection to
+     */
+    public SocketChannelDataChannelImpl(String host, Integer port) {
+        this(host, port, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor method to create a disconnected channel.
+     *
+     * @param host          the host to establish a remote connection to
+     * @param port          the port number to establish a remote connection to
+     * @param bufferSize    the size of the read and write buffers
+     */
+    public SocketChannelDataChannelImpl(String host, Integer port,
+                                        int bufferSize) {
+        this.host = host;
+        this.port = port;
+
+        this.readBuffer = ByteBuffer.allocateDirect(bufferSize);
+        this.readBuffer.flip();
+        this.writeBuffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Override
+    public void connect() throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public void send(byte[] message) throws IOException {
+
+        // stage the message in direct memory, one buffer at a time.
+        int offset = 0;
+        while (offset < message.length) {
+            int length =
+                Math.min(writeBuffer.capacity(), message.length - offset);
+
+            writeBuffer.clear();
+            writeBuffer.put(message, offset, length);
+            writeBuffer.flip();
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+
+            offset += length;
+        }
+    }
+
+    @Override
+    public byte[] recv(int nBytes) throws IOException {
+        byte[] receivedBytes = new byte[nBytes];
+
+        int offset = 0;
+        while (offset < nBytes) {
+            fillReadBuffer();
+
+            int length = Math.min(readBuffer.remaining(), nBytes - offset);
+            readBuffer.get(receivedBytes, offset, length);
+            offset += length;
+        }
+
+        return receivedBytes;
+    }
+
+    @Override
+    public void recv(ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+            fillReadBuffer();
+
+            if (readBuffer.remaining() <= buffer.remaining()) {
+                buffer.put(readBuffer);
+            } else {
+                ByteBuffer slice = readBuffer.duplicate();
+                slice.limit(slice.position() + buffer.remaining());
+                buffer.put(slice);
+                readBuffer.position(slice.position());
+            }
+        }
+    }
+
+    /**
+     * Ensure that the read buffer has at least one byte available, reading
+     * as much as the socket has available if it is empty.
+     *
+     * @throws EOFException if the remote end closed the connection.
+     */
+    private void fillReadBuffer() throws IOException {
+
+        if (readBuffer.hasRemaining()) {
+            return;
+        }
+
+        readBuffer.clear();
+        try {
+            int read;
+            do {
+                read = channel.read(readBuffer);
+                if (read < 0) {
+                    throw new EOFException("Connection closed by agent.");
+                }
+            } while (0 == read);
+        } finally {
+            readBuffer.flip();
+        }
+    }
+}
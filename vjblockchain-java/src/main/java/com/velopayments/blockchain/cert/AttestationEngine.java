@@ -0,0 +1,204 @@
+package com.velopayments.blockchain.cert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attest many certificates concurrently.
+ *
+ * Each certificate is attested by its own task on the engine's executor,
+ * and every certificate gets a result, so one bad certificate does not hide
+ * the others.  The delegate is called from every executor thread, so it
+ * must be thread safe.
+ *
+ * The engine counts the certificates it attests, and the time spent
+ * attesting them summed across threads, so that throughput can be
+ * reported.
+ */
+public class AttestationEngine {
+
+    private final CertificateParserDelegate delegate;
+    private final Executor executor;
+    private final LongAdder valid;
+    private final LongAdder invalid;
+    private final LongAdder failed;
+    private final LongAdder attestationNanos;
+
+    /**
+     * Create an attestation engine using the common fork-join pool.
+     *
+     * @param delegate      The delegate used to resolve entities, artifacts
+     *                      and contracts.
+     */
+    public AttestationEngine(CertificateParserDelegate delegate) {
+        this(delegate, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an attestation engine.
+     *
+     * @param delegate      The delegate used to resolve entities, artifacts
+     *                      and contracts.
+     * @param executor      The executor on which to attest.
+     */
+    public AttestationEngine(
+        CertificateParserDelegate delegate, Executor executor) {
+
+        this.delegate = delegate;
+        this.executor = executor;
+        this.valid = new LongAdder();
+        this.invalid = new LongAdder();
+        this.failed = new LongAdder();
+        this.attestationNanos = new LongAdder();
+    }
+
+    /**
+     * Attest a collection of certificates, waiting for every result.
+     *
+     * @param certificates     The certificates to attest.
+     * @param blockHeight      Height of the blockchain at time of
+     *                         attestation.
+     * @param validateContract Set to true if contracts should be validated.
+     *
+     * @return a result for each certificate, in iteration order.
+     */
+    public List<AttestationResult> attest(
+        Collection<Certificate> certificates, long blockHeight,
+        boolean validateContract) {
+
+        return attestAsync(certificates, blockHeight, validateContract).join();
+    }
+
+    /**
+     * Attest a collection of certificates asynchronously.
+     *
+     * @param certificates     The certificates to attest.
+     * @param blockHeight      Height of the blockchain at time of
+     *                         attestation.
+     * @param validateContract Set to true if contracts should be validated.
+     *
+     * @return a future completed with a result for each certificate, in
+     *         iteration order.
+     */
+    public CompletableFuture<List<AttestationResult>> attestAsync(
+        Collection<Certificate> certificates, long blockHeight,
+        boolean validateContract) {
+
+        List<CompletableFuture<AttestationResult>> futures =
+            new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            futures.add(CompletableFuture.supplyAsync(
+                () -> attestOne(certificate, blockHeight, validateContract),
+                executor));
+        }
+
+        return CompletableFuture
+            .allOf(futures.toArray(new CompletableFuture<?>[0]))
+            .thenApply(v -> {
+                List<AttestationResult> results =
+                    new ArrayList<>(futures.size());
+                for (CompletableFuture<AttestationResult> future : futures) {
+                    results.add(future.join());
+                }
+                return results;
+            });
+    }
+
+    /**
+     * Get the number of certificates attested.
+     *
+     * @return the attested count.
+     */
+    public long getAttestedCount() {
+        return valid.sum() + invalid.sum() + failed.sum();
+    }
+
+    /**
+     * Get the number of certificates found to be valid.
+     *
+     * @return the valid count.
+     */
+    public long getValidCount() {
+        return valid.sum();
+    }
+
+    /**
+     * Get the number of certificates which attestation rejected without an
+     * exception.
+     *
+     * @return the invalid count.
+     */
+    public long getInvalidCount() {
+        return invalid.sum();
+    }
+
+    /**
+     * Get the number of certificates for which attestation threw.
+     *
+     * @return the failed count.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Get the time spent attesting, summed across threads.
+     *
+     * @return the attestation time, in nanoseconds.
+     */
+    public long getAttestationNanos() {
+        return attestationNanos.sum();
+    }
+
+    /**
+     * Attest a single certificate, recording the outcome.
+     *
+     * @param certificate      The certificate to attest.
+     * @param blockHeight      Height of the blockchain at time of
+     *                         attestation.
+     * @param validateContract Set to true if the contract should be
+     *                         validated.
+     *
+     * @return the result for this certificate.
+     */
+    AttestationResult attestOne(
+        Certificate certificate, long blockHeight, boolean validateContract) {
+
+        long start = System.nanoTime();
+        try {
+            boolean ok = verify(certificate, blockHeight, validateContract);
+            (ok ? valid : invalid).increment();
+
+            return new AttestationResult(certificate, ok, null);
+        } catch (RuntimeException e) {
+            failed.increment();
+
+            return new AttestationResult(certificate, false, e);
+        } finally {
+            attestationNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Attest a single certificate with a new parser.
+     *
+     * @param certificate      The certificate to attest.
+     * @param blockHeight      Height of the blockchain at time of
+     *                         attestation.
+     * @param validateContract Set to true if the contract should be
+     *                         validated.
+     *
+     * @return true if the certificate is valid, and false otherwise.
+     */
+    protected boolean verify(
+        Certificate certificate, long blockHeight, boolean validateContract) {
+
+        return new CertificateParser(certificate)
+            .attest(delegate, blockHeight, validateContract);
+    }
+}
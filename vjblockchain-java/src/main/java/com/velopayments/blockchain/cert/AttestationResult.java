@@ -0,0 +1,60 @@
+package com.velopayments.blockchain.cert;
+
+import java.util.Optional;
+
+/**
+ * The outcome of attesting one certificate with an {@link AttestationEngine}.
+ *
+ * A certificate is valid only if attestation succeeded.  If attestation
+ * failed by throwing, such as an {@link AttestationException} or an
+ * {@link UnknownEntityException}, the exception is kept as the failure.
+ */
+public final class AttestationResult {
+
+    private final Certificate certificate;
+    private final boolean valid;
+    private final RuntimeException failure;
+
+    /**
+     * Create an attestation result.
+     *
+     * @param certificate   The certificate attested.
+     * @param valid         True if the certificate is valid.
+     * @param failure       The exception thrown during attestation, or null.
+     */
+    AttestationResult(
+        Certificate certificate, boolean valid, RuntimeException failure) {
+
+        this.certificate = certificate;
+        this.valid = valid;
+        this.failure = failure;
+    }
+
+    /**
+     * Get the certificate which was attested.
+     *
+     * @return the certificate.
+     */
+    public Certificate getCertificate() {
+        return certificate;
+    }
+
+    /**
+     * Determine whether the certificate is valid.
+     *
+     * @return true if attestation succeeded, and false otherwise.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Get the exception which stopped attestation, if any.  A certificate
+     * which attestation rejected without an exception has no failure.
+     *
+     * @return the failure, or empty.
+     */
+    public Optional<RuntimeException> getFailure() {
+        return Optional.ofNullable(failure);
+    }
+}
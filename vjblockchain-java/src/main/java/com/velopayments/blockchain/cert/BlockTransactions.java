@@ -0,0 +1,132 @@
+package com.velopayments.blockchain.cert;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A spliterator over the transactions wrapped in a block certificate.
+ *
+ * The boundaries of every {@link Field#WRAPPED_TRANSACTION_TUPLE} are found
+ * in a single pass when the spliterator is created.  Each transaction is a
+ * view of the block's bytes, so nothing is copied, and the spliterator
+ * splits evenly by transaction count, so a parallel stream spreads the
+ * parsing of the transactions across the fork-join pool.
+ */
+public final class BlockTransactions implements Spliterator<Certificate> {
+
+    private final byte[] block;
+    private final int[] offsets;
+    private final int[] lengths;
+    private int origin;
+    private final int fence;
+
+    /**
+     * Create a spliterator over the transactions in a block.
+     *
+     * @param block         The block certificate.
+     */
+    public BlockTransactions(Certificate block) {
+
+        this.block = block.toByteArray();
+
+        CertificateFieldIndex fields =
+            new CertificateFieldIndex().parse(this.block);
+        int count = fields.count(Field.WRAPPED_TRANSACTION_TUPLE);
+        this.offsets = new int[count];
+        this.lengths = new int[count];
+        for (int i = 0, txn = 0; i < fields.size(); ++i) {
+            if (fields.getFieldId(i) == Field.WRAPPED_TRANSACTION_TUPLE) {
+                offsets[txn] = fields.getValueOffset(i);
+                lengths[txn] = fields.getValueLength(i);
+                ++txn;
+            }
+        }
+
+        this.origin = 0;
+        this.fence = count;
+    }
+
+    private BlockTransactions(
+        byte[] block, int[] offsets, int[] lengths, int origin, int fence) {
+
+        this.block = block;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    /**
+     * Stream the transactions in a block, in block order.
+     *
+     * @param block         The block certificate.
+     *
+     * @return a sequential stream of the transactions.
+     */
+    public static Stream<Certificate> stream(Certificate block) {
+        return StreamSupport.stream(new BlockTransactions(block), false);
+    }
+
+    /**
+     * Stream the transactions in a block in parallel.  The stream is
+     * ordered, so collecting operations still see block order.
+     *
+     * @param block         The block certificate.
+     *
+     * @return a parallel stream of the transactions.
+     */
+    public static Stream<Certificate> parallelStream(Certificate block) {
+        return StreamSupport.stream(new BlockTransactions(block), true);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Certificate> action) {
+
+        if (origin >= fence) {
+            return false;
+        }
+
+        action.accept(transaction(origin++));
+
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Certificate> action) {
+
+        for (; origin < fence; ++origin) {
+            action.accept(transaction(origin));
+        }
+    }
+
+    @Override
+    public Spliterator<Certificate> trySplit() {
+
+        int mid = (origin + fence) >>> 1;
+        if (mid <= origin) {
+            return null;
+        }
+
+        Spliterator<Certificate> prefix =
+            new BlockTransactions(block, offsets, lengths, origin, mid);
+        origin = mid;
+
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    private Certificate transaction(int txn) {
+        return Certificate.fromByteArray(block, offsets[txn], lengths[txn]);
+    }
+}
@@ -0,0 +1,205 @@
+package com.velopayments.blockchain.cert;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A parser delegate which caches the answers of another delegate.
+ *
+ * Entity references are cached per entity at each height that has been
+ * resolved; a height which has not been resolved is always passed to the
+ * wrapped delegate, even if the same keys were resolved on either side of
+ * it.  Contracts are cached for the life of the
+ * delegate by artifact type and transaction type.  Artifact states are
+ * cached only for the highest height seen so far, since any new
+ * transaction may change them; lookups at lower heights are passed through.
+ *
+ * Failed lookups are never cached.  This delegate is thread safe if the
+ * wrapped delegate is.
+ */
+public class CachingParserDelegate implements CertificateParserDelegate {
+
+    private final CertificateParserDelegate delegate;
+    private final Map<UUID, Map<Long, EntityReference>> entities;
+    private final Map<ContractKey, CertificateContract> contracts;
+    private final AtomicReference<ArtifactStates> artifactStates;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Wrap a delegate with a cache.
+     *
+     * @param delegate      The delegate to wrap.
+     */
+    public CachingParserDelegate(CertificateParserDelegate delegate) {
+
+        this.delegate = delegate;
+        this.entities = new ConcurrentHashMap<>();
+        this.contracts = new ConcurrentHashMap<>();
+        this.artifactStates =
+            new AtomicReference<>(new ArtifactStates(Long.MIN_VALUE));
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    @Override
+    public EntityReference resolveEntity(UUID entityId, long height)
+    throws UnknownEntityException {
+
+        Map<Long, EntityReference> heights = entities.get(entityId);
+        if (null != heights) {
+            EntityReference entity = heights.get(height);
+            if (null != entity) {
+                hits.increment();
+                return entity;
+            }
+        }
+
+        misses.increment();
+        EntityReference entity = delegate.resolveEntity(entityId, height);
+        if (null != entity) {
+            if (null == heights) {
+                heights = new ConcurrentHashMap<>();
+                Map<Long, EntityReference> cached =
+                    entities.putIfAbsent(entityId, heights);
+                if (null != cached) {
+                    heights = cached;
+                }
+            }
+
+            heights.putIfAbsent(height, entity);
+        }
+
+        return entity;
+    }
+
+    @Override
+    public ArtifactState resolveArtifactState(UUID artifactId, long height)
+    throws UnknownArtifactException {
+
+        ArtifactStates states = artifactStates.get();
+        while (height > states.height) {
+            artifactStates.compareAndSet(states, new ArtifactStates(height));
+            states = artifactStates.get();
+        }
+
+        if (height == states.height) {
+            ArtifactState state = states.states.get(artifactId);
+            if (null != state) {
+                hits.increment();
+                return state;
+            }
+        }
+
+        misses.increment();
+        ArtifactState state = delegate.resolveArtifactState(artifactId, height);
+        if (null != state && height == states.height) {
+            states.states.putIfAbsent(artifactId, state);
+        }
+
+        return state;
+    }
+
+    @Override
+    public CertificateContract resolveEntityContract(
+        UUID artifactTypeId, UUID transactionTypeId)
+    throws UnknownArtifactTypeException, UnknownTransactionTypeException {
+
+        ContractKey key = new ContractKey(artifactTypeId, transactionTypeId);
+
+        CertificateContract contract = contracts.get(key);
+        if (null != contract) {
+            hits.increment();
+            return contract;
+        }
+
+        misses.increment();
+        contract = delegate.resolveEntityContract(
+            artifactTypeId, transactionTypeId);
+        if (null != contract) {
+            CertificateContract cached = contracts.putIfAbsent(key, contract);
+            if (null != cached) {
+                contract = cached;
+            }
+        }
+
+        return contract;
+    }
+
+    /**
+     * Forget everything cached about an entity, such as after its keys
+     * have been revoked.
+     *
+     * @param entityId      The UUID of the entity.
+     */
+    public void invalidateEntity(UUID entityId) {
+        entities.remove(entityId);
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return the hit count.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups passed to the wrapped delegate.
+     *
+     * @return the miss count.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The artifact states resolved at one height.
+     */
+    private static final class ArtifactStates {
+
+        private final long height;
+        private final Map<UUID, ArtifactState> states;
+
+        ArtifactStates(long height) {
+            this.height = height;
+            this.states = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Key of a contract.
+     */
+    private static final class ContractKey {
+
+        private final UUID artifactTypeId;
+        private final UUID transactionTypeId;
+
+        ContractKey(UUID artifactTypeId, UUID transactionTypeId) {
+            this.artifactTypeId = artifactTypeId;
+            this.transactionTypeId = transactionTypeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ContractKey)) {
+                return false;
+            }
+
+            ContractKey other = (ContractKey)o;
+            return Objects.equals(artifactTypeId, other.artifactTypeId)
+                && Objects.equals(transactionTypeId, other.transactionTypeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(artifactTypeId)
+                 + Objects.hashCode(transactionTypeId);
+        }
+    }
+}
@@ -1,19 +1,34 @@
 package com.velopayments.blockchain.cert;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * Wrapper around byte array to indicate that this array should be treated as a
  * certificate.
+ *
+ * A certificate may be a view of a range of a larger array, such as a
+ * response payload, in which case the bytes are not copied until an exact
+ * array is required.
  */
 public class Certificate {
 
     /**
-     * Create a Certificate from a byte array.
+     * Create a Certificate from a range of a byte array.
      *
      * @param byteArray         The array from which this certificate is
      *                          created.
+     * @param offset            The offset of the certificate in the array.
+     * @param length            The length of the certificate.
      */
-    private Certificate(byte[] byteArray) {
+    private Certificate(byte[] byteArray, int offset, int length) {
         this.byteArray = byteArray;
+        this.offset = offset;
+        this.length = length;
+
+        if (0 == offset && byteArray.length == length) {
+            this.exactArray = byteArray;
+        }
     }
 
     /**
@@ -25,17 +40,83 @@ public class Certificate {
      * @return a Certificate backed by this byte array.
      */
     public static Certificate fromByteArray(byte[] byteArray) {
-        return new Certificate(byteArray);
+        return new Certificate(byteArray, 0, byteArray.length);
+    }
+
+    /**
+     * Static method to create a Certificate which is a view of a range of a
+     * byte array.  The range is not copied, so the array must not be modified
+     * while the certificate is in use.
+     *
+     * @param byteArray         The array from which this certificate is
+     *                          created.
+     * @param offset            The offset of the certificate in the array.
+     * @param length            The length of the certificate.
+     *
+     * @return a Certificate backed by this range of the byte array.
+     */
+    public static Certificate fromByteArray(
+        byte[] byteArray, int offset, int length) {
+
+        if (offset < 0 || length < 0 || byteArray.length - offset < length) {
+            throw new IndexOutOfBoundsException(
+                "Invalid certificate range.");
+        }
+
+        return new Certificate(byteArray, offset, length);
     }
 
     /**
      * Get the bytes backing this Certificate.
      *
+     * If this certificate is a view of part of a larger array, the range is
+     * copied into an exact array the first time this method is called.
+     *
      * @return the bytes backing this certificate.
      */
     public byte[] toByteArray() {
-        return this.byteArray;
+        byte[] exact = this.exactArray;
+        if (null == exact) {
+            exact = Arrays.copyOfRange(byteArray, offset, offset + length);
+            this.exactArray = exact;
+        }
+
+        return exact;
+    }
+
+    /**
+     * Get the size of this Certificate in bytes.
+     *
+     * @return the size of this certificate.
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Get a read-only buffer over the bytes of this Certificate, without
+     * copying them.  The buffer's position is zero and its limit is the size
+     * of the certificate.
+     *
+     * @return a read-only view of this certificate.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(byteArray, offset, length)
+            .slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Copy the bytes of this Certificate into an array.
+     *
+     * @param dest              The destination array.
+     * @param destOffset        The offset in the destination array.
+     */
+    public void copyTo(byte[] dest, int destOffset) {
+        System.arraycopy(byteArray, offset, dest, destOffset, length);
     }
 
-    private byte[] byteArray;
+    private final byte[] byteArray;
+    private final int offset;
+    private final int length;
+    private volatile byte[] exactArray;
 }
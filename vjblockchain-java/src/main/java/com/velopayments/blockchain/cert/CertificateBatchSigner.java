@@ -0,0 +1,255 @@
+package com.velopayments.blockchain.cert;
+
+import com.velopayments.blockchain.crypt.SigningPrivateKey;
+import com.velopayments.blockchain.init.Initializer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sign many certificates with one signer's key.
+ *
+ * The signer id and private key are copied into native memory once, when
+ * the signer is created, rather than for every certificate.  A batch is
+ * split into chunks which are signed in parallel on a fork-join pool, with
+ * one native call per chunk.
+ *
+ * A signer may be shared between threads.  It holds native memory until it
+ * is closed.
+ */
+public class CertificateBatchSigner implements AutoCloseable {
+
+    /**
+     * The default number of certificates signed per native call.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
+    private final long nativeInst;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final ReentrantReadWriteLock lock;
+    private long signingContext;
+
+    /**
+     * Create a batch signer using the common fork-join pool.
+     *
+     * @param signerId      The UUID of the signer.
+     * @param privateKey    The private key of the signer.
+     */
+    public CertificateBatchSigner(UUID signerId, SigningPrivateKey privateKey) {
+        this(signerId, privateKey, ForkJoinPool.commonPool(),
+             DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a batch signer.
+     *
+     * @param signerId      The UUID of the signer.
+     * @param privateKey    The private key of the signer.
+     * @param pool          The pool on which to sign.
+     * @param chunkSize     The number of certificates signed per native
+     *                      call.
+     */
+    public CertificateBatchSigner(
+        UUID signerId, SigningPrivateKey privateKey, ForkJoinPool pool,
+        int chunkSize) {
+
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Invalid chunk size.");
+        }
+
+        this.nativeInst = Initializer.getInstance();
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.lock = new ReentrantReadWriteLock();
+        this.signingContext =
+            createSigningContextNative(
+                nativeInst, serializeUUID(signerId),
+                privateKey.getRawBytes());
+    }
+
+    /**
+     * Sign the certificates being built by a list of builders.  The
+     * builders must not be changed until signing is complete, and may then
+     * be reset and reused.
+     *
+     * @param builders      The builders holding the certificate fields.
+     *
+     * @return the signed certificates, in the order of the builders.
+     */
+    public List<Certificate>
+    sign(List<? extends CertificateBuilder> builders) {
+
+        int count = builders.size();
+        byte[][] fields = new byte[count][];
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; ++i) {
+            CertificateBuilder builder = builders.get(i);
+            fields[i] = builder.buffer;
+            sizes[i] = builder.size;
+        }
+
+        return signAll(fields, sizes);
+    }
+
+    /**
+     * Sign a list of unsigned certificates, such as those emitted by
+     * {@link CertificateBuilder#emit()}.
+     *
+     * @param unsigned      The unsigned certificates.
+     *
+     * @return the signed certificates, in the order given.
+     */
+    public List<Certificate> signCertificates(List<Certificate> unsigned) {
+
+        int count = unsigned.size();
+        byte[][] fields = new byte[count][];
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; ++i) {
+            fields[i] = unsigned.get(i).toByteArray();
+            sizes[i] = fields[i].length;
+        }
+
+        return signAll(fields, sizes);
+    }
+
+    /**
+     * Release the native signing context.  Signing after the signer is
+     * closed fails; closing it again does nothing.
+     */
+    @Override
+    public void close() {
+
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            if (0 != signingContext) {
+                releaseSigningContextNative(nativeInst, signingContext);
+                signingContext = 0;
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private List<Certificate> signAll(byte[][] fields, int[] sizes) {
+
+        Certificate[] signed = new Certificate[fields.length];
+        if (fields.length <= chunkSize) {
+            signChunk(fields, sizes, 0, fields.length, signed);
+        } else {
+            pool.invoke(new SignTask(fields, sizes, 0, fields.length, signed));
+        }
+
+        return Arrays.asList(signed);
+    }
+
+    private void signChunk(
+        byte[][] fields, int[] sizes, int from, int to, Certificate[] signed) {
+
+        byte[][] chunkFields = Arrays.copyOfRange(fields, from, to);
+        int[] chunkSizes = Arrays.copyOfRange(sizes, from, to);
+
+        Certificate[] chunk;
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            if (0 == signingContext) {
+                throw new IllegalStateException("Signer is closed.");
+            }
+
+            chunk = signBatchNative(
+                nativeInst, signingContext, chunkFields, chunkSizes);
+        } finally {
+            read.unlock();
+        }
+
+        System.arraycopy(chunk, 0, signed, from, chunk.length);
+    }
+
+    /**
+     * Split a batch until each piece fits in a chunk.
+     */
+    private final class SignTask extends RecursiveAction {
+
+        static final long serialVersionUID = 1;
+
+        private final byte[][] fields;
+        private final int[] sizes;
+        private final int from;
+        private final int to;
+        private final Certificate[] signed;
+
+        SignTask(
+            byte[][] fields, int[] sizes, int from, int to,
+            Certificate[] signed) {
+
+            this.fields = fields;
+            this.sizes = sizes;
+            this.from = from;
+            this.to = to;
+            this.signed = signed;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= chunkSize) {
+                signChunk(fields, sizes, from, to, signed);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new SignTask(fields, sizes, from, mid, signed),
+                      new SignTask(fields, sizes, mid, to, signed));
+        }
+    }
+
+    private static byte[] serializeUUID(UUID uuid) {
+        ByteBuffer buf = ByteBuffer.allocate(16);
+        buf.putLong(uuid.getMostSignificantBits());
+        buf.putLong(uuid.getLeastSignificantBits());
+
+        return buf.array();
+    }
+
+    /**
+     * Copy the signer id and private key into a native signing context.
+     *
+     * @param nativeInst the native instance pointer.
+     * @param signerId The UUID of the signer.
+     * @param privateKey The private key of the signer.
+     *
+     * @return the signing context pointer.
+     */
+    private static native long createSigningContextNative(
+        long nativeInst, byte[] signerId, byte[] privateKey);
+
+    /**
+     * Sign a chunk of certificates.
+     *
+     * @param nativeInst the native instance pointer.
+     * @param signingContext the signing context pointer.
+     * @param fields The encoded fields of each certificate.
+     * @param sizes The number of bytes of each fields array in use.
+     *
+     * @return the signed certificates.
+     */
+    private static native Certificate[] signBatchNative(
+        long nativeInst, long signingContext, byte[][] fields, int[] sizes);
+
+    /**
+     * Release a native signing context.
+     *
+     * @param nativeInst the native instance pointer.
+     * @param signingContext the signing context pointer.
+     */
+    private static native void releaseSigningContextNative(
+        long nativeInst, long signingContext);
+}
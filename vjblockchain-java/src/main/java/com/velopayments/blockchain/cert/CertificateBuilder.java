@@ -5,11 +5,21 @@ import com.velopayments.blockchain.init.Initializer;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.time.ZonedDateTime;
-import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.UUID;
 
+/**
+ * Build a certificate.
+ *
+ * Each field is encoded into a single growable buffer as it is added, so
+ * adding a fixed size field does not allocate, and an unsigned certificate
+ * is emitted in Java with one copy of the buffer.
+ *
+ * A builder may be reused with {@link #reset()}, which keeps its buffer and
+ * its header fields.  A {@link CertificateTemplate} holds fields which are
+ * the same in every certificate, encoded once.
+ */
 public class CertificateBuilder {
 
     /**
@@ -18,15 +28,48 @@ public class CertificateBuilder {
     private static Charset stringTranscoder = Charset.forName("UTF-8");
 
     /**
-     * Field list.
+     * The initial size of the field buffer.
      */
-    protected LinkedList<AbstractMap.SimpleEntry<Integer, byte[]>> fields;
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /**
+     * The largest value which a field can hold.
+     */
+    private static final int MAX_FIELD_SIZE = 0xFFFF;
+
+    /**
+     * The encoded fields, in network byte order.
+     */
+    protected byte[] buffer;
+
+    /**
+     * The number of bytes of the buffer in use.
+     */
+    protected int size;
+
+    /**
+     * The number of bytes of header or template fields, which are kept when
+     * the builder is reset.
+     */
+    protected int headerSize;
 
     /**
      * Protected constructor.  The create*() static methods should be used.
      */
     protected CertificateBuilder() {
-        fields = new LinkedList<>();
+        buffer = new byte[INITIAL_BUFFER_SIZE];
+    }
+
+    /**
+     * Create a builder starting with pre-encoded fields, which are kept when
+     * the builder is reset.
+     *
+     * @param header        The encoded fields.
+     */
+    CertificateBuilder(byte[] header) {
+        buffer = Arrays.copyOf(
+            header, Math.max(INITIAL_BUFFER_SIZE, header.length * 2));
+        size = headerSize = header.length;
     }
 
     /**
@@ -47,10 +90,34 @@ public class CertificateBuilder {
         that.addInt(Field.CERTIFICATE_VERSION, 0x00010000);
         that.addShort(Field.CERTIFICATE_CRYPTO_SUITE, 0x0001);
         that.addUUID(Field.CERTIFICATE_TYPE, certificateType);
+        that.headerSize = that.size;
 
         return that;
     }
 
+    /**
+     * Discard every field added since this builder was created, keeping the
+     * default fields of a complete certificate, or the fields of the
+     * template the builder was created from.  The buffer is kept, so a
+     * builder which is reset and reused does not allocate until it emits.
+     *
+     * @return this builder for additional operations.
+     */
+    public CertificateBuilder reset() {
+        size = headerSize;
+
+        return this;
+    }
+
+    /**
+     * Copy the fields added so far.
+     *
+     * @return the encoded fields.
+     */
+    byte[] encodedFields() {
+        return Arrays.copyOf(buffer, size);
+    }
+
     /**
      * Add a byte field to the certificate list.
      *
@@ -60,8 +127,10 @@ public class CertificateBuilder {
      * @return this builder for additional operations.
      */
     public CertificateBuilder addByte(int fieldId, byte value) {
-        return
-            addByteArray(fieldId, serializeByte(value));
+        int offset = addField(fieldId, 1);
+        buffer[offset] = value;
+
+        return this;
     }
 
     /**
@@ -73,8 +142,9 @@ public class CertificateBuilder {
      * @return this builder for additional operations.
      */
     public CertificateBuilder addShort(int fieldId, int value) {
-        return
-            addByteArray(fieldId, serializeShort(value));
+        putShort(addField(fieldId, 2), value);
+
+        return this;
     }
 
     /**
@@ -86,8 +156,9 @@ public class CertificateBuilder {
      * @return this builder for additional operations.
      */
     public CertificateBuilder addInt(int fieldId, int value) {
-        return
-            addByteArray(fieldId, serializeInt(value));
+        putInt(addField(fieldId, 4), value);
+
+        return this;
     }
 
     /**
@@ -99,8 +170,9 @@ public class CertificateBuilder {
      * @return this builder for additional operations.
      */
     public CertificateBuilder addLong(int fieldId, long value) {
-        return
-            addByteArray(fieldId, serializeLong(value));
+        putLong(addField(fieldId, 8), value);
+
+        return this;
     }
 
     /**
@@ -112,8 +184,11 @@ public class CertificateBuilder {
      * @return this builder for additional operations.
      */
     public CertificateBuilder addUUID(int fieldId, UUID value) {
-        return
-            addByteArray(fieldId, serializeUUID(value));
+        int offset = addField(fieldId, 16);
+        putLong(offset, value.getMostSignificantBits());
+        putLong(offset + 8, value.getLeastSignificantBits());
+
+        return this;
     }
 
     /**
@@ -139,8 +214,9 @@ public class CertificateBuilder {
      * @return this builder for additional operations.
      */
     public CertificateBuilder addDate(int fieldId, Date value) {
-        return
-            addByteArray(fieldId, serializeDate(value));
+        putLong(addField(fieldId, 8), value.toInstant().getEpochSecond());
+
+        return this;
     }
 
     /**
@@ -162,8 +238,11 @@ public class CertificateBuilder {
                         "ZonedDateTime can only be used in user fields.");
         }
 
-        return
-            addByteArray(fieldId, serializeZonedDateTime(value));
+        int offset = addField(fieldId, 12);
+        putLong(offset, value.toInstant().getEpochSecond());
+        putInt(offset + 8, value.getOffset().getTotalSeconds());
+
+        return this;
     }
 
     /**
@@ -175,11 +254,8 @@ public class CertificateBuilder {
      * @return this builder for additional operations.
      */
     public CertificateBuilder addByteArray(int fieldId, byte[] value) {
-        fields.add(
-            new AbstractMap.SimpleEntry<>(
-                (int) (short) fieldId, value
-            )
-        );
+        int offset = addField(fieldId, value.length);
+        System.arraycopy(value, 0, buffer, offset, value.length);
 
         return this;
     }
@@ -190,23 +266,20 @@ public class CertificateBuilder {
      * This method is used to create untrusted certificates, such as
      * certificates for private keys.
      *
+     * The fields are already encoded, so this method only copies them.
+     *
      * @return a raw unsigned certificate.
+     *
+     * @throws IllegalStateException if no fields have been added.
      */
     public Certificate emit() {
-        return emit(Initializer.getInstance());
-    }
+        if (0 == size) {
+            throw new IllegalStateException(
+                "cannot emit empty certificate fragment.");
+        }
 
-    /**
-     * Emit an unsigned certificate.
-     * <p>
-     * This method is used to create untrusted certificates, such as
-     * certificates for private keys.
-     *
-     * @param nativeInst the native instance pointer.
-     *
-     * @return a raw unsigned certificate.
-     */
-    private native Certificate emit(long nativeInst);
+        return Certificate.fromByteArray(Arrays.copyOf(buffer, size));
+    }
 
     /**
      * Sign and emit the completed certificate.
@@ -218,8 +291,52 @@ public class CertificateBuilder {
     public Certificate sign(UUID signerId, SigningPrivateKey privateKey) {
         return
             signNative(
-                Initializer.getInstance(), serializeUUID(signerId),
-                privateKey.getRawBytes());
+                Initializer.getInstance(), buffer, size,
+                serializeUUID(signerId), privateKey.getRawBytes());
+    }
+
+    /**
+     * Append the header of a field, making room for its value.
+     *
+     * @param fieldId   The short identifier for this field.
+     * @param length    The size of the value.
+     * @return the offset at which the value should be written.
+     * @throws IllegalArgumentException if the value is too large for a
+     *                                  field.
+     */
+    private int addField(int fieldId, int length) {
+        if (length > MAX_FIELD_SIZE) {
+            throw new IllegalArgumentException(
+                "Field value is too large.");
+        }
+
+        int fieldSize = CertificateFieldIndex.FIELD_HEADER_SIZE + length;
+        if (buffer.length - size < fieldSize) {
+            buffer = Arrays.copyOf(
+                buffer, Math.max(buffer.length * 2, size + fieldSize));
+        }
+
+        putShort(size, fieldId);
+        putShort(size + 2, length);
+        int offset = size + CertificateFieldIndex.FIELD_HEADER_SIZE;
+        size += fieldSize;
+
+        return offset;
+    }
+
+    private void putShort(int offset, int value) {
+        buffer[offset] = (byte) (value >>> 8);
+        buffer[offset + 1] = (byte) value;
+    }
+
+    private void putInt(int offset, int value) {
+        putShort(offset, value >>> 16);
+        putShort(offset + 2, value);
+    }
+
+    private void putLong(int offset, long value) {
+        putInt(offset, (int) (value >>> 32));
+        putInt(offset + 4, (int) value);
     }
 
     /**
@@ -332,11 +449,14 @@ public class CertificateBuilder {
      * Sign and emit the completed certificate.
      *
      * @param nativeInst the native instance pointer.
+     * @param fields The encoded fields.
+     * @param fieldsSize The number of bytes of the encoded fields in use.
      * @param signerId The UUID of the signer.
      * @param privateKey The private key of the signer.
      *
      * @return the certificate as a byte array.
      */
     private native Certificate signNative(
-        long nativeInst, byte[] signerId, byte[] privateKey);
+        long nativeInst, byte[] fields, int fieldsSize, byte[] signerId,
+        byte[] privateKey);
 }
@@ -0,0 +1,272 @@
+package com.velopayments.blockchain.cert;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A pure Java parser for the certificate field format, which records the
+ * id, value offset and value length of each field in primitive arrays.
+ *
+ * Values are not copied; offsets are absolute, in the array or buffer which
+ * was parsed.  An index may be reused for any number of certificates, and
+ * only allocates when a certificate has more fields than any before it.
+ *
+ * Like the native parser, the walk stops at the first field which overruns
+ * the end of the certificate, so a truncated certificate yields the fields
+ * before the damage.
+ */
+public final class CertificateFieldIndex {
+
+    /* | Certificate field.                                            | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | DATA                                           | SIZE         | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | field id, network byte order                   |   2 bytes    | */
+    /* | value size, network byte order                 |   2 bytes    | */
+    /* | value                                          |   n bytes    | */
+    /* | ---------------------------------------------- | ------------ | */
+    public static final int FIELD_HEADER_SIZE = 4;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] ids;
+    private int[] offsets;
+    private int[] lengths;
+    private int size;
+
+    /**
+     * Create an empty index.
+     */
+    public CertificateFieldIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty index with room for a number of fields.
+     *
+     * @param capacity      The number of fields to make room for.
+     */
+    public CertificateFieldIndex(int capacity) {
+
+        capacity = Math.max(capacity, 1);
+        this.ids = new int[capacity];
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    /**
+     * Index the fields of a certificate.
+     *
+     * @param cert          The certificate.
+     *
+     * @return this index.
+     */
+    public CertificateFieldIndex parse(byte[] cert) {
+        return parse(cert, 0, cert.length);
+    }
+
+    /**
+     * Index the fields of a certificate held in a range of an array.
+     *
+     * @param cert          The array holding the certificate.
+     * @param offset        The offset of the certificate in the array.
+     * @param length        The length of the certificate.
+     *
+     * @return this index.
+     */
+    public CertificateFieldIndex parse(byte[] cert, int offset, int length) {
+
+        size = 0;
+
+        int end = offset + length;
+        for (int field = offset; field + FIELD_HEADER_SIZE <= end; ) {
+            int id = ((cert[field] & 0xFF) << 8) | (cert[field + 1] & 0xFF);
+            int len =
+                ((cert[field + 2] & 0xFF) << 8) | (cert[field + 3] & 0xFF);
+            int value = field + FIELD_HEADER_SIZE;
+            if (len > end - value) {
+                break;
+            }
+
+            add(id, value, len);
+            field = value + len;
+        }
+
+        return this;
+    }
+
+    /**
+     * Index the fields of a certificate held between two indexes of a
+     * buffer.  The buffer's position and limit are not used or changed.
+     *
+     * @param cert          The buffer holding the certificate.
+     * @param start         The index of the certificate in the buffer.
+     * @param end           The index of the end of the certificate.
+     *
+     * @return this index.
+     */
+    public CertificateFieldIndex parse(ByteBuffer cert, int start, int end) {
+
+        size = 0;
+
+        for (int field = start; field + FIELD_HEADER_SIZE <= end; ) {
+            int id = cert.getShort(field) & 0xFFFF;
+            int len = cert.getShort(field + 2) & 0xFFFF;
+            int value = field + FIELD_HEADER_SIZE;
+            if (len > end - value) {
+                break;
+            }
+
+            add(id, value, len);
+            field = value + len;
+        }
+
+        return this;
+    }
+
+    /**
+     * Get the number of fields indexed.
+     *
+     * @return the field count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the id of a field.
+     *
+     * @param field         The field number, in certificate order.
+     *
+     * @return the field id.
+     */
+    public int getFieldId(int field) {
+        return ids[check(field)];
+    }
+
+    /**
+     * Get the offset of the value of a field.
+     *
+     * @param field         The field number, in certificate order.
+     *
+     * @return the offset of the value in the parsed array or buffer.
+     */
+    public int getValueOffset(int field) {
+        return offsets[check(field)];
+    }
+
+    /**
+     * Get the length of the value of a field.
+     *
+     * @param field         The field number, in certificate order.
+     *
+     * @return the value length.
+     */
+    public int getValueLength(int field) {
+        return lengths[check(field)];
+    }
+
+    /**
+     * Find the first field with a given id.
+     *
+     * @param fieldId       The field id to find.
+     *
+     * @return the field number, or -1 if there is no such field.
+     */
+    public int indexOf(int fieldId) {
+        return indexOf(fieldId, 0);
+    }
+
+    /**
+     * Find the nth field with a given id.
+     *
+     * @param fieldId       The field id to find.
+     * @param nth           The number of matching fields to skip.
+     *
+     * @return the field number, or -1 if there is no such field.
+     */
+    public int indexOf(int fieldId, int nth) {
+
+        for (int i = 0; i < size; ++i) {
+            if (ids[i] == fieldId && nth-- == 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Count the fields with a given id.
+     *
+     * @param fieldId       The field id to count.
+     *
+     * @return the number of matching fields.
+     */
+    public int count(int fieldId) {
+
+        int n = 0;
+        for (int i = 0; i < size; ++i) {
+            if (ids[i] == fieldId) {
+                ++n;
+            }
+        }
+
+        return n;
+    }
+
+    /**
+     * Find the value of the first field with a given id, without building
+     * an index.  The size of the value is the two bytes before it.
+     *
+     * @param cert          The buffer holding the certificate.
+     * @param start         The index of the certificate in the buffer.
+     * @param end           The index of the end of the certificate.
+     * @param fieldId       The field id to find.
+     *
+     * @return the index of the value, or -1 if there is no such field.
+     */
+    public static int findValue(
+        ByteBuffer cert, int start, int end, int fieldId) {
+
+        for (int field = start; field + FIELD_HEADER_SIZE <= end; ) {
+            int len = cert.getShort(field + 2) & 0xFFFF;
+            int value = field + FIELD_HEADER_SIZE;
+            if (len > end - value) {
+                break;
+            }
+            if ((cert.getShort(field) & 0xFFFF) == fieldId) {
+                return value;
+            }
+
+            field = value + len;
+        }
+
+        return -1;
+    }
+
+    private void add(int id, int offset, int length) {
+
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        ids[size] = id;
+        offsets[size] = offset;
+        lengths[size] = length;
+        ++size;
+    }
+
+    private int check(int field) {
+
+        if (field < 0 || field >= size) {
+            throw new IndexOutOfBoundsException(
+                "Field " + field + " of " + size);
+        }
+
+        return field;
+    }
+}
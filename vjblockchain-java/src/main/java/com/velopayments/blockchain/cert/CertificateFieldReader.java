@@ -20,6 +20,15 @@ public class CertificateFieldReader {
         this.buf = ByteBuffer.wrap(fieldValue);
     }
 
+    /**
+     * Create a CertificateFieldReader from a buffer, such as a slice of a
+     * certificate.  The field value is the buffer's remaining bytes, and is
+     * not copied.
+     */
+    public CertificateFieldReader(ByteBuffer fieldValue) {
+        this.buf = fieldValue.slice();
+    }
+
     /**
      * Attempt to convert a field to a byte value.
      *
@@ -32,7 +41,7 @@ public class CertificateFieldReader {
                 "Field cannot be converted to a byte.");
         }
 
-        return buf.get();
+        return buf.get(0);
     }
 
     /**
@@ -47,7 +56,7 @@ public class CertificateFieldReader {
                 "Field cannot be converted to a short.");
         }
 
-        return buf.getShort();
+        return buf.getShort(0);
     }
 
     /**
@@ -62,7 +71,7 @@ public class CertificateFieldReader {
                 "Field cannot be converted to an int.");
         }
 
-        return buf.getInt();
+        return buf.getInt(0);
     }
 
     /**
@@ -77,7 +86,7 @@ public class CertificateFieldReader {
                 "Field cannot be converted to a long.");
         }
 
-        return buf.getLong();
+        return buf.getLong(0);
     }
 
     /**
@@ -92,8 +101,8 @@ public class CertificateFieldReader {
                 "Field cannot be converted to a UUID.");
         }
 
-        long msb = buf.getLong();
-        long lsb = buf.getLong();
+        long msb = buf.getLong(0);
+        long lsb = buf.getLong(8);
 
         return new UUID(msb, lsb);
     }
@@ -110,7 +119,7 @@ public class CertificateFieldReader {
         }
 
         try {
-            return charSet.newDecoder().decode(buf).toString();
+            return charSet.newDecoder().decode(buf.duplicate()).toString();
         } catch (Throwable err) {
             //this will be some charset conversion error.  In all cases, turn it
             //into a field conversion exception with a nested exception
@@ -131,7 +140,7 @@ public class CertificateFieldReader {
                 "Field cannot be converted to a Date.");
         }
 
-        return new Date(buf.getLong() * 1000);
+        return new Date(buf.getLong(0) * 1000);
     }
 
     /**
@@ -158,8 +167,19 @@ public class CertificateFieldReader {
 
     /**
      * Convert the field to a byte array.
+     *
+     * A field backed by a whole array returns that array; a field backed by
+     * a slice of a larger buffer is copied.
      */
     public byte[] asByteArray() {
-        return buf.array();
+        if (buf.hasArray() && 0 == buf.arrayOffset()
+                && buf.array().length == buf.remaining()) {
+            return buf.array();
+        }
+
+        byte[] value = new byte[buf.remaining()];
+        buf.duplicate().get(value);
+
+        return value;
     }
 }
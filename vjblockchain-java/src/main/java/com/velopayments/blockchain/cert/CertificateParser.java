@@ -1,8 +1,11 @@
 package com.velopayments.blockchain.cert;
 
 import com.velopayments.blockchain.init.Initializer;
-import java.util.*;
-import java.util.function.BiFunction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class CertificateParser {
 
@@ -20,43 +23,35 @@ public class CertificateParser {
         rawSize = size = certificate.length;
     }
 
-    /**
-     * Append a field to a certificate field list for a certificate map.
-     *
-     * @param appendValue The value to append.
-     * @return the updated list.
-     */
-    private static BiFunction<Integer, List<byte[]>, List<byte[]>>
-    appendField(List<byte[]> appendValue) {
-        return (k, v) -> {
-            if (v != null) {
-                //if set, append this value
-                v.addAll(appendValue);
-                return v;
-            } else {
-                //if not set, return this value
-                return appendValue;
-            }
-        };
-    }
-
     /**
      * Parse a certificate, returning a Map of key-value pairs.
      *
+     * The certificate is parsed in Java, with a {@link CertificateFieldIndex};
+     * callers which only need a few fields should use the index directly,
+     * which does not copy field values.
+     *
      * @return the fields of a certificate, as key-value pairs.
+     *
+     * @throws IllegalArgumentException if the certificate has no valid fields.
      */
     public Map<Integer, List<byte[]>> parse() {
-        List<AbstractMap.SimpleEntry<Integer, byte[]>> certFields =
-            parseNative(Initializer.getInstance(), certificate, size);
+        CertificateFieldIndex fields =
+            new CertificateFieldIndex().parse(certificate, 0, size);
+        if (0 == fields.size()) {
+            throw new IllegalArgumentException(
+                "certificate has no valid fields.");
+        }
 
         HashMap<Integer, List<byte[]>> map =
             new HashMap<>();
 
-        for (AbstractMap.SimpleEntry<Integer, byte[]> v : certFields) {
-            List<byte[]> lst = new LinkedList<>();
-            lst.add(v.getValue());
+        for (int i = 0; i < fields.size(); ++i) {
+            int offset = fields.getValueOffset(i);
 
-            map.compute(v.getKey(), appendField(lst));
+            map.computeIfAbsent(fields.getFieldId(i), k -> new ArrayList<>())
+                .add(Arrays.copyOfRange(
+                    certificate, offset,
+                    offset + fields.getValueLength(i)));
         }
 
         return map;
@@ -93,18 +88,6 @@ public class CertificateParser {
         return Certificate.fromByteArray(certificate);
     }
 
-    /**
-     * Internal parse method for parsing a certificate.
-     *
-     * @param nativeInst the native instance pointer.
-     * @param cert     The raw certificate to parse.
-     * @param certSize The size override to use for finding the end of
-     *                 the certificate.
-     * @return the fields of the certificate, as key-value pairs.
-     */
-    private native List<AbstractMap.SimpleEntry<Integer, byte[]>>
-    parseNative(long nativeInst, byte[] cert, int certSize);
-
     /**
      * Internal attestation method for performing certificate attestation.
      *
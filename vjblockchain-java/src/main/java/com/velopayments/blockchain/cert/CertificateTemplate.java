@@ -0,0 +1,72 @@
+package com.velopayments.blockchain.cert;
+
+/**
+ * A set of fields which are the same in every certificate of some kind,
+ * encoded once.
+ *
+ * Builders created from a template start with the template's fields, and
+ * keep them when they are reset, so only the fields which vary are encoded
+ * for each certificate.  A template is immutable and may be shared between
+ * threads; {@link #builder()} hands each thread its own reusable builder.
+ *
+ * <pre>
+ *     CertificateTemplate template = CertificateTemplate.of(
+ *         CertificateBuilder.createCertificateBuilder(type)
+ *             .addUUID(Field.ARTIFACT_TYPE, artifactType));
+ *
+ *     Certificate cert = template.builder()
+ *         .addUUID(Field.CERTIFICATE_ID, UUID.randomUUID())
+ *         .sign(signerId, privateKey);
+ * </pre>
+ */
+public final class CertificateTemplate {
+
+    private final byte[] fields;
+    private final ThreadLocal<CertificateBuilder> builders;
+
+    private CertificateTemplate(byte[] fields) {
+        this.fields = fields;
+        this.builders = ThreadLocal.withInitial(this::newBuilder);
+    }
+
+    /**
+     * Create a template holding the fields added to a builder so far.  The
+     * builder is not changed, and may go on to be used.
+     *
+     * @param builder       The builder holding the fixed fields.
+     *
+     * @return a template of those fields.
+     */
+    public static CertificateTemplate of(CertificateBuilder builder) {
+        return new CertificateTemplate(builder.encodedFields());
+    }
+
+    /**
+     * Get the number of bytes of encoded template fields.
+     *
+     * @return the size of the template fields.
+     */
+    public int size() {
+        return fields.length;
+    }
+
+    /**
+     * Create a new builder starting with this template's fields.
+     *
+     * @return a new builder.
+     */
+    public CertificateBuilder newBuilder() {
+        return new CertificateBuilder(fields);
+    }
+
+    /**
+     * Get the calling thread's builder for this template, reset to hold
+     * only the template's fields.  The builder must not be shared with
+     * other threads, and must not be held across calls to this method.
+     *
+     * @return the calling thread's builder.
+     */
+    public CertificateBuilder builder() {
+        return builders.get().reset();
+    }
+}
@@ -29,12 +29,26 @@ public class EncryptedCertificateBuilder extends CertificateBuilder {
         CertificateBuilder other = createCertificateBuilder(certificateType);
         EncryptedCertificateBuilder that =
             new EncryptedCertificateBuilder(keyPair);
-        that.fields = other.fields;
+        that.buffer = other.buffer;
+        that.size = other.size;
+        that.headerSize = other.headerSize;
         other = null;
 
         return that;
     }
 
+    /**
+     * An encrypted certificate builder cannot be reused, since every
+     * certificate must have its own secret key.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public EncryptedCertificateBuilder reset() {
+        throw new UnsupportedOperationException(
+            "Encrypted certificate builders cannot be reused.");
+    }
+
     /**
      * Add an encrypted byte field to the certificate list.
      *
@@ -0,0 +1,141 @@
+package com.velopayments.blockchain.cert;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A certificate reader which parses only as much of a certificate as it is
+ * asked to read.
+ *
+ * Field values are not copied; each {@link CertificateFieldReader} is backed
+ * by a read-only slice of the certificate.  Reading the first matching field
+ * scans the certificate only as far as that field.  Counting fields, or
+ * reading any field after the first, indexes the whole certificate once,
+ * with a {@link CertificateFieldIndex}.
+ *
+ * Unlike {@link CertificateReader}, an invalid certificate is not rejected
+ * when the reader is created; it reads as a certificate without the
+ * requested fields.  This reader is not thread safe.
+ */
+public class LazyCertificateReader {
+
+    private final Certificate certificate;
+    private final ByteBuffer buffer;
+    private CertificateFieldIndex fields;
+
+    /**
+     * Create a reader for a certificate.
+     *
+     * @param certificate   The certificate to read.
+     */
+    public LazyCertificateReader(Certificate certificate) {
+        this.certificate = certificate;
+        this.buffer = certificate.asByteBuffer();
+    }
+
+    /**
+     * Count the number of elements matching the given short field ID.
+     *
+     * @param fieldId The short fieldId for which a count should be
+     *                taken.
+     */
+    public int count(int fieldId) {
+        return index().count(fieldId);
+    }
+
+    /**
+     * Get the certificate read by this reader.
+     *
+     * @return the certificate read by this reader.
+     */
+    public Certificate getCertificate() {
+        return certificate;
+    }
+
+    /**
+     * Get the set of fieldIds found in this certificate, in the order in
+     * which they first appear.
+     *
+     * @return the set of fieldIds found in this certificate.
+     */
+    public Set<Integer> getFields() {
+
+        CertificateFieldIndex index = index();
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (int i = 0; i < index.size(); ++i) {
+            ids.add(index.getFieldId(i));
+        }
+
+        return ids;
+    }
+
+    /**
+     * Get the first field matching a given short fieldId.
+     *
+     * @param fieldId The short fieldId to retrieve.
+     * @return a CertificateFieldReader for this field.
+     * @throws MissingFieldException if the field does not exist.
+     */
+    public CertificateFieldReader getFirst(int fieldId)
+    throws MissingFieldException {
+
+        int value;
+        if (null != fields) {
+            int field = fields.indexOf(fieldId);
+            value = field < 0 ? -1 : fields.getValueOffset(field);
+        } else {
+            value = CertificateFieldIndex.findValue(
+                buffer, 0, buffer.limit(), fieldId);
+        }
+
+        if (value < 0) {
+            throw new MissingFieldException("Missing field.");
+        }
+
+        return reader(value, buffer.getShort(value - 2) & 0xFFFF);
+    }
+
+    /**
+     * Get the nth field matching a given short fieldId.
+     *
+     * @param fieldId The short fieldId to retrieve.
+     * @param index   The nth field to return.
+     * @return a CertificateFieldReader for this field.
+     * @throws MissingFieldException if the field does not exist.
+     */
+    public CertificateFieldReader get(int fieldId, int index)
+    throws MissingFieldException {
+
+        if (0 == index) {
+            return getFirst(fieldId);
+        }
+
+        int field = index().indexOf(fieldId, index);
+        if (field < 0) {
+            throw new MissingFieldException("Missing field.");
+        }
+
+        return reader(fields.getValueOffset(field),
+                      fields.getValueLength(field));
+    }
+
+    private CertificateFieldIndex index() {
+
+        if (null == fields) {
+            fields = new CertificateFieldIndex()
+                .parse(buffer, 0, buffer.limit());
+        }
+
+        return fields;
+    }
+
+    private CertificateFieldReader reader(int offset, int length) {
+
+        ByteBuffer value = buffer.duplicate();
+        value.limit(offset + length);
+        value.position(offset);
+
+        return new CertificateFieldReader(value.slice());
+    }
+}
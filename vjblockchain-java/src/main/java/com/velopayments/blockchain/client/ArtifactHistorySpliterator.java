@@ -0,0 +1,149 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.util.UuidUtil;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the transactions for an artifact, in chain order.
+ *
+ * The chain of transaction ids is resolved ahead of the consumer, and each
+ * transaction certificate is requested as soon as its id is known.  Fetching
+ * a certificate therefore overlaps with resolving the ids which follow it,
+ * and the only round trip on the critical path is the id lookup.
+ *
+ * Failures to read a transaction are reported as
+ * {@link UncheckedIOException}.
+ */
+public class ArtifactHistorySpliterator implements Spliterator<Certificate> {
+
+    /**
+     * The default number of transactions requested ahead of the consumer.
+     */
+    public static final int DEFAULT_PREFETCH_DEPTH = 16;
+
+    private AsyncVelochainConnection conn;
+    private boolean newestFirst;
+    private int prefetchDepth;
+    private CompletableFuture<Optional<UUID>> nextTxnId;
+    private PrefetchQueue<Optional<Certificate>> prefetched;
+
+    /**
+     * Create a spliterator over the transactions for an artifact.
+     *
+     * @param conn              The connection from which transactions are
+     *                          read.
+     * @param artifactId        The artifact UUID.
+     * @param newestFirst       If true, start at the last transaction and
+     *                          walk backwards; otherwise, start at the first
+     *                          transaction and walk forwards.
+     * @param prefetchDepth     The number of transactions to request ahead of
+     *                          the consumer.
+     */
+    public ArtifactHistorySpliterator(
+        AsyncVelochainConnection conn, UUID artifactId, boolean newestFirst,
+        int prefetchDepth) {
+
+        if (prefetchDepth < 1) {
+            throw new IllegalArgumentException(
+                "prefetchDepth must be at least 1.");
+        }
+
+        this.conn = conn;
+        this.newestFirst = newestFirst;
+        this.prefetchDepth = prefetchDepth;
+        this.prefetched = new PrefetchQueue<>(prefetchDepth);
+        this.nextTxnId = nonNil(newestFirst
+            ? conn.getLastTransactionIdForArtifactByIdAsync(artifactId)
+            : conn.getFirstTransactionIdForArtifactByIdAsync(artifactId));
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Certificate> action) {
+
+        if (prefetched.isFinished()) {
+            return false;
+        }
+
+        prefetch();
+
+        Optional<Certificate> txn = prefetched.awaitNext();
+        if (!txn.isPresent()) {
+            /* the end of the artifact's transaction chain. */
+            prefetched.finish();
+            return false;
+        }
+
+        action.accept(txn.get());
+
+        return true;
+    }
+
+    @Override
+    public Spliterator<Certificate> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return prefetched.isFinished() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Extend the chain of id lookups, and the certificate requests hanging
+     * off it, up to the prefetch depth.  Once the end of the chain has been
+     * found, the remaining stages complete empty without sending requests.
+     *
+     * Dependent requests are sent from the common pool rather than from the
+     * thread which completes the previous lookup, so that the connection's
+     * response reader never sends.
+     */
+    private void prefetch() {
+
+        while (prefetched.size() < prefetchDepth) {
+            CompletableFuture<Optional<UUID>> txnId = nextTxnId;
+
+            prefetched.add(txnId.thenComposeAsync(
+                id -> id.isPresent()
+                    ? conn.getTransactionByIdAsync(id.get())
+                    : CompletableFuture.completedFuture(Optional.empty())));
+
+            nextTxnId = txnId.thenComposeAsync(
+                id -> id.isPresent()
+                    ? adjacentTxnId(id.get())
+                    : CompletableFuture.completedFuture(Optional.empty()));
+        }
+    }
+
+    /**
+     * Request the id of the transaction after (or before) the given one.
+     */
+    private CompletableFuture<Optional<UUID>> adjacentTxnId(UUID txnId) {
+
+        return nonNil(newestFirst
+            ? conn.getPreviousTransactionIdForTransactionByIdAsync(txnId)
+            : conn.getNextTransactionIdForTransactionByIdAsync(txnId));
+    }
+
+    /**
+     * Treat the nil UUID, which the agent may use to mark the end of the
+     * chain, as no transaction.
+     */
+    private static CompletableFuture<Optional<UUID>>
+    nonNil(CompletableFuture<Optional<UUID>> txnId) {
+
+        return txnId.thenApply(
+            id -> id.filter(uuid -> !UuidUtil.EMPTY_UUID.equals(uuid)));
+    }
+}
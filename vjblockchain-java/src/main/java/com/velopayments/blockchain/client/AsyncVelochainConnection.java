@@ -0,0 +1,280 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Connect to an agent and perform basic client functions without blocking.
+ *
+ * Each method sends its request and returns immediately.  Many requests may
+ * be outstanding at once on a single connection, and their responses may
+ * arrive in any order.
+ *
+ * Note - the returned futures are completed by the thread which reads
+ * responses from the agent.  Dependent stages should not block this thread,
+ * for instance by calling the blocking methods of {@link VelochainConnection};
+ * use the *Async stage methods with an executor for work that might block.
+ */
+public interface AsyncVelochainConnection extends VelochainConnection {
+
+    /**
+     * Submit a transaction to the blockchain / agent.
+     *
+     * @param transaction       The transaction to be added.
+     *
+     * @return a future which is completed with the submission status of the
+     * transaction.
+     */
+    CompletableFuture<TransactionStatus>
+    submitAsync(Certificate transaction);
+
+    /**
+     * Get the latest block UUID in the blockchain, according to this agent.
+     *
+     * @return a future which is completed with the latest block UUID.
+     */
+    CompletableFuture<UUID>
+    getLatestBlockIdAsync();
+
+    /**
+     * Given a block UUID, return the next block UUID if available.
+     *
+     * @param blockId       The block UUID.
+     *
+     * @return a future which is completed with the next block UUID.
+     */
+    CompletableFuture<Optional<UUID>>
+    getNextBlockIdAsync(UUID blockId);
+
+    /**
+     * Given a block UUID, return the previous block UUID if available.
+     *
+     * @param blockId       The block UUID.
+     *
+     * @return a future which is completed with the previous block UUID.
+     */
+    CompletableFuture<Optional<UUID>>
+    getPrevBlockIdAsync(UUID blockId);
+
+    /**
+     * Given a transaction UUID, return the block UUID associated with this
+     * transaction UUID if available.
+     *
+     * @param txnId         The transaction UUID.
+     *
+     * @return a future which is completed with the block UUID associated with
+     * the transaction UUID.
+     */
+    CompletableFuture<Optional<UUID>>
+    getTransactionBlockIdAsync(UUID txnId);
+
+    /**
+     * Get the block transaction for a given UUID.
+     *
+     * @param blockId   The transaction ID to look up.
+     *
+     * @return a future which is completed with the block, or empty if not
+     * found.
+     */
+    CompletableFuture<Optional<Certificate>>
+    getBlockByIdAsync(UUID blockId);
+
+    /**
+     * Get the block for a given UUID, along with its metadata.
+     *
+     * The default implementation requests the block and its next block UUID
+     * together, and reads the rest of the metadata from the block
+     * certificate.
+     *
+     * @param blockId   The block ID to look up.
+     *
+     * @return a future which is completed with the block and its metadata,
+     * or empty if not found.
+     */
+    default CompletableFuture<Optional<BlockRecord>>
+    getBlockRecordByIdAsync(UUID blockId) {
+
+        return getBlockByIdAsync(blockId).thenCombine(
+            getNextBlockIdAsync(blockId),
+            (block, next) -> block.map(
+                cert -> BlockRecord.fromCertificate(blockId, next, cert)));
+    }
+
+    /**
+     * Get the block id for a given block height.
+     *
+     * @param height    The block height of this block ID.
+     *
+     * @return a future which is completed with the block UUID at the given
+     * height, or empty if not found.
+     */
+    CompletableFuture<Optional<UUID>>
+    getBlockIdByBlockHeightAsync(long height);
+
+    /**
+     * Get a transaction for a given UUID.
+     *
+     * @param txnId     The transaction ID to look up.
+     *
+     * @return a future which is completed with the transaction, or empty if
+     * not found.
+     */
+    CompletableFuture<Optional<Certificate>>
+    getTransactionByIdAsync(UUID txnId);
+
+    /**
+     * Get a transaction for a given UUID, along with its metadata.
+     *
+     * @param txnId     The transaction ID to look up.
+     *
+     * @return a future which is completed with the transaction and its
+     * metadata, or empty if not found.  By default, the future is completed
+     * with an {@code UnsupportedOperationException}, since the transaction
+     * state reported by the agent cannot be read through the other methods
+     * of this interface.
+     */
+    default CompletableFuture<Optional<TransactionRecord>>
+    getTransactionRecordByIdAsync(UUID txnId) {
+
+        CompletableFuture<Optional<TransactionRecord>> unsupported =
+            new CompletableFuture<>();
+        unsupported.completeExceptionally(
+            new UnsupportedOperationException(
+                "Transaction records are not supported by this connection."));
+
+        return unsupported;
+    }
+
+    /**
+     * Get the first transaction UUID for a given artifact UUID.
+     *
+     * @param artifactId The artifact ID to look up.
+     *
+     * @return a future which is completed with the first transaction id for
+     * a given artifact id.
+     */
+    CompletableFuture<Optional<UUID>>
+    getFirstTransactionIdForArtifactByIdAsync(UUID artifactId);
+
+    /**
+     * Get the last transaction UUID for a given artifact UUID.
+     *
+     * @param artifactId The artifact ID to look up.
+     *
+     * @return a future which is completed with the last transaction id for
+     * a given artifact id.
+     */
+    CompletableFuture<Optional<UUID>>
+    getLastTransactionIdForArtifactByIdAsync(UUID artifactId);
+
+    /**
+     * Get the previous transaction ID associated with the given transaction ID.
+     *
+     * @param txnId The transaction ID to look up.
+     *
+     * @return a future which is completed with the previous transaction ID
+     * associated with this transaction ID.
+     */
+    CompletableFuture<Optional<UUID>>
+    getPreviousTransactionIdForTransactionByIdAsync(UUID txnId);
+
+    /**
+     * Get the next transaction ID associated with the given transaction ID.
+     *
+     * @param txnId The transaction ID to look up.
+     *
+     * @return a future which is completed with the next transaction ID
+     * associated with this transaction ID.
+     */
+    CompletableFuture<Optional<UUID>>
+    getNextTransactionIdForTransactionByIdAsync(UUID txnId);
+
+    /**
+     * Get the current connection status.
+     *
+     * @return a future which is completed with 0 if the connection is valid,
+     * or completed exceptionally if the connection is not valid.
+     */
+    CompletableFuture<Integer>
+    getConnectionStatusAsync();
+
+    /**
+     * Stream the blocks in a range of block heights, in height order.
+     *
+     * Blocks are requested ahead of the consumer, up to the default prefetch
+     * depth.  The stream ends early at the first height for which the agent
+     * has no block.
+     *
+     * @param fromHeight    The height of the first block.
+     * @param toHeight      The height of the last block, inclusive.
+     *
+     * @return a stream of block certificates.
+     */
+    default Stream<Certificate>
+    blocks(long fromHeight, long toHeight) {
+
+        return blocks(
+            fromHeight, toHeight, BlockSpliterator.DEFAULT_PREFETCH_DEPTH);
+    }
+
+    /**
+     * Stream the blocks in a range of block heights, in height order.
+     *
+     * @param fromHeight    The height of the first block.
+     * @param toHeight      The height of the last block, inclusive.
+     * @param prefetchDepth The number of blocks to request ahead of the
+     *                      consumer.
+     *
+     * @return a stream of block certificates.
+     */
+    default Stream<Certificate>
+    blocks(long fromHeight, long toHeight, int prefetchDepth) {
+
+        return StreamSupport.stream(
+            new BlockSpliterator(this, fromHeight, toHeight, prefetchDepth),
+            false);
+    }
+
+    /**
+     * Stream the transactions for an artifact, oldest first.
+     *
+     * Transaction ids are resolved ahead of the consumer, and each
+     * certificate is fetched while the ids after it are resolved.
+     *
+     * @param artifactId    The artifact UUID.
+     *
+     * @return a stream of transaction certificates.
+     */
+    default Stream<Certificate>
+    artifactHistory(UUID artifactId) {
+
+        return artifactHistory(
+            artifactId, false,
+            ArtifactHistorySpliterator.DEFAULT_PREFETCH_DEPTH);
+    }
+
+    /**
+     * Stream the transactions for an artifact.
+     *
+     * @param artifactId    The artifact UUID.
+     * @param newestFirst   If true, stream from the last transaction
+     *                      backwards; otherwise, from the first forwards.
+     * @param prefetchDepth The number of transactions to request ahead of the
+     *                      consumer.
+     *
+     * @return a stream of transaction certificates.
+     */
+    default Stream<Certificate>
+    artifactHistory(UUID artifactId, boolean newestFirst, int prefetchDepth) {
+
+        return StreamSupport.stream(
+            new ArtifactHistorySpliterator(
+                this, artifactId, newestFirst, prefetchDepth),
+            false);
+    }
+}
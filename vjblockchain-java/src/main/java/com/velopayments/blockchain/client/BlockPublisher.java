@@ -0,0 +1,317 @@
+package com.velopayments.blockchain.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publish new blocks to subscribers as they are added to the chain.
+ *
+ * Each subscription polls the agent for the latest block id.  The polling
+ * interval halves, down to a minimum, each time new blocks are found, and
+ * doubles, up to a maximum, each time none are.  A busy chain is followed
+ * closely, while an idle chain costs one small request per maximum
+ * interval.  Polling stops entirely while a subscriber has no outstanding
+ * demand.
+ *
+ * Subscribers are called from a single polling thread owned by the
+ * publisher, so a slow subscriber delays the others.
+ */
+public class BlockPublisher implements Closeable {
+
+    /**
+     * The default shortest interval between polls, in milliseconds.
+     */
+    public static final long DEFAULT_MIN_POLL_MILLIS = 50;
+
+    /**
+     * The default longest interval between polls, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_POLL_MILLIS = 5000;
+
+    private final VelochainConnection conn;
+    private final long minPollMillis;
+    private final long maxPollMillis;
+    private final ScheduledThreadPoolExecutor poller;
+    private final Set<Subscription> subscriptions;
+
+    /**
+     * Create a block publisher with the default polling intervals.
+     *
+     * @param conn          The connection used to poll for new blocks.
+     */
+    public BlockPublisher(VelochainConnection conn) {
+        this(conn, DEFAULT_MIN_POLL_MILLIS, DEFAULT_MAX_POLL_MILLIS);
+    }
+
+    /**
+     * Create a block publisher.
+     *
+     * @param conn          The connection used to poll for new blocks.
+     * @param minPollMillis The shortest interval between polls.
+     * @param maxPollMillis The longest interval between polls.
+     */
+    public BlockPublisher(VelochainConnection conn, long minPollMillis,
+                          long maxPollMillis) {
+
+        if (minPollMillis < 1 || maxPollMillis < minPollMillis) {
+            throw new IllegalArgumentException(
+                "Poll intervals must be positive, and the maximum must not "
+                + "be less than the minimum.");
+        }
+
+        this.conn = conn;
+        this.minPollMillis = minPollMillis;
+        this.maxPollMillis = maxPollMillis;
+        this.subscriptions = ConcurrentHashMap.newKeySet();
+        this.poller = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "velochain-block-publisher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.poller.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Subscribe to blocks added after the current latest block.  If the
+     * publisher is closed, the subscriber is sent an
+     * {@code IllegalStateException} before this method returns.
+     *
+     * @param subscriber    The subscriber which receives new blocks.
+     */
+    public void subscribe(BlockSubscriber subscriber) {
+        subscribe(subscriber, Optional.empty());
+    }
+
+    /**
+     * Subscribe to every block after the given block.  Blocks already in the
+     * chain are delivered first, followed by blocks as they are added.  If
+     * the publisher is closed, the subscriber is sent an
+     * {@code IllegalStateException} before this method returns.
+     *
+     * @param subscriber    The subscriber which receives new blocks.
+     * @param afterBlockId  The block after which delivery starts, for
+     *                      instance {@code CertificateType.ROOT_BLOCK} to
+     *                      receive the whole chain.
+     */
+    public void subscribe(BlockSubscriber subscriber, UUID afterBlockId) {
+        subscribe(subscriber, Optional.of(afterBlockId));
+    }
+
+    private void subscribe(
+        BlockSubscriber subscriber, Optional<UUID> afterBlockId) {
+
+        Subscription subscription =
+            new Subscription(subscriber, afterBlockId);
+
+        subscriptions.add(subscription);
+        try {
+            poller.execute(() -> subscriber.onSubscribe(subscription));
+        } catch (RejectedExecutionException e) {
+            /* the publisher has been closed, so the subscription fails at
+             * once, on the caller's thread. */
+            subscription.cancel();
+            subscriber.onSubscribe(subscription);
+            subscriber.onError(
+                new IllegalStateException("Publisher is closed."));
+        }
+    }
+
+    /**
+     * Stop polling, and complete every subscription.  The connection is not
+     * closed.
+     */
+    @Override
+    public void close() {
+
+        for (Subscription subscription : subscriptions) {
+            execute(subscription::complete);
+        }
+
+        poller.shutdown();
+    }
+
+    private void execute(Runnable task) {
+        try {
+            poller.execute(task);
+        } catch (RejectedExecutionException e) {
+            /* the publisher has been closed. */
+        }
+    }
+
+    /**
+     * A single subscriber's position in the chain and outstanding demand.
+     */
+    private class Subscription implements BlockSubscription {
+
+        private final BlockSubscriber subscriber;
+        private final AtomicLong demand;
+        private UUID lastBlockId;
+        private Optional<UUID> nextBlockId;
+        private long pollMillis;
+        private ScheduledFuture<?> pending;
+        private volatile boolean done;
+
+        Subscription(BlockSubscriber subscriber, Optional<UUID> afterBlockId) {
+            this.subscriber = subscriber;
+            this.demand = new AtomicLong();
+            this.lastBlockId = afterBlockId.orElse(null);
+            this.nextBlockId = Optional.empty();
+            this.pollMillis = minPollMillis;
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                execute(() -> fail(new IllegalArgumentException(
+                    "Requested block count must be positive.")));
+                return;
+            }
+
+            long previous = demand.getAndAccumulate(
+                n, (d, x) -> d + x < 0 ? Long.MAX_VALUE : d + x);
+
+            /* polling stops when demand runs out, so restart it. */
+            if (previous == 0) {
+                schedule(0);
+            }
+        }
+
+        @Override
+        public void cancel() {
+
+            done = true;
+            subscriptions.remove(this);
+
+            synchronized (this) {
+                if (null != pending) {
+                    pending.cancel(false);
+                }
+            }
+        }
+
+        /**
+         * Deliver any new blocks, then schedule the next poll.
+         */
+        private void poll() {
+
+            synchronized (this) {
+                pending = null;
+            }
+
+            if (done) {
+                return;
+            }
+
+            try {
+                boolean found = deliver();
+
+                if (done || demand.get() == 0) {
+                    return;
+                }
+
+                pollMillis = found
+                    ? Math.max(minPollMillis, pollMillis / 2)
+                    : Math.min(maxPollMillis, pollMillis * 2);
+
+                schedule(pollMillis);
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Deliver new blocks while there is demand for them.
+         *
+         * @return true if any blocks were delivered.
+         */
+        private boolean deliver() throws IOException {
+
+            /* a subscription to new blocks starts at the first poll. */
+            if (null == lastBlockId) {
+                lastBlockId = conn.getLatestBlockId();
+            }
+
+            boolean delivered = false;
+            while (!done && demand.get() > 0) {
+
+                /* the last block read may already name the next block;
+                 * otherwise, a cheap check of the latest block id avoids
+                 * asking for a next block which does not exist yet. */
+                if (!nextBlockId.isPresent()) {
+                    if (lastBlockId.equals(conn.getLatestBlockId())) {
+                        break;
+                    }
+
+                    nextBlockId = conn.getNextBlockId(lastBlockId);
+                    if (!nextBlockId.isPresent()) {
+                        break;
+                    }
+                }
+
+                UUID blockId = nextBlockId.get();
+                BlockRecord block =
+                    conn.getBlockRecordById(blockId).orElseThrow(
+                        () -> new IOException(
+                            "Could not read block " + blockId));
+
+                lastBlockId = block.getBlockId();
+                nextBlockId = block.getNextBlockId();
+                demand.decrementAndGet();
+                delivered = true;
+
+                subscriber.onNext(block);
+            }
+
+            return delivered;
+        }
+
+        /**
+         * Schedule a poll, unless one is already pending.  An immediate poll
+         * replaces a pending delayed poll.
+         */
+        private synchronized void schedule(long delayMillis) {
+
+            if (done) {
+                return;
+            }
+
+            if (null != pending) {
+                if (delayMillis > 0) {
+                    return;
+                }
+                pending.cancel(false);
+            }
+
+            try {
+                pending = poller.schedule(
+                    this::poll, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                /* the publisher has been closed. */
+            }
+        }
+
+        private void fail(Throwable error) {
+            if (!done) {
+                cancel();
+                subscriber.onError(error);
+            }
+        }
+
+        private void complete() {
+            if (!done) {
+                cancel();
+                subscriber.onComplete();
+            }
+        }
+    }
+}
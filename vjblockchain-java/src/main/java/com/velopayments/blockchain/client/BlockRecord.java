@@ -0,0 +1,157 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.cert.CertificateFieldIndex;
+import com.velopayments.blockchain.cert.Field;
+import com.velopayments.blockchain.util.UuidUtil;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A block certificate, along with the chain metadata which the agent returns
+ * with it.
+ */
+public class BlockRecord {
+
+    private UUID blockId;
+    private UUID previousBlockId;
+    private Optional<UUID> nextBlockId;
+    private UUID firstTransactionId;
+    private long blockHeight;
+    private Certificate certificate;
+
+    /**
+     * Create a block record.
+     *
+     * @param blockId               The block UUID.
+     * @param previousBlockId       The previous block UUID.
+     * @param nextBlockId           The next block UUID, or empty if the agent
+     *                              had no next block.
+     * @param firstTransactionId    The first transaction UUID in the block.
+     * @param blockHeight           The height of the block.
+     * @param certificate           The block certificate.
+     */
+    public BlockRecord(
+        UUID blockId, UUID previousBlockId, Optional<UUID> nextBlockId,
+        UUID firstTransactionId, long blockHeight, Certificate certificate) {
+
+        this.blockId = blockId;
+        this.previousBlockId = previousBlockId;
+        this.nextBlockId = nextBlockId;
+        this.firstTransactionId = firstTransactionId;
+        this.blockHeight = blockHeight;
+        this.certificate = certificate;
+    }
+
+    /**
+     * Create a block record from a block certificate, reading the previous
+     * block UUID, the first transaction UUID and the block height from the
+     * certificate's fields.  A missing UUID field is read as the nil UUID,
+     * and a missing block height as -1.
+     *
+     * @param blockId               The block UUID.
+     * @param nextBlockId           The next block UUID, or empty if there
+     *                              is no next block.
+     * @param certificate           The block certificate.
+     *
+     * @return the block record.
+     */
+    public static BlockRecord fromCertificate(
+        UUID blockId, Optional<UUID> nextBlockId, Certificate certificate) {
+
+        byte[] cert = certificate.toByteArray();
+        CertificateFieldIndex fields = new CertificateFieldIndex().parse(cert);
+        ByteBuffer buffer = ByteBuffer.wrap(cert);
+
+        /* the first transaction id is the id of the first wrapped
+         * transaction. */
+        UUID firstTransactionId = UuidUtil.EMPTY_UUID;
+        int txn = fields.indexOf(Field.WRAPPED_TRANSACTION_TUPLE);
+        if (txn >= 0) {
+            int start = fields.getValueOffset(txn);
+            firstTransactionId = uuidField(
+                buffer, new CertificateFieldIndex().parse(
+                    cert, start, fields.getValueLength(txn)),
+                Field.CERTIFICATE_ID);
+        }
+
+        long blockHeight = -1;
+        int height = fields.indexOf(Field.BLOCK_HEIGHT);
+        if (height >= 0 && fields.getValueLength(height) >= 8) {
+            blockHeight = buffer.getLong(fields.getValueOffset(height));
+        }
+
+        return new BlockRecord(
+            blockId, uuidField(buffer, fields, Field.PREVIOUS_BLOCK_UUID),
+            nextBlockId, firstTransactionId, blockHeight, certificate);
+    }
+
+    private static UUID uuidField(
+        ByteBuffer cert, CertificateFieldIndex fields, int fieldId) {
+
+        int field = fields.indexOf(fieldId);
+        if (field < 0 || fields.getValueLength(field) < 16) {
+            return UuidUtil.EMPTY_UUID;
+        }
+
+        int offset = fields.getValueOffset(field);
+        return new UUID(cert.getLong(offset), cert.getLong(offset + 8));
+    }
+
+    /**
+     * Get the UUID of this block.
+     *
+     * @return the block UUID.
+     */
+    public UUID getBlockId() {
+        return blockId;
+    }
+
+    /**
+     * Get the UUID of the block before this block.
+     *
+     * @return the previous block UUID.
+     */
+    public UUID getPreviousBlockId() {
+        return previousBlockId;
+    }
+
+    /**
+     * Get the UUID of the block after this block, as of when the block was
+     * read.
+     *
+     * @return the next block UUID, or empty if this was the latest block.
+     */
+    public Optional<UUID> getNextBlockId() {
+        return nextBlockId;
+    }
+
+    /**
+     * Get the UUID of the first transaction in this block.
+     *
+     * @return the first transaction UUID.
+     */
+    public UUID getFirstTransactionId() {
+        return firstTransactionId;
+    }
+
+    /**
+     * Get the height of this block.
+     *
+     * @return the block height.
+     */
+    public long getBlockHeight() {
+        return blockHeight;
+    }
+
+    /**
+     * Get the block certificate.
+     *
+     * @return the block certificate.
+     */
+    public Certificate getCertificate() {
+        return certificate;
+    }
+}
@@ -0,0 +1,141 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the blocks in a range of block heights, in height order.
+ *
+ * Requests for the next several blocks are kept in flight ahead of the
+ * consumer, so network latency is overlapped with processing of earlier
+ * blocks.  Iteration stops at the end of the range, or at the first height
+ * for which the agent has no block.
+ *
+ * Failures to read a block are reported as {@link UncheckedIOException}.
+ */
+public class BlockSpliterator implements Spliterator<Certificate> {
+
+    /**
+     * The default number of blocks requested ahead of the consumer.
+     */
+    public static final int DEFAULT_PREFETCH_DEPTH = 16;
+
+    private AsyncVelochainConnection conn;
+    private long nextHeight;
+    private long toHeight;
+    private int prefetchDepth;
+    private PrefetchQueue<Optional<Certificate>> prefetched;
+    private boolean rangeRequested;
+
+    /**
+     * Create a spliterator over the blocks from one height to another.
+     *
+     * @param conn              The connection from which blocks are read.
+     * @param fromHeight        The height of the first block.
+     * @param toHeight          The height of the last block, inclusive.
+     * @param prefetchDepth     The number of blocks to request ahead of the
+     *                          consumer.
+     */
+    public BlockSpliterator(
+        AsyncVelochainConnection conn, long fromHeight, long toHeight,
+        int prefetchDepth) {
+
+        if (prefetchDepth < 1) {
+            throw new IllegalArgumentException(
+                "prefetchDepth must be at least 1.");
+        }
+
+        this.conn = conn;
+        this.nextHeight = fromHeight;
+        this.toHeight = toHeight;
+        this.prefetchDepth = prefetchDepth;
+        this.prefetched = new PrefetchQueue<>(prefetchDepth);
+        this.rangeRequested = fromHeight > toHeight;
+        if (fromHeight > toHeight) {
+            prefetched.finish();
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Certificate> action) {
+
+        if (prefetched.isFinished()) {
+            return false;
+        }
+
+        prefetch();
+        if (prefetched.isEmpty()) {
+            prefetched.finish();
+            return false;
+        }
+
+        Optional<Certificate> block = prefetched.awaitNext();
+        if (!block.isPresent()) {
+            /* the chain ends before the requested range does. */
+            prefetched.finish();
+            return false;
+        }
+
+        action.accept(block.get());
+
+        return true;
+    }
+
+    @Override
+    public Spliterator<Certificate> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (prefetched.isFinished()) {
+            return 0;
+        } else if (rangeRequested) {
+            return prefetched.size();
+        }
+
+        long remaining = toHeight - nextHeight + 1 + prefetched.size();
+
+        return remaining > 0 ? remaining : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Request blocks until the prefetch depth is reached or the whole range
+     * has been requested.
+     */
+    private void prefetch() {
+
+        while (prefetched.size() < prefetchDepth && !rangeRequested) {
+            prefetched.add(requestBlock(nextHeight));
+
+            if (nextHeight == toHeight) {
+                rangeRequested = true;
+            } else {
+                ++nextHeight;
+            }
+        }
+    }
+
+    /**
+     * Request the block at the given height.  The block request is sent from
+     * the common pool rather than from the thread which completes the block
+     * id request, so that the connection's response reader never sends.
+     */
+    private CompletableFuture<Optional<Certificate>> requestBlock(long height) {
+
+        return conn.getBlockIdByBlockHeightAsync(height).thenComposeAsync(
+            blockId -> blockId.isPresent()
+                ? conn.getBlockByIdAsync(blockId.get())
+                : CompletableFuture.completedFuture(Optional.empty()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.velopayments.blockchain.client;
+
+/**
+ * Receives new blocks from a {@link BlockPublisher}.
+ *
+ * This mirrors {@code java.util.concurrent.Flow.Subscriber}, which is not
+ * available on the Java 8 runtime targeted by this library.  Methods are
+ * called serially, from the publisher's polling thread.
+ */
+public interface BlockSubscriber {
+
+    /**
+     * Called once, before any other method, with the subscription through
+     * which blocks are requested.
+     *
+     * @param subscription  The new subscription.
+     */
+    void onSubscribe(BlockSubscription subscription);
+
+    /**
+     * Called with each new block, in chain order, no more often than blocks
+     * have been requested.
+     *
+     * @param block         The next block.
+     */
+    void onNext(BlockRecord block);
+
+    /**
+     * Called when the subscription fails.  No further methods are called.
+     *
+     * @param error         The failure.
+     */
+    void onError(Throwable error);
+
+    /**
+     * Called when the publisher is closed.  No further methods are called.
+     */
+    void onComplete();
+}
@@ -0,0 +1,26 @@
+package com.velopayments.blockchain.client;
+
+/**
+ * Controls the flow of blocks from a {@link BlockPublisher} to a single
+ * {@link BlockSubscriber}.
+ *
+ * This mirrors {@code java.util.concurrent.Flow.Subscription}, which is not
+ * available on the Java 8 runtime targeted by this library.
+ */
+public interface BlockSubscription {
+
+    /**
+     * Request more blocks.  The publisher stops reading blocks from the agent
+     * while no blocks are requested.
+     *
+     * @param n             The number of additional blocks to deliver, which
+     *                      must be positive.
+     */
+    void request(long n);
+
+    /**
+     * Stop delivering blocks.  Blocks may still be delivered for a short time
+     * after this call.
+     */
+    void cancel();
+}
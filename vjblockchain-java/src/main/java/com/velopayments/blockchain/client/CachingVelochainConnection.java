@@ -0,0 +1,649 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.util.UuidUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A connection which caches what can never change once it is on the chain.
+ *
+ * Block and transaction certificates are kept in a least recently used
+ * cache, bounded by the total size of the cached certificates.  Links
+ * between certificates which cannot change once they exist, such as the
+ * previous block of a block or the block holding a transaction, are cached
+ * for the life of the connection.  Everything else, including the latest
+ * block id and the metadata records, which carry links that may still be
+ * filled in, is passed through to the wrapped connection.
+ *
+ * Lookups which find nothing are also kept in a negative cache with a
+ * time to live.  A new block is what turns a missing transaction or
+ * tip-of-chain next block into a present one, so negative answers are
+ * dropped whenever the latest block id changes.  The latest block id is
+ * only checked once the time to live has passed since it was last checked,
+ * however many negative answers are served in that time, and whenever a
+ * caller asks for it.  A negative answer may therefore be stale by up to
+ * the time to live; a time to live of 0 disables the negative cache, so
+ * every lookup which found nothing is passed through.
+ */
+public class CachingVelochainConnection implements VelochainConnection {
+
+    /**
+     * The default bound on the total size of cached certificates, in bytes.
+     */
+    public static final long DEFAULT_MAX_CACHE_BYTES = 64L * 1024L * 1024L;
+
+    /**
+     * The default time to live of the negative cache, in milliseconds.
+     * Negative answers may be stale by up to this long.
+     */
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 1000;
+
+    private final VelochainConnection conn;
+    private final CertificateCache certificates;
+    private final Set<CacheKey> absentCertificates;
+    private final Links<UUID> nextBlockIds;
+    private final Links<UUID> prevBlockIds;
+    private final Links<UUID> transactionBlockIds;
+    private final Links<Long> blockIdsByHeight;
+    private final Links<UUID> firstTransactionIds;
+    private final Links<UUID> lastTransactionIds;
+    private final Links<UUID> prevTransactionIds;
+    private final Links<UUID> nextTransactionIds;
+    private final List<Links<?>> allLinks;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final long negativeTtlNanos;
+    private final AtomicLong negativeEpoch;
+    private volatile UUID latestBlockId;
+    private volatile long latestBlockCheckedAt;
+
+    /**
+     * Wrap a connection with a cache of the default size.
+     *
+     * @param conn          The connection to wrap.
+     */
+    public CachingVelochainConnection(VelochainConnection conn) {
+        this(conn, DEFAULT_MAX_CACHE_BYTES);
+    }
+
+    /**
+     * Wrap a connection with a cache, using the default negative cache
+     * time to live.
+     *
+     * @param conn          The connection to wrap.
+     * @param maxCacheBytes The bound on the total size of cached
+     *                      certificates, in bytes.
+     */
+    public CachingVelochainConnection(VelochainConnection conn,
+                                      long maxCacheBytes) {
+        this(conn, maxCacheBytes, DEFAULT_NEGATIVE_TTL_MILLIS);
+    }
+
+    /**
+     * Wrap a connection with a cache.
+     *
+     * @param conn              The connection to wrap.
+     * @param maxCacheBytes     The bound on the total size of cached
+     *                          certificates, in bytes.
+     * @param negativeTtlMillis The time to live of the negative cache: how
+     *                          long negative answers are served before the
+     *                          latest block id is checked again, or 0 to
+     *                          disable the negative cache.
+     */
+    public CachingVelochainConnection(VelochainConnection conn,
+                                      long maxCacheBytes,
+                                      long negativeTtlMillis) {
+
+        if (maxCacheBytes < 0 || negativeTtlMillis < 0) {
+            throw new IllegalArgumentException(
+                "maxCacheBytes and negativeTtlMillis must not be negative.");
+        }
+
+        this.conn = conn;
+        this.certificates = new CertificateCache(maxCacheBytes);
+        this.absentCertificates = ConcurrentHashMap.newKeySet();
+        this.nextBlockIds = new Links<>(true);
+        this.prevBlockIds = new Links<>(true);
+        this.transactionBlockIds = new Links<>(true);
+        this.blockIdsByHeight = new Links<>(true);
+        this.firstTransactionIds = new Links<>(true);
+        this.lastTransactionIds = new Links<>(false);
+        this.prevTransactionIds = new Links<>(true);
+        this.nextTransactionIds = new Links<>(true);
+        this.allLinks = Arrays.asList(
+            nextBlockIds, prevBlockIds, transactionBlockIds, blockIdsByHeight,
+            firstTransactionIds, lastTransactionIds, prevTransactionIds,
+            nextTransactionIds);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.negativeTtlNanos =
+            TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.negativeEpoch = new AtomicLong();
+        this.latestBlockCheckedAt = System.nanoTime() - negativeTtlNanos;
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return the hit count.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of cacheable lookups passed to the wrapped connection.
+     *
+     * @return the miss count.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of certificates evicted to stay within the size bound.
+     *
+     * @return the eviction count.
+     */
+    public long getEvictionCount() {
+        return certificates.getEvictionCount();
+    }
+
+    /**
+     * Get the total size of the cached certificates.
+     *
+     * @return the cached size, in bytes.
+     */
+    public long getCachedBytes() {
+        return certificates.getBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        conn.close();
+    }
+
+    @Override
+    public TransactionStatus submit(Certificate transaction)
+    throws IOException {
+
+        return conn.submit(transaction);
+    }
+
+    @Override
+    public List<TransactionStatus>
+    submitBatch(List<Certificate> transactions) throws IOException {
+
+        return conn.submitBatch(transactions);
+    }
+
+    @Override
+    public List<TransactionStatus>
+    submitAll(Iterator<Certificate> transactions) throws IOException {
+
+        return conn.submitAll(transactions);
+    }
+
+    @Override
+    public UUID getLatestBlockId() throws IOException {
+
+        UUID latest = conn.getLatestBlockId();
+        observeLatestBlockId(latest);
+
+        return latest;
+    }
+
+    @Override
+    public Optional<UUID>
+    getNextBlockId(UUID blockId) throws IOException {
+
+        return nextBlockIds.get(blockId, conn::getNextBlockId);
+    }
+
+    @Override
+    public Optional<UUID>
+    getPrevBlockId(UUID blockId) throws IOException {
+
+        return prevBlockIds.get(blockId, conn::getPrevBlockId);
+    }
+
+    @Override
+    public Optional<UUID>
+    getTransactionBlockId(UUID txnId) throws IOException {
+
+        return transactionBlockIds.get(txnId, conn::getTransactionBlockId);
+    }
+
+    @Override
+    public Optional<Certificate>
+    getBlockById(UUID blockId) throws IOException {
+
+        return certificate(CertificateKind.BLOCK, blockId, conn::getBlockById);
+    }
+
+    @Override
+    public Optional<BlockRecord>
+    getBlockRecordById(UUID blockId) throws IOException {
+
+        Optional<BlockRecord> block = conn.getBlockRecordById(blockId);
+
+        block.ifPresent(b -> {
+            certificates.put(
+                CertificateKind.BLOCK, b.getBlockId(), b.getCertificate());
+            prevBlockIds.put(b.getBlockId(), b.getPreviousBlockId());
+            blockIdsByHeight.put(b.getBlockHeight(), b.getBlockId());
+            b.getNextBlockId().ifPresent(
+                next -> nextBlockIds.put(b.getBlockId(), next));
+        });
+
+        return block;
+    }
+
+    @Override
+    public Map<UUID, Optional<Certificate>>
+    getBlocksByIds(Collection<UUID> blockIds) throws IOException {
+
+        return certificates(CertificateKind.BLOCK, blockIds,
+                            conn::getBlocksByIds);
+    }
+
+    @Override
+    public Optional<UUID>
+    getBlockIdByBlockHeight(long height) throws IOException {
+
+        return blockIdsByHeight.get(height, conn::getBlockIdByBlockHeight);
+    }
+
+    @Override
+    public Optional<Certificate>
+    getTransactionById(UUID txnId) throws IOException {
+
+        return certificate(CertificateKind.TRANSACTION, txnId,
+                           conn::getTransactionById);
+    }
+
+    @Override
+    public Optional<TransactionRecord>
+    getTransactionRecordById(UUID txnId) throws IOException {
+
+        Optional<TransactionRecord> txn = conn.getTransactionRecordById(txnId);
+
+        txn.ifPresent(t -> {
+            certificates.put(
+                CertificateKind.TRANSACTION, t.getTransactionId(),
+                t.getCertificate());
+            transactionBlockIds.put(t.getTransactionId(), t.getBlockId());
+            t.getPreviousTransactionId().ifPresent(
+                prev -> prevTransactionIds.put(t.getTransactionId(), prev));
+            t.getNextTransactionId().ifPresent(
+                next -> nextTransactionIds.put(t.getTransactionId(), next));
+        });
+
+        return txn;
+    }
+
+    @Override
+    public Map<UUID, Optional<Certificate>>
+    getTransactionsByIds(Collection<UUID> txnIds) throws IOException {
+
+        return certificates(CertificateKind.TRANSACTION, txnIds,
+                            conn::getTransactionsByIds);
+    }
+
+    @Override
+    public Optional<UUID>
+    getFirstTransactionIdForArtifactById(UUID artifactId) throws IOException {
+
+        return firstTransactionIds.get(
+            artifactId, conn::getFirstTransactionIdForArtifactById);
+    }
+
+    @Override
+    public Optional<UUID>
+    getLastTransactionIdForArtifactById(UUID artifactId) throws IOException {
+
+        return lastTransactionIds.get(
+            artifactId, conn::getLastTransactionIdForArtifactById);
+    }
+
+    @Override
+    public Optional<UUID>
+    getPreviousTransactionIdForTransactionById(UUID txnId) throws IOException {
+
+        return prevTransactionIds.get(
+            txnId, conn::getPreviousTransactionIdForTransactionById);
+    }
+
+    @Override
+    public Optional<UUID>
+    getNextTransactionIdForTransactionById(UUID txnId) throws IOException {
+
+        return nextTransactionIds.get(
+            txnId, conn::getNextTransactionIdForTransactionById);
+    }
+
+    @Override
+    public Integer
+    getConnectionStatus() throws IOException {
+
+        return conn.getConnectionStatus();
+    }
+
+    /**
+     * Note the latest block id.  If it has changed, every negative answer
+     * may now be wrong, so they are all dropped.
+     */
+    private void observeLatestBlockId(UUID latest) {
+
+        latestBlockCheckedAt = System.nanoTime();
+
+        if (!latest.equals(latestBlockId)) {
+            latestBlockId = latest;
+            negativeEpoch.incrementAndGet();
+            absentCertificates.clear();
+            for (Links<?> links : allLinks) {
+                links.clearAbsent();
+            }
+        }
+    }
+
+    /**
+     * Check whether negative answers may be served, first checking the
+     * latest block id if it has not been checked recently.
+     */
+    private boolean negativeCacheUsable() throws IOException {
+
+        if (0 == negativeTtlNanos) {
+            return false;
+        }
+
+        if (System.nanoTime() - latestBlockCheckedAt >= negativeTtlNanos) {
+            getLatestBlockId();
+        }
+
+        return true;
+    }
+
+    /**
+     * Look up a certificate, through the certificate cache.
+     */
+    private Optional<Certificate>
+    certificate(CertificateKind kind, UUID id, Lookup<UUID, Certificate> lookup)
+    throws IOException {
+
+        Certificate cached = certificates.get(kind, id);
+        if (null != cached) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+
+        CacheKey key = new CacheKey(kind, id);
+        if (absentCertificates.contains(key) && negativeCacheUsable()
+                && absentCertificates.contains(key)) {
+            hits.increment();
+            return Optional.empty();
+        }
+
+        misses.increment();
+        long epoch = negativeEpoch.get();
+        Optional<Certificate> cert = lookup.get(id);
+        if (cert.isPresent()) {
+            certificates.put(kind, id, cert.get());
+        } else {
+            cacheAbsent(absentCertificates, key, epoch);
+        }
+
+        return cert;
+    }
+
+    /**
+     * Look up a collection of certificates, through the certificate cache.
+     * Only the misses are passed to the wrapped connection, in one bulk
+     * lookup.
+     */
+    private Map<UUID, Optional<Certificate>>
+    certificates(CertificateKind kind, Collection<UUID> ids,
+                 BulkLookup lookup) throws IOException {
+
+        Map<UUID, Optional<Certificate>> results = new LinkedHashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            if (results.containsKey(id)) {
+                continue;
+            }
+
+            Certificate cached = certificates.get(kind, id);
+            CacheKey key = new CacheKey(kind, id);
+            if (null != cached) {
+                hits.increment();
+                results.put(id, Optional.of(cached));
+            } else if (absentCertificates.contains(key)
+                       && negativeCacheUsable()
+                       && absentCertificates.contains(key)) {
+                hits.increment();
+                results.put(id, Optional.empty());
+            } else {
+                misses.increment();
+                results.put(id, null);
+                missing.add(id);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        long epoch = negativeEpoch.get();
+        Map<UUID, Optional<Certificate>> fetched;
+        try {
+            fetched = lookup.get(missing);
+        } catch (PartialResultException e) {
+            merge(kind, results, e.getResults(), epoch);
+            results.keySet().removeAll(e.getFailures().keySet());
+            throw new PartialResultException(results, e.getFailures());
+        }
+
+        merge(kind, results, fetched, epoch);
+
+        return results;
+    }
+
+    /**
+     * Merge fetched certificates into results, and cache them.
+     */
+    private void merge(CertificateKind kind,
+                       Map<UUID, Optional<Certificate>> results,
+                       Map<UUID, Optional<Certificate>> fetched, long epoch) {
+
+        fetched.forEach((id, cert) -> {
+            results.put(id, cert);
+            if (cert.isPresent()) {
+                certificates.put(kind, id, cert.get());
+            } else {
+                cacheAbsent(absentCertificates, new CacheKey(kind, id), epoch);
+            }
+        });
+    }
+
+    /**
+     * Cache a negative answer, unless the latest block id changed while it
+     * was being looked up.
+     */
+    private <K> void cacheAbsent(Set<K> absent, K key, long epoch) {
+
+        if (0 == negativeTtlNanos) {
+            return;
+        }
+
+        absent.add(key);
+        if (negativeEpoch.get() != epoch) {
+            absent.remove(key);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Lookup<K, V> {
+        Optional<V> get(K key) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface BulkLookup {
+        Map<UUID, Optional<Certificate>> get(Collection<UUID> ids)
+        throws IOException;
+    }
+
+    /**
+     * A cache of one kind of link.  Links which exist are kept for the life
+     * of the connection if they are immutable; links which do not exist are
+     * kept until the latest block id changes.
+     */
+    private final class Links<K> {
+
+        private final boolean immutable;
+        private final Map<K, UUID> present;
+        private final Set<K> absent;
+
+        Links(boolean immutable) {
+            this.immutable = immutable;
+            this.present = new ConcurrentHashMap<>();
+            this.absent = ConcurrentHashMap.newKeySet();
+        }
+
+        Optional<UUID> get(K key, Lookup<K, UUID> lookup) throws IOException {
+
+            UUID cached = present.get(key);
+            if (null != cached) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+
+            if (absent.contains(key) && negativeCacheUsable()
+                    && absent.contains(key)) {
+                hits.increment();
+                return Optional.empty();
+            }
+
+            misses.increment();
+            long epoch = negativeEpoch.get();
+            Optional<UUID> id = lookup.get(key);
+            if (id.isPresent()) {
+                put(key, id.get());
+            } else {
+                cacheAbsent(absent, key, epoch);
+            }
+
+            return id;
+        }
+
+        /**
+         * Cache a link, unless it is mutable or it is the nil UUID, which the
+         * agent may use to mark a link which does not exist yet.
+         */
+        void put(K key, UUID target) {
+
+            if (immutable && !UuidUtil.EMPTY_UUID.equals(target)) {
+                present.put(key, target);
+            }
+        }
+
+        void clearAbsent() {
+            absent.clear();
+        }
+    }
+
+    private enum CertificateKind {
+        BLOCK,
+        TRANSACTION
+    }
+
+    /**
+     * A least recently used cache of certificates, bounded by their total
+     * size.
+     */
+    private static final class CertificateCache {
+
+        private final long maxBytes;
+        private final Map<CacheKey, Certificate> entries;
+        private long bytes;
+        private long evictions;
+
+        CertificateCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        synchronized Certificate get(CertificateKind kind, UUID id) {
+            return entries.get(new CacheKey(kind, id));
+        }
+
+        synchronized void put(CertificateKind kind, UUID id, Certificate cert) {
+
+            /* a certificate larger than the whole cache is not cached. */
+            if (cert.size() > maxBytes) {
+                return;
+            }
+
+            Certificate previous = entries.put(new CacheKey(kind, id), cert);
+            bytes += cert.size();
+            if (null != previous) {
+                bytes -= previous.size();
+            }
+
+            Iterator<Certificate> eldest = entries.values().iterator();
+            while (bytes > maxBytes) {
+                bytes -= eldest.next().size();
+                eldest.remove();
+                ++evictions;
+            }
+        }
+
+        synchronized long getBytes() {
+            return bytes;
+        }
+
+        synchronized long getEvictionCount() {
+            return evictions;
+        }
+    }
+
+    private static final class CacheKey {
+
+        private final CertificateKind kind;
+        private final UUID id;
+
+        CacheKey(CertificateKind kind, UUID id) {
+            this.kind = kind;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey)o;
+            return kind == other.kind && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + id.hashCode();
+        }
+    }
+}
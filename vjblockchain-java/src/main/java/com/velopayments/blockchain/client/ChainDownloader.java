@@ -0,0 +1,286 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Download a range of the chain in parallel over several connections.
+ *
+ * The height range is split into fixed size segments.  Each connection has
+ * its own worker, which claims the next unclaimed segment and streams its
+ * blocks with prefetch.  Blocks pass through a bounded reorder buffer, so
+ * the sink sees them in height order no matter which worker fetched them.
+ */
+public class ChainDownloader {
+
+    /**
+     * Receives downloaded blocks in height order.
+     */
+    @FunctionalInterface
+    public interface BlockSink {
+        void accept(long height, Certificate block) throws IOException;
+    }
+
+    private List<AsyncVelochainConnection> connections;
+    private int segmentSize;
+    private int reorderCapacity;
+    private int prefetchDepth;
+
+    /**
+     * Create a chain downloader.
+     *
+     * @param connections       The connections to download over, each of
+     *                          which is used by a single worker.
+     * @param segmentSize       The number of blocks in each segment.
+     * @param reorderCapacity   The maximum number of blocks which may be
+     *                          fetched ahead of the sink.
+     * @param prefetchDepth     The number of blocks each worker requests
+     *                          ahead of itself.
+     */
+    public ChainDownloader(
+        List<AsyncVelochainConnection> connections, int segmentSize,
+        int reorderCapacity, int prefetchDepth) {
+
+        if (connections.isEmpty()) {
+            throw new IllegalArgumentException(
+                "At least one connection is required.");
+        }
+        if (segmentSize < 1 || reorderCapacity < 1 || prefetchDepth < 1) {
+            throw new IllegalArgumentException(
+                "Segment size, reorder capacity, and prefetch depth must be "
+                + "at least 1.");
+        }
+
+        this.connections = new ArrayList<>(connections);
+        this.segmentSize = segmentSize;
+        this.reorderCapacity = reorderCapacity;
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    /**
+     * Download every block from height 0 up to the latest block.
+     *
+     * @param sink      Receives each block in height order.
+     *
+     * @return the number of blocks downloaded.
+     */
+    public long download(BlockSink sink) throws IOException {
+
+        AsyncVelochainConnection conn = connections.get(0);
+        UUID latestBlockId = conn.getLatestBlockId();
+        BlockRecord latest =
+            conn.getBlockRecordById(latestBlockId).orElseThrow(
+                () -> new IOException(
+                    "Could not read latest block " + latestBlockId));
+
+        return download(0, latest.getBlockHeight(), sink);
+    }
+
+    /**
+     * Download the blocks in a range of heights.
+     *
+     * @param fromHeight    The height of the first block.
+     * @param toHeight      The height of the last block, inclusive.
+     * @param sink          Receives each block in height order.
+     *
+     * @return the number of blocks downloaded.
+     *
+     * @throws IOException if a block could not be read, or the sink failed.
+     */
+    public long download(long fromHeight, long toHeight, BlockSink sink)
+    throws IOException {
+
+        if (fromHeight > toHeight) {
+            return 0;
+        }
+
+        Download download = new Download(fromHeight, toHeight);
+        ExecutorService workers = Executors.newFixedThreadPool(
+            connections.size(), r -> {
+                Thread t = new Thread(r, "velochain-chain-downloader");
+                t.setDaemon(true);
+                return t;
+            });
+
+        try {
+            for (AsyncVelochainConnection conn : connections) {
+                workers.execute(() -> download.fetchSegments(conn));
+            }
+
+            for (long height = fromHeight; height <= toHeight; ++height) {
+                sink.accept(height, download.take(height));
+
+                if (height == Long.MAX_VALUE) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            download.fail(e);
+            throw e;
+        } finally {
+            workers.shutdownNow();
+        }
+
+        return toHeight - fromHeight + 1;
+    }
+
+    /**
+     * The state of a single download.
+     */
+    private class Download {
+
+        private final long toHeight;
+        private final AtomicLong nextSegment;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final Map<Long, Certificate> reorderBuffer = new HashMap<>();
+        private long nextHeight;
+        private Throwable failure;
+
+        Download(long fromHeight, long toHeight) {
+            this.toHeight = toHeight;
+            this.nextSegment = new AtomicLong(fromHeight);
+            this.nextHeight = fromHeight;
+        }
+
+        /**
+         * Claim and fetch segments until none remain.
+         */
+        void fetchSegments(AsyncVelochainConnection conn) {
+
+            try {
+                long start;
+                while ((start = claimSegment()) >= 0) {
+                    long end = Math.min(toHeight, start + segmentSize - 1);
+                    fetchSegment(conn, start, end);
+                }
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Claim the next segment.
+         *
+         * @return the first height of the segment, or -1 if none remain.
+         */
+        private long claimSegment() {
+            long start = nextSegment.getAndAdd(segmentSize);
+
+            return start <= toHeight && start >= 0 ? start : -1;
+        }
+
+        private void fetchSegment(
+            AsyncVelochainConnection conn, long start, long end)
+        throws IOException, InterruptedException {
+
+            BlockSpliterator blocks =
+                new BlockSpliterator(conn, start, end, prefetchDepth);
+
+            for (long height = start; height <= end; ++height) {
+                Certificate[] block = new Certificate[1];
+
+                try {
+                    if (!blocks.tryAdvance(cert -> block[0] = cert)) {
+                        throw new IOException(
+                            "Missing block at height " + height);
+                    }
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+
+                put(height, block[0]);
+            }
+        }
+
+        /**
+         * Add a block to the reorder buffer, waiting while it is too far
+         * ahead of the sink.
+         */
+        private void put(long height, Certificate block)
+        throws InterruptedException {
+
+            lock.lock();
+            try {
+                while (null == failure
+                       && height - nextHeight >= reorderCapacity) {
+                    changed.await();
+                }
+
+                if (null != failure) {
+                    return;
+                }
+
+                reorderBuffer.put(height, block);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Take the block at the given height from the reorder buffer,
+         * waiting until it arrives.
+         */
+        Certificate take(long height) throws IOException {
+
+            lock.lock();
+            try {
+                Certificate block;
+                while (null == (block = reorderBuffer.remove(height))) {
+                    if (null != failure) {
+                        if (failure instanceof IOException) {
+                            throw (IOException)failure;
+                        }
+                        throw new IOException(
+                            "Chain download failed.", failure);
+                    }
+
+                    changed.await();
+                }
+
+                nextHeight = height + 1;
+                changed.signalAll();
+
+                return block;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(
+                    "Interrupted while downloading chain.");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Stop the download, waking every waiting thread.
+         */
+        void fail(Throwable cause) {
+
+            lock.lock();
+            try {
+                if (null == failure) {
+                    failure = cause;
+                }
+                reorderBuffer.clear();
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public class PartialResultException extends RuntimeException {
+
+    static final long serialVersionUID = 1;
+
+    private final transient Map<UUID, Optional<Certificate>> results;
+    private final transient Map<UUID, Throwable> failures;
+
+    /**
+     * Create a PartialResultException from the lookups which succeeded and
+     * the lookups which failed.
+     *
+     * @param results   The result of each lookup which succeeded.
+     * @param failures  The cause of each lookup which failed.
+     */
+    public PartialResultException(
+        Map<UUID, Optional<Certificate>> results,
+        Map<UUID, Throwable> failures) {
+
+        super(failures.size() + " of " + (results.size() + failures.size())
+              + " lookups failed.");
+
+        this.results = Collections.unmodifiableMap(results);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Get the result of each lookup which succeeded.
+     *
+     * @return the certificate, or empty if not found, by id.
+     */
+    public Map<UUID, Optional<Certificate>> getResults() {
+        return results;
+    }
+
+    /**
+     * Get the cause of each lookup which failed.
+     *
+     * @return the failure by id.
+     */
+    public Map<UUID, Throwable> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,104 @@
+package com.velopayments.blockchain.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The requests a spliterator has sent ahead of its consumer, in the order
+ * in which their results are consumed.
+ *
+ * Once finished, the queue is empty and the spliterator stops iterating;
+ * outstanding requests are left to complete.  Failed requests are reported
+ * as {@link UncheckedIOException}.  A prefetch queue is not thread safe.
+ *
+ * @param <T>   The type of each request's result.
+ */
+final class PrefetchQueue<T> {
+
+    private final Deque<CompletableFuture<T>> requests;
+    private boolean finished;
+
+    /**
+     * Create an empty prefetch queue.
+     *
+     * @param depth         The number of requests expected to be in flight.
+     */
+    PrefetchQueue(int depth) {
+        this.requests = new ArrayDeque<>(depth);
+    }
+
+    /**
+     * Add a request to the end of the queue.
+     *
+     * @param request       The pending request.
+     */
+    void add(CompletableFuture<T> request) {
+        requests.addLast(request);
+    }
+
+    /**
+     * Get the number of requests in the queue.
+     *
+     * @return the number of requests.
+     */
+    int size() {
+        return requests.size();
+    }
+
+    /**
+     * Determine whether the queue is empty.
+     *
+     * @return true if there are no requests in the queue.
+     */
+    boolean isEmpty() {
+        return requests.isEmpty();
+    }
+
+    /**
+     * Determine whether iteration has stopped.
+     *
+     * @return true if the queue is finished.
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Stop iterating.  Outstanding requests are left to complete.
+     */
+    void finish() {
+        finished = true;
+        requests.clear();
+    }
+
+    /**
+     * Remove the first request from the queue and wait for its result.  If
+     * the request failed, the queue is finished.
+     *
+     * @return the result of the first request.
+     *
+     * @throws UncheckedIOException if the request failed with an I/O error,
+     *                              or with a checked exception.
+     */
+    T awaitNext() {
+
+        try {
+            return requests.removeFirst().join();
+        } catch (CompletionException e) {
+            finish();
+
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException)cause);
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else {
+                throw new UncheckedIOException(new IOException(cause));
+            }
+        }
+    }
+}
@@ -9,18 +9,75 @@ import java.util.UUID;
  */
 public class RemoteAgentConfiguration {
 
+    /**
+     * The default maximum number of submissions which may await a reply from
+     * the agent at once.
+     */
+    public static final int DEFAULT_MAX_PENDING_SUBMISSIONS = 256;
+
+    /**
+     * The default maximum number of lookups from a batch which may await a
+     * reply from the agent at once.
+     */
+    public static final int DEFAULT_MAX_PENDING_LOOKUPS = 256;
+
     private String host;
     private Integer port;
 
     private UUID agentId;
     private EncryptionPublicKey agentPublicKey;
 
+    private int maxPendingSubmissions;
+    private int maxPendingLookups;
+
     public RemoteAgentConfiguration(String host, Integer port,
                                     UUID agentId, EncryptionPublicKey agentPublicKey) {
+        this(host, port, agentId, agentPublicKey,
+             DEFAULT_MAX_PENDING_SUBMISSIONS);
+    }
+
+    /**
+     * @param maxPendingSubmissions the maximum number of submissions from a
+     *                              batch which may await a reply from the
+     *                              agent at once.
+     */
+    public RemoteAgentConfiguration(String host, Integer port,
+                                    UUID agentId,
+                                    EncryptionPublicKey agentPublicKey,
+                                    int maxPendingSubmissions) {
+        this(host, port, agentId, agentPublicKey, maxPendingSubmissions,
+             DEFAULT_MAX_PENDING_LOOKUPS);
+    }
+
+    /**
+     * @param maxPendingSubmissions the maximum number of submissions from a
+     *                              batch which may await a reply from the
+     *                              agent at once.
+     * @param maxPendingLookups the maximum number of lookups from a batch
+     *                          which may await a reply from the agent at
+     *                          once.
+     */
+    public RemoteAgentConfiguration(String host, Integer port,
+                                    UUID agentId,
+                                    EncryptionPublicKey agentPublicKey,
+                                    int maxPendingSubmissions,
+                                    int maxPendingLookups) {
+        if (maxPendingSubmissions < 1) {
+            throw new IllegalArgumentException(
+                "maxPendingSubmissions must be at least 1.");
+        }
+
+        if (maxPendingLookups < 1) {
+            throw new IllegalArgumentException(
+                "maxPendingLookups must be at least 1.");
+        }
+
         this.host = host;
         this.port = port;
         this.agentId = agentId;
         this.agentPublicKey = agentPublicKey;
+        this.maxPendingSubmissions = maxPendingSubmissions;
+        this.maxPendingLookups = maxPendingLookups;
     }
 
     public String getHost() {
@@ -38,4 +95,12 @@ public class RemoteAgentConfiguration {
     public EncryptionPublicKey getAgentPublicKey() {
         return agentPublicKey;
     }
+
+    public int getMaxPendingSubmissions() {
+        return maxPendingSubmissions;
+    }
+
+    public int getMaxPendingLookups() {
+        return maxPendingLookups;
+    }
 }
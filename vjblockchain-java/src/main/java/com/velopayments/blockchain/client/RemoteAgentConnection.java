@@ -6,14 +6,27 @@ import com.velopayments.blockchain.crypt.EncryptionPrivateKey;
 
 import javax.net.SocketFactory;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
 
-public class RemoteAgentConnection implements VelochainConnection {
+public class RemoteAgentConnection implements AsyncVelochainConnection {
 
     private DataChannel dataChannel;
     private ProtocolHandler protocolHandler;
+    private int maxPendingSubmissions;
+    private int maxPendingLookups;
 
     /**
      * Note this constructor does NOT implicitly open a remote connection.
@@ -32,13 +45,62 @@ public class RemoteAgentConnection implements VelochainConnection {
                                  UUID entityId,
                                  EncryptionPrivateKey entityPrivateEncKey) {
 
-        this.dataChannel = new SocketDataChannelImpl(
-                config.getHost(), config.getPort(), socketFactory);
+        this(config,
+             new SocketDataChannelImpl(
+                config.getHost(), config.getPort(), socketFactory),
+             entityId, entityPrivateEncKey);
+    }
+
+    /**
+     * Create a connection over a plain TCP NIO socket channel, which reads
+     * and writes through reusable direct buffers.
+     *
+     * Note this constructor does NOT implicitly open a remote connection.
+     * Use {@code RemoteAgentConnection#connect} to open a connection and
+     * perform a handshake.
+     *
+     * @param config configuration data containing connection information
+     * @param entityId the entity UUID for authentication
+     * @param entityPrivateEncKey the private encryption key for this entity.
+     */
+    public RemoteAgentConnection(RemoteAgentConfiguration config,
+                                 UUID entityId,
+                                 EncryptionPrivateKey entityPrivateEncKey) {
+
+        this(config,
+             new SocketChannelDataChannelImpl(
+                config.getHost(), config.getPort()),
+             entityId, entityPrivateEncKey);
+    }
+
+    private RemoteAgentConnection(RemoteAgentConfiguration config,
+                                  DataChannel dataChannel,
+                                  UUID entityId,
+                                  EncryptionPrivateKey entityPrivateEncKey) {
+
+        this.dataChannel = dataChannel;
         this.protocolHandler = new ProtocolHandlerImpl(
                 dataChannel, config.getAgentId(), entityId,
                 config.getAgentPublicKey(), entityPrivateEncKey,
                 new OuterEnvelopeReader(), new OuterEnvelopeWriter(),
                 new SecureRandom());
+        this.maxPendingSubmissions = config.getMaxPendingSubmissions();
+        this.maxPendingLookups = config.getMaxPendingLookups();
+    }
+
+    /**
+     * Create a connection over an existing data channel and protocol
+     * handler.
+     */
+    RemoteAgentConnection(DataChannel dataChannel,
+                          ProtocolHandler protocolHandler,
+                          int maxPendingSubmissions,
+                          int maxPendingLookups) {
+
+        this.dataChannel = dataChannel;
+        this.protocolHandler = protocolHandler;
+        this.maxPendingSubmissions = maxPendingSubmissions;
+        this.maxPendingLookups = maxPendingLookups;
     }
 
     /**
@@ -53,29 +115,80 @@ public class RemoteAgentConnection implements VelochainConnection {
     @Override
     public void close() throws IOException {
 
-        dataChannel.close();
+        try {
+            dataChannel.close();
+        } finally {
+            protocolHandler.close();
+        }
     }
 
     /**
      * {@inheritDoc}
      *
-     * Implementation note: this is currently a synchronous operation,
-     * with agentd blocking submission on success.  Therefore, we immediately
-     * return a success / failure status.  Future implementations will
-     * process asynchronously and batch submissions.
+     * Implementation note: agentd replies to a submission once it has
+     * accepted or rejected the transaction.  This method blocks until that
+     * reply arrives; use {@link #submitAsync} to submit without blocking.
      */
     @Override
     public TransactionStatus submit(Certificate transaction)
     throws IOException {
 
+        return submitAsync(transaction).join();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Implementation note: the returned future is never completed
+     * exceptionally.  A rejected submission or a failed connection completes
+     * it with {@link TransactionStatus#FAILED}.
+     */
+    @Override
+    public CompletableFuture<TransactionStatus>
+    submitAsync(Certificate transaction) {
+
+        return protocolHandler.submitAsync(transaction).handle(
+            (status, e) ->
+                (null == e && 0L == status)
+                    ? TransactionStatus.SUCCEEDED
+                    : TransactionStatus.FAILED);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Implementation note: submissions are sent without waiting for earlier
+     * replies, with at most the configured maximum number of pending
+     * submissions awaiting a reply at once.
+     */
+    @Override
+    public List<TransactionStatus>
+    submitAll(Iterator<Certificate> transactions) throws IOException {
+
+        Semaphore window = new Semaphore(maxPendingSubmissions);
+        List<CompletableFuture<TransactionStatus>> pending = new ArrayList<>();
+
         try {
-            protocolHandler.submit(transaction);
+            while (transactions.hasNext()) {
+                Certificate transaction = transactions.next();
+
+                window.acquire();
+                pending.add(
+                    submitAsync(transaction).whenComplete(
+                        (status, e) -> window.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while submitting transactions.");
+        }
 
-            return
-                TransactionStatus.SUCCEEDED;
-        } catch (Exception e) {
-            return TransactionStatus.FAILED;
+        List<TransactionStatus> statuses = new ArrayList<>(pending.size());
+        for (CompletableFuture<TransactionStatus> status : pending) {
+            statuses.add(status.join());
         }
+
+        return statuses;
     }
 
     @Override
@@ -85,6 +198,13 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getLatestBlockId();
     }
 
+    @Override
+    public CompletableFuture<UUID>
+    getLatestBlockIdAsync() {
+
+        return protocolHandler.getLatestBlockIdAsync();
+    }
+
     @Override
     public Optional<UUID> getNextBlockId(UUID blockId)
     throws IOException {
@@ -92,6 +212,13 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getNextBlockId(blockId);
     }
 
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getNextBlockIdAsync(UUID blockId) {
+
+        return protocolHandler.getNextBlockIdAsync(blockId);
+    }
+
     @Override
     public Optional<UUID> getPrevBlockId(UUID blockId)
     throws IOException {
@@ -99,6 +226,13 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getPrevBlockId(blockId);
     }
 
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getPrevBlockIdAsync(UUID blockId) {
+
+        return protocolHandler.getPrevBlockIdAsync(blockId);
+    }
+
     @Override
     public Optional<UUID> getTransactionBlockId(UUID txnId)
     throws IOException {
@@ -106,6 +240,13 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getTransactionBlockId(txnId);
     }
 
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getTransactionBlockIdAsync(UUID txnId) {
+
+        return protocolHandler.getTransactionBlockIdAsync(txnId);
+    }
+
     @Override
     public Optional<Certificate> getBlockById(UUID blockId)
     throws IOException {
@@ -113,6 +254,41 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getBlockById(blockId);
     }
 
+    @Override
+    public CompletableFuture<Optional<Certificate>>
+    getBlockByIdAsync(UUID blockId) {
+
+        return protocolHandler.getBlockByIdAsync(blockId);
+    }
+
+    @Override
+    public Optional<BlockRecord>
+    getBlockRecordById(UUID blockId) throws IOException {
+
+        return protocolHandler.getBlockRecordById(blockId);
+    }
+
+    @Override
+    public CompletableFuture<Optional<BlockRecord>>
+    getBlockRecordByIdAsync(UUID blockId) {
+
+        return protocolHandler.getBlockRecordByIdAsync(blockId);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Implementation note: lookups are sent without waiting for earlier
+     * replies, with at most the configured maximum number of pending
+     * lookups awaiting a reply at once.
+     */
+    @Override
+    public Map<UUID, Optional<Certificate>>
+    getBlocksByIds(Collection<UUID> blockIds) throws IOException {
+
+        return getAllByIds(blockIds, protocolHandler::getBlockByIdAsync);
+    }
+
     @Override
     public Optional<UUID>
     getBlockIdByBlockHeight(long height) throws IOException {
@@ -120,6 +296,13 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getBlockIdByBlockHeight(height);
     }
 
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getBlockIdByBlockHeightAsync(long height) {
+
+        return protocolHandler.getBlockIdByBlockHeightAsync(height);
+    }
+
     @Override
     public Optional<Certificate>
     getTransactionById(UUID txnId) throws IOException {
@@ -127,6 +310,92 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getTransactionById(txnId);
     }
 
+    @Override
+    public CompletableFuture<Optional<Certificate>>
+    getTransactionByIdAsync(UUID txnId) {
+
+        return protocolHandler.getTransactionByIdAsync(txnId);
+    }
+
+    @Override
+    public Optional<TransactionRecord>
+    getTransactionRecordById(UUID txnId) throws IOException {
+
+        return protocolHandler.getTransactionRecordById(txnId);
+    }
+
+    @Override
+    public CompletableFuture<Optional<TransactionRecord>>
+    getTransactionRecordByIdAsync(UUID txnId) {
+
+        return protocolHandler.getTransactionRecordByIdAsync(txnId);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Implementation note: lookups are sent without waiting for earlier
+     * replies, with at most the configured maximum number of pending
+     * lookups awaiting a reply at once.
+     */
+    @Override
+    public Map<UUID, Optional<Certificate>>
+    getTransactionsByIds(Collection<UUID> txnIds) throws IOException {
+
+        return getAllByIds(txnIds, protocolHandler::getTransactionByIdAsync);
+    }
+
+    /**
+     * Look up each id, keeping a window of lookups awaiting a reply, and
+     * collect the results once every lookup has completed.
+     */
+    private Map<UUID, Optional<Certificate>>
+    getAllByIds(
+        Collection<UUID> ids,
+        Function<UUID, CompletableFuture<Optional<Certificate>>> lookup)
+    throws IOException {
+
+        Semaphore window = new Semaphore(maxPendingLookups);
+        Map<UUID, CompletableFuture<Optional<Certificate>>> pending =
+            new LinkedHashMap<>();
+
+        try {
+            for (UUID id : ids) {
+                if (pending.containsKey(id)) {
+                    continue;
+                }
+
+                window.acquire();
+                pending.put(
+                    id,
+                    lookup.apply(id).whenComplete(
+                        (cert, e) -> window.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while looking up certificates.");
+        }
+
+        Map<UUID, Optional<Certificate>> results = new LinkedHashMap<>();
+        Map<UUID, Throwable> failures = new LinkedHashMap<>();
+        for (Map.Entry<UUID, CompletableFuture<Optional<Certificate>>> entry
+                : pending.entrySet()) {
+
+            try {
+                results.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                failures.put(entry.getKey(), e.getCause());
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new PartialResultException(results, failures);
+        }
+
+        return results;
+    }
+
     @Override
     public Optional<UUID>
     getFirstTransactionIdForArtifactById(UUID artifactId) throws IOException {
@@ -134,6 +403,13 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getArtifactFirstTxnId(artifactId);
     }
 
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getFirstTransactionIdForArtifactByIdAsync(UUID artifactId) {
+
+        return protocolHandler.getArtifactFirstTxnIdAsync(artifactId);
+    }
+
     @Override
     public Optional<UUID>
     getLastTransactionIdForArtifactById(UUID artifactId) throws IOException {
@@ -141,6 +417,13 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getArtifactLastTxnId(artifactId);
     }
 
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getLastTransactionIdForArtifactByIdAsync(UUID artifactId) {
+
+        return protocolHandler.getArtifactLastTxnIdAsync(artifactId);
+    }
+
     @Override
     public Optional<UUID>
     getPreviousTransactionIdForTransactionById(UUID txnId) throws IOException {
@@ -148,6 +431,13 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getTransactionPreviousId(txnId);
     }
 
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getPreviousTransactionIdForTransactionByIdAsync(UUID txnId) {
+
+        return protocolHandler.getTransactionPreviousIdAsync(txnId);
+    }
+
     @Override
     public Optional<UUID>
     getNextTransactionIdForTransactionById(UUID txnId) throws IOException {
@@ -155,10 +445,24 @@ public class RemoteAgentConnection implements VelochainConnection {
         return protocolHandler.getTransactionNextId(txnId);
     }
 
+    @Override
+    public CompletableFuture<Optional<UUID>>
+    getNextTransactionIdForTransactionByIdAsync(UUID txnId) {
+
+        return protocolHandler.getTransactionNextIdAsync(txnId);
+    }
+
     @Override
     public Integer
     getConnectionStatus() throws IOException {
 
         return Integer.valueOf(protocolHandler.getConnectionStatus());
     }
+
+    @Override
+    public CompletableFuture<Integer>
+    getConnectionStatusAsync() {
+
+        return protocolHandler.getConnectionStatusAsync();
+    }
 }
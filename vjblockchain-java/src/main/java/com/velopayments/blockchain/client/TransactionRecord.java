@@ -0,0 +1,116 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A transaction certificate, along with the chain metadata which the agent
+ * returns with it.
+ */
+public class TransactionRecord {
+
+    private UUID transactionId;
+    private Optional<UUID> previousTransactionId;
+    private Optional<UUID> nextTransactionId;
+    private UUID artifactId;
+    private UUID blockId;
+    private int state;
+    private Certificate certificate;
+
+    /**
+     * Create a transaction record.
+     *
+     * @param transactionId         The transaction UUID.
+     * @param previousTransactionId The previous transaction UUID for this
+     *                              artifact, or empty if there is none.
+     * @param nextTransactionId     The next transaction UUID for this
+     *                              artifact, or empty if there is none.
+     * @param artifactId            The artifact UUID.
+     * @param blockId               The UUID of the block holding this
+     *                              transaction.
+     * @param state                 The transaction state reported by the
+     *                              agent.
+     * @param certificate           The transaction certificate.
+     */
+    public TransactionRecord(
+        UUID transactionId, Optional<UUID> previousTransactionId,
+        Optional<UUID> nextTransactionId, UUID artifactId, UUID blockId,
+        int state, Certificate certificate) {
+
+        this.transactionId = transactionId;
+        this.previousTransactionId = previousTransactionId;
+        this.nextTransactionId = nextTransactionId;
+        this.artifactId = artifactId;
+        this.blockId = blockId;
+        this.state = state;
+        this.certificate = certificate;
+    }
+
+    /**
+     * Get the UUID of this transaction.
+     *
+     * @return the transaction UUID.
+     */
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Get the UUID of the previous transaction for this artifact.
+     *
+     * @return the previous transaction UUID, or empty if this is the first
+     * transaction for the artifact.
+     */
+    public Optional<UUID> getPreviousTransactionId() {
+        return previousTransactionId;
+    }
+
+    /**
+     * Get the UUID of the next transaction for this artifact, as of when the
+     * transaction was read.
+     *
+     * @return the next transaction UUID, or empty if this was the last
+     * transaction for the artifact.
+     */
+    public Optional<UUID> getNextTransactionId() {
+        return nextTransactionId;
+    }
+
+    /**
+     * Get the UUID of the artifact which this transaction modifies.
+     *
+     * @return the artifact UUID.
+     */
+    public UUID getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * Get the UUID of the block holding this transaction.
+     *
+     * @return the block UUID.
+     */
+    public UUID getBlockId() {
+        return blockId;
+    }
+
+    /**
+     * Get the transaction state reported by the agent.
+     *
+     * @return the transaction state.
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Get the transaction certificate.
+     *
+     * @return the transaction certificate.
+     */
+    public Certificate getCertificate() {
+        return certificate;
+    }
+}
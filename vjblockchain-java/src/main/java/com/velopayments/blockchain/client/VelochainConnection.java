@@ -3,6 +3,12 @@ package com.velopayments.blockchain.client;
 import com.velopayments.blockchain.cert.Certificate;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,6 +36,45 @@ public interface VelochainConnection {
     TransactionStatus submit(Certificate transaction)
             throws IOException;
 
+    /**
+     * Submit a batch of transactions to the blockchain / agent.
+     *
+     * Implementations may have many submissions awaiting a reply at once.
+     *
+     * @param transactions      The transactions to be added.
+     *
+     * @return the submission status of each transaction, in the same order
+     * as the transactions.
+     */
+    default List<TransactionStatus>
+    submitBatch(List<Certificate> transactions) throws IOException {
+
+        return submitAll(transactions.iterator());
+    }
+
+    /**
+     * Submit each transaction produced by an iterator to the blockchain /
+     * agent.
+     *
+     * Implementations may have many submissions awaiting a reply at once,
+     * and only pull more transactions from the iterator as replies arrive.
+     *
+     * @param transactions      The transactions to be added.
+     *
+     * @return the submission status of each transaction, in the order in
+     * which the iterator produced them.
+     */
+    default List<TransactionStatus>
+    submitAll(Iterator<Certificate> transactions) throws IOException {
+
+        List<TransactionStatus> statuses = new ArrayList<>();
+        while (transactions.hasNext()) {
+            statuses.add(submit(transactions.next()));
+        }
+
+        return statuses;
+    }
+
 
     /**
      * Get the latest block UUID in the blockchain, according to this agent.
@@ -91,6 +136,69 @@ public interface VelochainConnection {
     Optional<Certificate>
     getBlockById(UUID blockId) throws IOException;
 
+    /**
+     * Get the block for a given UUID, along with its metadata.  The metadata
+     * includes the next block UUID, so a caller walking the chain needs only
+     * one round trip per block.
+     *
+     * Note - this method blocks until the given block is available.
+     *
+     * The default implementation reads the block and its next block UUID
+     * with two requests, and the rest of the metadata from the block
+     * certificate.
+     *
+     * @param blockId   The block ID to look up.
+     *
+     * @return the block and its metadata, or empty if not found.
+     */
+    default Optional<BlockRecord>
+    getBlockRecordById(UUID blockId) throws IOException {
+
+        Optional<Certificate> block = getBlockById(blockId);
+        if (!block.isPresent()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(
+            BlockRecord.fromCertificate(
+                blockId, getNextBlockId(blockId), block.get()));
+    }
+
+    /**
+     * Get the blocks for a collection of UUIDs.
+     *
+     * Implementations may have many lookups awaiting a reply at once.
+     *
+     * Note - this method blocks until every lookup has completed.
+     *
+     * @param blockIds  The block IDs to look up.
+     *
+     * @return each block, or empty if not found, by block ID in the order of
+     * the given collection.
+     *
+     * @throws PartialResultException if any lookup failed, holding the
+     * results of the lookups which succeeded.
+     */
+    default Map<UUID, Optional<Certificate>>
+    getBlocksByIds(Collection<UUID> blockIds) throws IOException {
+
+        Map<UUID, Optional<Certificate>> results = new LinkedHashMap<>();
+        Map<UUID, Throwable> failures = new LinkedHashMap<>();
+        for (UUID blockId : blockIds) {
+            try {
+                results.put(blockId, getBlockById(blockId));
+            } catch (IOException | RuntimeException e) {
+                failures.put(blockId, e);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new PartialResultException(results, failures);
+        }
+
+        return results;
+    }
+
     /**
      * Get the block id for a given block height.
      *
@@ -113,6 +221,61 @@ public interface VelochainConnection {
     Optional<Certificate>
     getTransactionById(UUID txnId) throws IOException;
 
+    /**
+     * Get a transaction for a given UUID, along with its metadata.
+     *
+     * Note - this method blocks until the given transaction is available.
+     *
+     * @param txnId     The transaction ID to look up.
+     *
+     * @return the transaction and its metadata, or empty if not found.
+     *
+     * @throws UnsupportedOperationException by default, since the
+     * transaction state reported by the agent cannot be read through the
+     * other methods of this interface.
+     */
+    default Optional<TransactionRecord>
+    getTransactionRecordById(UUID txnId) throws IOException {
+
+        throw new UnsupportedOperationException(
+            "Transaction records are not supported by this connection.");
+    }
+
+    /**
+     * Get the transactions for a collection of UUIDs.
+     *
+     * Implementations may have many lookups awaiting a reply at once.
+     *
+     * Note - this method blocks until every lookup has completed.
+     *
+     * @param txnIds    The transaction IDs to look up.
+     *
+     * @return each transaction, or empty if not found, by transaction ID in
+     * the order of the given collection.
+     *
+     * @throws PartialResultException if any lookup failed, holding the
+     * results of the lookups which succeeded.
+     */
+    default Map<UUID, Optional<Certificate>>
+    getTransactionsByIds(Collection<UUID> txnIds) throws IOException {
+
+        Map<UUID, Optional<Certificate>> results = new LinkedHashMap<>();
+        Map<UUID, Throwable> failures = new LinkedHashMap<>();
+        for (UUID txnId : txnIds) {
+            try {
+                results.put(txnId, getTransactionById(txnId));
+            } catch (IOException | RuntimeException e) {
+                failures.put(txnId, e);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new PartialResultException(results, failures);
+        }
+
+        return results;
+    }
+
 
     /**
      * Get the first transaction UUID for a given artifact UUID.
@@ -0,0 +1,586 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.crypt.EncryptionPrivateKey;
+
+import javax.net.SocketFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A pool of authenticated connections to a single agent.
+ *
+ * Connections are opened and handshaken in parallel when the pool is
+ * created, and are then leased to one thread at a time.  Closing a leased
+ * connection returns it to the pool.  Idle connections are periodically
+ * validated with a status request, and connections which fail validation or
+ * fail while leased are replaced in the background.
+ */
+public class VelochainConnectionPool implements Closeable {
+
+    /**
+     * Opens a new connection which has completed its handshake.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        VelochainConnection connect() throws IOException;
+    }
+
+    /* how often a thread waiting for a lease checks whether the pool has
+     * been closed. */
+    private static final long CLOSED_CHECK_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ConnectionFactory factory;
+    private final BlockingQueue<VelochainConnection> idle;
+    private final ScheduledExecutorService maintenance;
+    private final long retryDelayMillis;
+    private volatile boolean closed;
+
+    /**
+     * Create a pool of connections, blocking until every connection has
+     * completed its handshake.
+     *
+     * @param factory               Opens each connection.
+     * @param size                  The number of connections in the pool.
+     * @param validationIntervalMillis  How often idle connections are
+     *                              validated, in milliseconds, and how long
+     *                              a validation may wait for a reply.
+     *
+     * @throws IOException if any connection could not be opened.
+     */
+    public VelochainConnectionPool(ConnectionFactory factory, int size,
+                                   long validationIntervalMillis)
+    throws IOException {
+
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                "Pool size must be at least 1.");
+        }
+
+        if (validationIntervalMillis < 1) {
+            throw new IllegalArgumentException(
+                "Validation interval must be positive.");
+        }
+
+        this.factory = factory;
+        this.idle = new LinkedBlockingQueue<>();
+        this.retryDelayMillis = validationIntervalMillis;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "velochain-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            warm(size);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+
+        maintenance.scheduleWithFixedDelay(
+            this::validateIdleConnections, validationIntervalMillis,
+            validationIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a pool of connections to a remote agent over plain TCP NIO
+     * socket channels, blocking until every connection has completed its
+     * handshake.
+     *
+     * @param config configuration data containing connection information
+     * @param entityId the entity UUID for authentication
+     * @param entityPrivateEncKey the private encryption key for this entity.
+     * @param size the number of connections in the pool.
+     * @param validationIntervalMillis how often idle connections are
+     *                                 validated, in milliseconds.
+     *
+     * @throws IOException if any connection could not be opened.
+     */
+    public static VelochainConnectionPool
+    forRemoteAgent(RemoteAgentConfiguration config, UUID entityId,
+                   EncryptionPrivateKey entityPrivateEncKey, int size,
+                   long validationIntervalMillis) throws IOException {
+
+        return new VelochainConnectionPool(() -> {
+            RemoteAgentConnection conn = new RemoteAgentConnection(
+                config, entityId, entityPrivateEncKey);
+            conn.connect();
+            return conn;
+        }, size, validationIntervalMillis);
+    }
+
+    /**
+     * Create a pool of connections to a remote agent, blocking until every
+     * connection has completed its handshake.
+     *
+     * @param config configuration data containing connection information
+     * @param socketFactory factory which should produce a socket suitable
+     *                      for establishing the remote connection
+     * @param entityId the entity UUID for authentication
+     * @param entityPrivateEncKey the private encryption key for this entity.
+     * @param size the number of connections in the pool.
+     * @param validationIntervalMillis how often idle connections are
+     *                                 validated, in milliseconds.
+     *
+     * @throws IOException if any connection could not be opened.
+     */
+    public static VelochainConnectionPool
+    forRemoteAgent(RemoteAgentConfiguration config,
+                   SocketFactory socketFactory, UUID entityId,
+                   EncryptionPrivateKey entityPrivateEncKey, int size,
+                   long validationIntervalMillis) throws IOException {
+
+        return new VelochainConnectionPool(() -> {
+            RemoteAgentConnection conn = new RemoteAgentConnection(
+                config, socketFactory, entityId, entityPrivateEncKey);
+            conn.connect();
+            return conn;
+        }, size, validationIntervalMillis);
+    }
+
+    /**
+     * Lease a connection from the pool, blocking until one is idle or the
+     * pool is closed.
+     *
+     * The caller must close the returned connection to return it to the
+     * pool.
+     *
+     * @return a connection which is leased to the caller.
+     *
+     * @throws IOException if the pool is closed or the caller is interrupted.
+     */
+    public VelochainConnection lease() throws IOException {
+
+        return lease(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Lease a connection from the pool, blocking until one is idle, the
+     * pool is closed, or the timeout elapses.
+     *
+     * The caller must close the returned connection to return it to the
+     * pool.
+     *
+     * @param timeout       How long to wait for an idle connection.
+     * @param unit          The unit of the timeout.
+     *
+     * @return a connection which is leased to the caller.
+     *
+     * @throws IOException if the pool is closed, the timeout elapses, or the
+     *                     caller is interrupted.
+     */
+    public VelochainConnection lease(long timeout, TimeUnit unit)
+    throws IOException {
+
+        long start = System.nanoTime();
+        long timeoutNanos = unit.toNanos(timeout);
+
+        try {
+            while (!closed) {
+                long remaining = timeoutNanos - (System.nanoTime() - start);
+                if (remaining <= 0) {
+                    throw new IOException(
+                        "Timed out waiting for a connection.");
+                }
+
+                /* wake periodically so that a close is noticed. */
+                VelochainConnection conn = idle.poll(
+                    Math.min(remaining, CLOSED_CHECK_NANOS),
+                    TimeUnit.NANOSECONDS);
+                if (null != conn) {
+                    return new PooledConnection(conn);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while waiting for a connection.");
+        }
+
+        throw new IOException("Connection pool is closed.");
+    }
+
+    /**
+     * Get the number of connections which are currently idle.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Close the pool and every idle connection.  Leased connections are
+     * closed when they are returned.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        maintenance.shutdownNow();
+
+        VelochainConnection conn;
+        while (null != (conn = idle.poll())) {
+            closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Open the initial connections in parallel.
+     */
+    private void warm(int size) throws IOException {
+
+        ExecutorService warmup = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r, "velochain-pool-warmup");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<CompletableFuture<VelochainConnection>> connections =
+                new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                connections.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return factory.connect();
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, warmup));
+            }
+
+            IOException failure = null;
+            for (CompletableFuture<VelochainConnection> conn : connections) {
+                try {
+                    idle.add(conn.join());
+                } catch (CompletionException e) {
+                    if (null == failure) {
+                        failure = new IOException(
+                            "Could not open pooled connection.",
+                            e.getCause());
+                    }
+                }
+            }
+
+            if (null != failure) {
+                throw failure;
+            }
+        } finally {
+            warmup.shutdown();
+        }
+    }
+
+    /**
+     * Validate each connection which is idle when validation starts.
+     */
+    private void validateIdleConnections() {
+
+        for (int count = idle.size(); count > 0 && !closed; --count) {
+            VelochainConnection conn = idle.poll();
+            if (null == conn) {
+                return;
+            }
+
+            if (isValid(conn)) {
+                release(conn);
+            } else {
+                discard(conn);
+            }
+        }
+    }
+
+    /**
+     * Check a connection's status.  An asynchronous connection which does
+     * not answer within the validation interval is taken to be broken, so
+     * that a hung agent cannot stall the maintenance thread.
+     */
+    private boolean isValid(VelochainConnection conn) {
+
+        try {
+            if (conn instanceof AsyncVelochainConnection) {
+                return 0 == ((AsyncVelochainConnection)conn)
+                    .getConnectionStatusAsync()
+                    .get(retryDelayMillis, TimeUnit.MILLISECONDS);
+            }
+
+            return 0 == conn.getConnectionStatus();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException | IOException
+                 | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return a connection to the pool.
+     */
+    private void release(VelochainConnection conn) {
+
+        idle.add(conn);
+
+        /* the pool may have been closed while this connection was out. */
+        if (closed && idle.remove(conn)) {
+            closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Close a broken connection and replace it in the background.
+     */
+    private void discard(VelochainConnection conn) {
+
+        closeQuietly(conn);
+
+        try {
+            maintenance.execute(this::replace);
+        } catch (RejectedExecutionException e) {
+            /* the pool has been closed. */
+        }
+    }
+
+    /**
+     * Open a replacement connection, retrying until it succeeds or the pool
+     * is closed.
+     */
+    private void replace() {
+
+        if (closed) {
+            return;
+        }
+
+        try {
+            release(factory.connect());
+        } catch (IOException | RuntimeException e) {
+            try {
+                maintenance.schedule(
+                    this::replace, retryDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejected) {
+                /* the pool has been closed. */
+            }
+        }
+    }
+
+    private static void closeQuietly(VelochainConnection conn) {
+        try {
+            conn.close();
+        } catch (IOException | RuntimeException e) {
+            /* the connection is being abandoned anyway. */
+        }
+    }
+
+    /**
+     * A call made on a leased connection.
+     */
+    @FunctionalInterface
+    private interface Call<T> {
+        T call(VelochainConnection conn) throws IOException;
+    }
+
+    /**
+     * A leased connection.  Closing it returns the underlying connection to
+     * the pool, unless a call failed with an I/O error or an illegal state,
+     * in which case the connection is replaced.
+     */
+    private class PooledConnection implements VelochainConnection {
+
+        private VelochainConnection conn;
+        private boolean broken;
+
+        PooledConnection(VelochainConnection conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        public synchronized void close() {
+
+            if (null == conn) {
+                return;
+            }
+
+            if (broken) {
+                discard(conn);
+            } else {
+                release(conn);
+            }
+
+            conn = null;
+        }
+
+        private synchronized <T> T invoke(Call<T> call) throws IOException {
+
+            if (null == conn) {
+                throw new IOException("Connection returned to pool.");
+            }
+
+            /* only a failed channel or envelope session breaks the
+             * connection; errors in a request or its results do not. */
+            try {
+                return call.call(conn);
+            } catch (IOException | IllegalStateException e) {
+                broken = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public TransactionStatus submit(Certificate transaction)
+        throws IOException {
+
+            return invoke(c -> c.submit(transaction));
+        }
+
+        @Override
+        public List<TransactionStatus>
+        submitBatch(List<Certificate> transactions) throws IOException {
+
+            return invoke(c -> c.submitBatch(transactions));
+        }
+
+        @Override
+        public List<TransactionStatus>
+        submitAll(Iterator<Certificate> transactions) throws IOException {
+
+            return invoke(c -> c.submitAll(transactions));
+        }
+
+        @Override
+        public Map<UUID, Optional<Certificate>>
+        getBlocksByIds(Collection<UUID> blockIds) throws IOException {
+
+            return invoke(c -> c.getBlocksByIds(blockIds));
+        }
+
+        @Override
+        public Map<UUID, Optional<Certificate>>
+        getTransactionsByIds(Collection<UUID> txnIds) throws IOException {
+
+            return invoke(c -> c.getTransactionsByIds(txnIds));
+        }
+
+        @Override
+        public UUID getLatestBlockId() throws IOException {
+
+            return invoke(VelochainConnection::getLatestBlockId);
+        }
+
+        @Override
+        public Optional<UUID>
+        getNextBlockId(UUID blockId) throws IOException {
+
+            return invoke(c -> c.getNextBlockId(blockId));
+        }
+
+        @Override
+        public Optional<UUID>
+        getPrevBlockId(UUID blockId) throws IOException {
+
+            return invoke(c -> c.getPrevBlockId(blockId));
+        }
+
+        @Override
+        public Optional<UUID>
+        getTransactionBlockId(UUID txnId) throws IOException {
+
+            return invoke(c -> c.getTransactionBlockId(txnId));
+        }
+
+        @Override
+        public Optional<Certificate>
+        getBlockById(UUID blockId) throws IOException {
+
+            return invoke(c -> c.getBlockById(blockId));
+        }
+
+        @Override
+        public Optional<BlockRecord>
+        getBlockRecordById(UUID blockId) throws IOException {
+
+            return invoke(c -> c.getBlockRecordById(blockId));
+        }
+
+        @Override
+        public Optional<UUID>
+        getBlockIdByBlockHeight(long height) throws IOException {
+
+            return invoke(c -> c.getBlockIdByBlockHeight(height));
+        }
+
+        @Override
+        public Optional<Certificate>
+        getTransactionById(UUID txnId) throws IOException {
+
+            return invoke(c -> c.getTransactionById(txnId));
+        }
+
+        @Override
+        public Optional<TransactionRecord>
+        getTransactionRecordById(UUID txnId) throws IOException {
+
+            return invoke(c -> c.getTransactionRecordById(txnId));
+        }
+
+        @Override
+        public Optional<UUID>
+        getFirstTransactionIdForArtifactById(UUID artifactId)
+        throws IOException {
+
+            return invoke(
+                c -> c.getFirstTransactionIdForArtifactById(artifactId));
+        }
+
+        @Override
+        public Optional<UUID>
+        getLastTransactionIdForArtifactById(UUID artifactId)
+        throws IOException {
+
+            return invoke(
+                c -> c.getLastTransactionIdForArtifactById(artifactId));
+        }
+
+        @Override
+        public Optional<UUID>
+        getPreviousTransactionIdForTransactionById(UUID txnId)
+        throws IOException {
+
+            return invoke(
+                c -> c.getPreviousTransactionIdForTransactionById(txnId));
+        }
+
+        @Override
+        public Optional<UUID>
+        getNextTransactionIdForTransactionById(UUID txnId)
+        throws IOException {
+
+            return invoke(
+                c -> c.getNextTransactionIdForTransactionById(txnId));
+        }
+
+        @Override
+        public Integer
+        getConnectionStatus() throws IOException {
+
+            return invoke(VelochainConnection::getConnectionStatus);
+        }
+    }
+}
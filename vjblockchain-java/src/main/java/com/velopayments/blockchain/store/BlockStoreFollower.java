@@ -0,0 +1,114 @@
+package com.velopayments.blockchain.store;
+
+import com.velopayments.blockchain.cert.CertificateType;
+import com.velopayments.blockchain.client.BlockPublisher;
+import com.velopayments.blockchain.client.BlockRecord;
+import com.velopayments.blockchain.client.BlockSubscriber;
+import com.velopayments.blockchain.client.BlockSubscription;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Keep a {@link LocalBlockStore} up to date with the chain.
+ *
+ * The follower subscribes to a {@link BlockPublisher} from the latest block
+ * in the store, or from the root block if the store is empty, and appends
+ * each new block.  Blocks are requested in batches, so the store is never
+ * more than one batch behind the blocks the publisher has read.
+ */
+public class BlockStoreFollower implements BlockSubscriber {
+
+    /**
+     * The default number of blocks requested at a time.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final LocalBlockStore store;
+    private final int batchSize;
+    private BlockSubscription subscription;
+    private int remaining;
+    private volatile Throwable failure;
+    private volatile boolean completed;
+
+    /**
+     * Create a follower which appends to the given store.
+     *
+     * @param store         The store to keep up to date.
+     * @param batchSize     The number of blocks to request at a time.
+     */
+    public BlockStoreFollower(LocalBlockStore store, int batchSize) {
+
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(
+                "Batch size must be at least 1.");
+        }
+
+        this.store = store;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Start following the chain.
+     *
+     * @param publisher     The publisher of new blocks.
+     */
+    public void follow(BlockPublisher publisher) {
+
+        publisher.subscribe(
+            this, store.getLatestBlockId().orElse(CertificateType.ROOT_BLOCK));
+    }
+
+    /**
+     * Get the failure which stopped this follower, if any.
+     *
+     * @return the failure, or empty if the follower has not failed.
+     */
+    public Optional<Throwable> getFailure() {
+        return Optional.ofNullable(failure);
+    }
+
+    /**
+     * Check whether the publisher has completed this subscription.
+     *
+     * @return true if the publisher was closed.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public void onSubscribe(BlockSubscription subscription) {
+
+        this.subscription = subscription;
+        remaining = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(BlockRecord block) {
+
+        try {
+            store.append(block);
+        } catch (IOException | RuntimeException e) {
+            subscription.cancel();
+            failure = e;
+            return;
+        }
+
+        if (--remaining == 0) {
+            remaining = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        failure = error;
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+    }
+}
@@ -0,0 +1,327 @@
+package com.velopayments.blockchain.store;
+
+import com.velopayments.blockchain.cert.CertificateFieldIndex;
+import com.velopayments.blockchain.cert.Field;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The secondary indexes of a {@link LocalBlockStore}: block id to height,
+ * transaction id to its location in a block, and artifact id to the list of
+ * its transactions.
+ *
+ * Each index is an {@link OffHeapUuidMap}.  The transactions of an artifact
+ * form a list, linked through the transaction entries, with the first and
+ * last transaction held in the artifact entry.  A single writer indexes
+ * blocks, in height order, while any number of threads read.  Blocks are
+ * parsed in place with a {@link CertificateFieldIndex}, which the writer
+ * reuses for every block.
+ */
+final class ChainIndex {
+
+    /* | Transaction entry.                                            | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | DATA                                           | SIZE         | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | block height                                   |   8 bytes    | */
+    /* | offset of the certificate in the block         |   4 bytes    | */
+    /* | certificate length                             |   4 bytes    | */
+    /* | artifact id                                    |  16 bytes    | */
+    /* | previous transaction id for the artifact       |  16 bytes    | */
+    /* | next transaction id for the artifact           |  16 bytes    | */
+    /* | ---------------------------------------------- | ------------ | */
+    private static final int TXN_HEIGHT = 0;
+    private static final int TXN_OFFSET = 8;
+    private static final int TXN_LENGTH = 12;
+    private static final int TXN_ARTIFACT = 16;
+    private static final int TXN_PREV = 32;
+    private static final int TXN_NEXT = 48;
+    private static final int TXN_ENTRY_SIZE = 64;
+
+    /* | Artifact entry.                                               | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | DATA                                           | SIZE         | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | first transaction id                           |  16 bytes    | */
+    /* | last transaction id                            |  16 bytes    | */
+    /* | ---------------------------------------------- | ------------ | */
+    private static final int ARTIFACT_FIRST = 0;
+    private static final int ARTIFACT_LAST = 16;
+    private static final int ARTIFACT_ENTRY_SIZE = 32;
+
+    private static final int BLOCK_ENTRY_SIZE = 8;
+
+    private static final int UUID_SIZE = 16;
+
+    private final OffHeapUuidMap blocks;
+    private final OffHeapUuidMap transactions;
+    private final OffHeapUuidMap artifacts;
+    private final CertificateFieldIndex blockFields;
+    private final CertificateFieldIndex txnFields;
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    /**
+     * Create an empty index.
+     *
+     * @param expectedBlocks    The number of blocks to size the index for.
+     */
+    ChainIndex(long expectedBlocks) {
+
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+        this.blocks = new OffHeapUuidMap(BLOCK_ENTRY_SIZE, expectedBlocks);
+        this.transactions = new OffHeapUuidMap(TXN_ENTRY_SIZE, 0);
+        this.artifacts = new OffHeapUuidMap(ARTIFACT_ENTRY_SIZE, 0);
+        this.blockFields = new CertificateFieldIndex();
+        this.txnFields = new CertificateFieldIndex();
+    }
+
+    /**
+     * Index a block and each transaction wrapped in it.
+     *
+     * @param blockId       The block UUID.
+     * @param height        The block height.
+     * @param block         The block certificate, from position zero to its
+     *                      limit.
+     */
+    void addBlock(UUID blockId, long height, ByteBuffer block) {
+
+        writeLock.lock();
+        try {
+            blocks.putLong(blocks.insert(blockId), 0, height);
+
+            blockFields.parse(block, 0, block.limit());
+            for (int i = 0; i < blockFields.size(); ++i) {
+                if (blockFields.getFieldId(i)
+                        == Field.WRAPPED_TRANSACTION_TUPLE) {
+                    addTransaction(
+                        block, height, blockFields.getValueOffset(i),
+                        blockFields.getValueLength(i));
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Get the height of a block.
+     *
+     * @return the block height, or -1 if the block is not indexed.
+     */
+    long getBlockHeight(UUID blockId) {
+
+        readLock.lock();
+        try {
+            long slot = blocks.find(blockId);
+
+            return slot < 0 ? -1 : blocks.getLong(slot, 0);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Get the index entry for a transaction.
+     *
+     * @return the entry, or null if the transaction is not indexed.
+     */
+    TransactionEntry getTransaction(UUID txnId) {
+
+        readLock.lock();
+        try {
+            long slot = transactions.find(txnId);
+            if (slot < 0) {
+                return null;
+            }
+
+            return new TransactionEntry(
+                transactions.getLong(slot, TXN_HEIGHT),
+                transactions.getInt(slot, TXN_OFFSET),
+                transactions.getInt(slot, TXN_LENGTH),
+                transactions.getUuid(slot, TXN_ARTIFACT),
+                transactions.getUuid(slot, TXN_PREV),
+                transactions.getUuid(slot, TXN_NEXT));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Get the first transaction for an artifact.
+     *
+     * @return the transaction UUID, or null if the artifact is not indexed.
+     */
+    UUID getFirstTransactionId(UUID artifactId) {
+        return getArtifactLink(artifactId, ARTIFACT_FIRST);
+    }
+
+    /**
+     * Get the last transaction for an artifact.
+     *
+     * @return the transaction UUID, or null if the artifact is not indexed.
+     */
+    UUID getLastTransactionId(UUID artifactId) {
+        return getArtifactLink(artifactId, ARTIFACT_LAST);
+    }
+
+    /**
+     * Get the number of indexed transactions.
+     */
+    long getTransactionCount() {
+
+        readLock.lock();
+        try {
+            return transactions.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Read the first top level UUID field with the given id from a
+     * certificate.
+     *
+     * @param cert          The certificate, from position zero to its limit.
+     * @param fieldId       The field id to find.
+     *
+     * @return the UUID, or null if there is no such field.
+     */
+    static UUID getUuidField(ByteBuffer cert, int fieldId) {
+
+        return getUuid(cert, 0, cert.limit(), fieldId);
+    }
+
+    /**
+     * Read the id of the first transaction wrapped in a block.
+     *
+     * @param block         The block certificate, from position zero to its
+     *                      limit.
+     *
+     * @return the transaction UUID, or null if the block has no
+     * transactions.
+     */
+    static UUID getFirstWrappedTransactionId(ByteBuffer block) {
+
+        int txn = CertificateFieldIndex.findValue(
+            block, 0, block.limit(), Field.WRAPPED_TRANSACTION_TUPLE);
+        if (txn < 0) {
+            return null;
+        }
+
+        return getUuid(
+            block, txn, txn + valueLength(block, txn), Field.CERTIFICATE_ID);
+    }
+
+    /**
+     * Index a transaction, appending it to the list for its artifact.  A
+     * transaction without an id or an artifact id is not indexed, and a
+     * transaction which is already indexed keeps its first location.
+     */
+    private void addTransaction(
+        ByteBuffer block, long height, int offset, int length) {
+
+        txnFields.parse(block, offset, offset + length);
+        int idField = txnFields.indexOf(Field.CERTIFICATE_ID);
+        int artifactField = txnFields.indexOf(Field.ARTIFACT_ID);
+        if (idField < 0 || artifactField < 0
+                || txnFields.getValueLength(idField) < UUID_SIZE
+                || txnFields.getValueLength(artifactField) < UUID_SIZE) {
+            return;
+        }
+
+        UUID txnId = getUuid(block, txnFields.getValueOffset(idField));
+        UUID artifactId =
+            getUuid(block, txnFields.getValueOffset(artifactField));
+        if (transactions.find(txnId) >= 0) {
+            return;
+        }
+
+        long artifact = artifacts.insert(artifactId);
+        UUID last = artifacts.getUuid(artifact, ARTIFACT_LAST);
+        if (null == last) {
+            artifacts.putUuid(artifact, ARTIFACT_FIRST, txnId);
+        }
+        artifacts.putUuid(artifact, ARTIFACT_LAST, txnId);
+
+        if (null != last) {
+            transactions.putUuid(
+                transactions.find(last), TXN_NEXT, txnId);
+        }
+
+        long txn = transactions.insert(txnId);
+        transactions.putLong(txn, TXN_HEIGHT, height);
+        transactions.putInt(txn, TXN_OFFSET, offset);
+        transactions.putInt(txn, TXN_LENGTH, length);
+        transactions.putUuid(txn, TXN_ARTIFACT, artifactId);
+        transactions.putUuid(txn, TXN_PREV, last);
+    }
+
+    private UUID getArtifactLink(UUID artifactId, int link) {
+
+        readLock.lock();
+        try {
+            long slot = artifacts.find(artifactId);
+
+            return slot < 0 ? null : artifacts.getUuid(slot, link);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Read the first UUID field with the given id between two offsets,
+     * which hold a certificate.
+     *
+     * @return the UUID, or null if there is no such field.
+     */
+    private static UUID getUuid(
+        ByteBuffer cert, int start, int end, int fieldId) {
+
+        int value = CertificateFieldIndex.findValue(cert, start, end, fieldId);
+        if (value < 0 || valueLength(cert, value) < UUID_SIZE) {
+            return null;
+        }
+
+        return getUuid(cert, value);
+    }
+
+    private static int valueLength(ByteBuffer cert, int value) {
+        return cert.getShort(value - 2) & 0xFFFF;
+    }
+
+    private static UUID getUuid(ByteBuffer cert, int offset) {
+        return new UUID(cert.getLong(offset), cert.getLong(offset + 8));
+    }
+
+    /**
+     * The index entry for a transaction.
+     */
+    static final class TransactionEntry {
+
+        final long height;
+        final int offset;
+        final int length;
+        final UUID artifactId;
+        final UUID previousId;
+        final UUID nextId;
+
+        TransactionEntry(
+            long height, int offset, int length, UUID artifactId,
+            UUID previousId, UUID nextId) {
+
+            this.height = height;
+            this.offset = offset;
+            this.length = length;
+            this.artifactId = artifactId;
+            this.previousId = previousId;
+            this.nextId = nextId;
+        }
+    }
+}
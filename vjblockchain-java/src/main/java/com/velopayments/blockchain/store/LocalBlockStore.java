@@ -0,0 +1,688 @@
+package com.velopayments.blockchain.store;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.cert.Field;
+import com.velopayments.blockchain.client.BlockRecord;
+import com.velopayments.blockchain.client.TransactionRecord;
+import com.velopayments.blockchain.util.UuidUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A local, append-only mirror of the blocks in the chain.
+ *
+ * Raw block certificates are appended, in height order, to segment files
+ * which are memory mapped at their full capacity, so reads are served
+ * straight from mapped memory.  A height index file holds the location of
+ * each block, and is mapped in the same way.
+ *
+ * Secondary indexes from block id to height, from transaction id to its
+ * location in a block, and from artifact id to its transactions are held
+ * in direct memory, off the Java heap.  They are rebuilt from the stored
+ * blocks when the store is opened, so every query which a
+ * {@link com.velopayments.blockchain.client.VelochainConnection} answers
+ * can be answered from the store without a round trip to an agent.
+ *
+ * Blocks are appended by a single writer, typically a
+ * {@link BlockStoreFollower}, while any number of threads read.
+ */
+public class LocalBlockStore implements Closeable {
+
+    /**
+     * The default capacity of each segment file, in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The state reported for every stored transaction.  The store does not
+     * hold the state reported by the agent, but every transaction it holds
+     * has been canonized into a block.
+     */
+    public static final int CANONIZED_TRANSACTION_STATE = 0;
+
+    /* | Index file.                                                   | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | DATA                                           | SIZE         | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | height of the first block                      |   8 bytes    | */
+    /* | number of blocks                               |   8 bytes    | */
+    /* | location of each block, in height order        |   8 bytes    | */
+    /* | ---------------------------------------------- | ------------ | */
+    private static final int INDEX_HEADER_SIZE = 16;
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final int INDEX_GROWTH_ENTRIES = 64 * 1024;
+
+    /* | Segment record.                                               | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | DATA                                           | SIZE         | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | block id                                       |  16 bytes    | */
+    /* | certificate length                             |   4 bytes    | */
+    /* | certificate                                    |   n bytes    | */
+    /* | ---------------------------------------------- | ------------ | */
+    private static final int RECORD_HEADER_SIZE = 20;
+
+    private static final String INDEX_FILE = "heights.idx";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FileChannel indexChannel;
+    private final List<Segment> segments;
+    private ChainIndex chainIndex;
+    private volatile MappedByteBuffer index;
+    private volatile long firstHeight;
+    private volatile long count;
+    private int appendPosition;
+
+    /**
+     * Open or create a block store with the default segment size.
+     *
+     * @param directory     The directory holding the store's files.
+     *
+     * @throws IOException if the store could not be opened.
+     */
+    public LocalBlockStore(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open or create a block store.
+     *
+     * @param directory     The directory holding the store's files.
+     * @param segmentSize   The capacity of each new segment file, in bytes.
+     *                      A block larger than this gets a segment of its
+     *                      own.
+     *
+     * @throws IOException if the store could not be opened.
+     */
+    public LocalBlockStore(Path directory, int segmentSize)
+    throws IOException {
+
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException(
+                "Segment size must be larger than a record header.");
+        }
+
+        Files.createDirectories(directory);
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segments = new CopyOnWriteArrayList<>();
+        this.indexChannel = FileChannel.open(
+            directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Append a block, checking that it follows the latest block.
+     *
+     * @param block         The block to append.
+     *
+     * @throws IOException if the block could not be written.
+     */
+    public synchronized void append(BlockRecord block) throws IOException {
+
+        Optional<UUID> latest = getLatestBlockId();
+        if (latest.isPresent()
+                && !latest.get().equals(block.getPreviousBlockId())) {
+            throw new IllegalArgumentException(
+                "Block " + block.getBlockId() + " does not follow block "
+                + latest.get());
+        }
+
+        append(block.getBlockHeight(), block.getBlockId(),
+               block.getCertificate());
+    }
+
+    /**
+     * Append a block.
+     *
+     * @param height        The block height, which must be one more than the
+     *                      height of the latest block, if there is one.
+     * @param blockId       The block UUID.
+     * @param block         The block certificate.
+     *
+     * @throws IOException if the block could not be written.
+     */
+    public synchronized void append(long height, UUID blockId,
+                                    Certificate block) throws IOException {
+
+        if (count > 0 && height != firstHeight + count) {
+            throw new IllegalArgumentException(
+                "Expected block height " + (firstHeight + count)
+                + " but got " + height);
+        }
+        if (chainIndex.getBlockHeight(blockId) >= 0) {
+            throw new IllegalArgumentException(
+                "Block " + blockId + " is already stored.");
+        }
+
+        int recordSize = RECORD_HEADER_SIZE + block.size();
+        if (segments.isEmpty()
+                || lastSegment().capacity() - appendPosition < recordSize) {
+            addSegment(Math.max(segmentSize, recordSize));
+        }
+
+        /* the block is written before the index entry which makes it
+         * visible. */
+        int segmentNumber = segments.size() - 1;
+        ByteBuffer record = lastSegment().buffer.duplicate();
+        record.position(appendPosition);
+        record.putLong(blockId.getMostSignificantBits());
+        record.putLong(blockId.getLeastSignificantBits());
+        record.putInt(block.size());
+        record.put(block.asByteBuffer());
+
+        ensureIndexCapacity(count + 1);
+        index.putLong(
+            indexOffset(count),
+            ((long)segmentNumber << 32) | appendPosition);
+        if (0 == count) {
+            index.putLong(0, height);
+            firstHeight = height;
+        }
+        index.putLong(8, count + 1);
+
+        appendPosition += recordSize;
+        chainIndex.addBlock(blockId, height, block.asByteBuffer());
+        ++count;
+    }
+
+    /**
+     * Get a block certificate.
+     *
+     * @param blockId       The block UUID.
+     *
+     * @return the block certificate, or empty if the block is not stored.
+     */
+    public Optional<Certificate> getBlockById(UUID blockId) {
+
+        long height = chainIndex.getBlockHeight(blockId);
+        if (height < 0) {
+            return Optional.empty();
+        }
+
+        ByteBuffer cert = certificate(height - firstHeight);
+
+        return Optional.of(copy(cert, 0, cert.limit()));
+    }
+
+    /**
+     * Get a block certificate, along with its metadata.
+     *
+     * The previous block UUID is read from the block certificate for the
+     * first stored block, and the next block UUID is empty for the latest
+     * stored block.
+     *
+     * @param blockId       The block UUID.
+     *
+     * @return the block record, or empty if the block is not stored.
+     */
+    public Optional<BlockRecord> getBlockRecordById(UUID blockId) {
+
+        long height = chainIndex.getBlockHeight(blockId);
+        if (height < 0) {
+            return Optional.empty();
+        }
+
+        ByteBuffer cert = certificate(height - firstHeight);
+
+        return Optional.of(
+            new BlockRecord(
+                blockId, prevBlockId(height, cert),
+                getBlockIdByBlockHeight(height + 1),
+                orNil(ChainIndex.getFirstWrappedTransactionId(cert)),
+                height, copy(cert, 0, cert.limit())));
+    }
+
+    /**
+     * Get the UUID of the block before a block.
+     *
+     * @param blockId       The block UUID.
+     *
+     * @return the previous block UUID, or empty if the block is not stored.
+     */
+    public Optional<UUID> getPrevBlockId(UUID blockId) {
+
+        long height = chainIndex.getBlockHeight(blockId);
+        if (height < 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(
+            prevBlockId(height, certificate(height - firstHeight)));
+    }
+
+    /**
+     * Get the UUID of the block at a given height.
+     *
+     * @param height        The block height.
+     *
+     * @return the block UUID, or empty if no block at this height is stored.
+     */
+    public Optional<UUID> getBlockIdByBlockHeight(long height) {
+
+        long entry = height - firstHeight;
+        if (entry < 0 || entry >= count) {
+            return Optional.empty();
+        }
+
+        return Optional.of(blockId(entry));
+    }
+
+    /**
+     * Get the height of a block.
+     *
+     * @param blockId       The block UUID.
+     *
+     * @return the block height, or empty if the block is not stored.
+     */
+    public Optional<Long> getBlockHeight(UUID blockId) {
+
+        long height = chainIndex.getBlockHeight(blockId);
+
+        return height < 0 ? Optional.empty() : Optional.of(height);
+    }
+
+    /**
+     * Get a transaction certificate.
+     *
+     * @param txnId         The transaction UUID.
+     *
+     * @return the transaction certificate, or empty if no stored block holds
+     * the transaction.
+     */
+    public Optional<Certificate> getTransactionById(UUID txnId) {
+
+        ChainIndex.TransactionEntry txn = chainIndex.getTransaction(txnId);
+        if (null == txn) {
+            return Optional.empty();
+        }
+
+        return Optional.of(
+            copy(certificate(txn.height - firstHeight), txn.offset,
+                 txn.length));
+    }
+
+    /**
+     * Get a transaction certificate, along with its metadata.
+     *
+     * @param txnId         The transaction UUID.
+     *
+     * @return the transaction record, or empty if no stored block holds the
+     * transaction.
+     */
+    public Optional<TransactionRecord> getTransactionRecordById(UUID txnId) {
+
+        ChainIndex.TransactionEntry txn = chainIndex.getTransaction(txnId);
+        if (null == txn) {
+            return Optional.empty();
+        }
+
+        long entry = txn.height - firstHeight;
+
+        return Optional.of(
+            new TransactionRecord(
+                txnId, Optional.ofNullable(txn.previousId),
+                Optional.ofNullable(txn.nextId), txn.artifactId,
+                blockId(entry), CANONIZED_TRANSACTION_STATE,
+                copy(certificate(entry), txn.offset, txn.length)));
+    }
+
+    /**
+     * Get the UUID of the block holding a transaction.
+     *
+     * @param txnId         The transaction UUID.
+     *
+     * @return the block UUID, or empty if no stored block holds the
+     * transaction.
+     */
+    public Optional<UUID> getTransactionBlockId(UUID txnId) {
+
+        ChainIndex.TransactionEntry txn = chainIndex.getTransaction(txnId);
+        if (null == txn) {
+            return Optional.empty();
+        }
+
+        return Optional.of(blockId(txn.height - firstHeight));
+    }
+
+    /**
+     * Get the first stored transaction for an artifact.
+     *
+     * @param artifactId    The artifact UUID.
+     *
+     * @return the transaction UUID, or empty if no stored transaction
+     * modifies the artifact.
+     */
+    public Optional<UUID> getFirstTransactionIdForArtifactById(
+        UUID artifactId) {
+
+        return Optional.ofNullable(
+            chainIndex.getFirstTransactionId(artifactId));
+    }
+
+    /**
+     * Get the last stored transaction for an artifact.
+     *
+     * @param artifactId    The artifact UUID.
+     *
+     * @return the transaction UUID, or empty if no stored transaction
+     * modifies the artifact.
+     */
+    public Optional<UUID> getLastTransactionIdForArtifactById(
+        UUID artifactId) {
+
+        return Optional.ofNullable(
+            chainIndex.getLastTransactionId(artifactId));
+    }
+
+    /**
+     * Get the stored transaction before a transaction, for the same
+     * artifact.
+     *
+     * @param txnId         The transaction UUID.
+     *
+     * @return the previous transaction UUID, or empty if there is none.
+     */
+    public Optional<UUID> getPreviousTransactionIdForTransactionById(
+        UUID txnId) {
+
+        ChainIndex.TransactionEntry txn = chainIndex.getTransaction(txnId);
+
+        return null == txn
+            ? Optional.empty() : Optional.ofNullable(txn.previousId);
+    }
+
+    /**
+     * Get the stored transaction after a transaction, for the same artifact.
+     *
+     * @param txnId         The transaction UUID.
+     *
+     * @return the next transaction UUID, or empty if there is none.
+     */
+    public Optional<UUID> getNextTransactionIdForTransactionById(UUID txnId) {
+
+        ChainIndex.TransactionEntry txn = chainIndex.getTransaction(txnId);
+
+        return null == txn
+            ? Optional.empty() : Optional.ofNullable(txn.nextId);
+    }
+
+    /**
+     * Get the number of transactions in the stored blocks.
+     *
+     * @return the transaction count.
+     */
+    public long getTransactionCount() {
+        return chainIndex.getTransactionCount();
+    }
+
+    /**
+     * Get the UUID of the latest stored block.
+     *
+     * @return the latest block UUID, or empty if the store is empty.
+     */
+    public Optional<UUID> getLatestBlockId() {
+
+        long n = count;
+        if (0 == n) {
+            return Optional.empty();
+        }
+
+        return getBlockIdByBlockHeight(firstHeight + n - 1);
+    }
+
+    /**
+     * Get the number of stored blocks.
+     *
+     * @return the block count.
+     */
+    public long getBlockCount() {
+        return count;
+    }
+
+    /**
+     * Force every appended block to storage.
+     *
+     * @throws IOException if the files could not be written.
+     */
+    public synchronized void flush() throws IOException {
+
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+        if (null != index) {
+            index.force();
+        }
+    }
+
+    /**
+     * Flush and close the store.
+     *
+     * @throws IOException if the files could not be written or closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+            flush();
+        } finally {
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+            indexChannel.close();
+        }
+    }
+
+    /**
+     * Read the index and map the segments of an existing store.
+     */
+    private void load() throws IOException {
+
+        List<Path> segmentFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segmentFiles.add(file);
+            }
+        }
+        segmentFiles.sort(null);
+
+        for (int i = 0; i < segmentFiles.size(); ++i) {
+            if (!segmentFiles.get(i).equals(segmentPath(i))) {
+                throw new IOException(
+                    "Missing segment " + segmentPath(i));
+            }
+            segments.add(new Segment(segmentFiles.get(i), 0));
+        }
+
+        if (indexChannel.size() >= INDEX_HEADER_SIZE) {
+            ensureIndexCapacity(0);
+            firstHeight = index.getLong(0);
+            count = index.getLong(8);
+        }
+        ensureIndexCapacity(count);
+
+        chainIndex = new ChainIndex(count);
+        for (long entry = 0; entry < count; ++entry) {
+            chainIndex.addBlock(
+                blockId(entry), firstHeight + entry, certificate(entry));
+        }
+
+        /* appends continue after the last indexed block; anything written
+         * after it was never indexed, and is overwritten. */
+        if (count > 0) {
+            long location = index.getLong(indexOffset(count - 1));
+            int segmentNumber = (int)(location >>> 32);
+            ByteBuffer last = record(count - 1);
+
+            while (segments.size() > segmentNumber + 1) {
+                Segment unused = segments.remove(segments.size() - 1);
+                unused.channel.close();
+                Files.delete(unused.path);
+            }
+            appendPosition =
+                (int)location + RECORD_HEADER_SIZE + last.getInt(16);
+        } else {
+            for (Segment unused : segments) {
+                unused.channel.close();
+                Files.delete(unused.path);
+            }
+            segments.clear();
+        }
+    }
+
+    /**
+     * Get a view of the record for an index entry, starting at the record.
+     */
+    private ByteBuffer record(long entry) {
+
+        long location = index.getLong(indexOffset(entry));
+        ByteBuffer record =
+            segments.get((int)(location >>> 32)).buffer.duplicate();
+        record.position((int)location);
+
+        return record.slice();
+    }
+
+    /**
+     * Get a view of the certificate for an index entry, from position zero
+     * to the end of the certificate.
+     */
+    private ByteBuffer certificate(long entry) {
+
+        ByteBuffer record = record(entry);
+        record.limit(RECORD_HEADER_SIZE + record.getInt(16));
+        record.position(RECORD_HEADER_SIZE);
+
+        return record.slice();
+    }
+
+    private UUID blockId(long entry) {
+
+        ByteBuffer record = record(entry);
+
+        return new UUID(record.getLong(0), record.getLong(8));
+    }
+
+    /**
+     * Copy part of a mapped certificate onto the heap.
+     */
+    private static Certificate copy(ByteBuffer cert, int offset, int length) {
+
+        byte[] bytes = new byte[length];
+        ByteBuffer source = cert.duplicate();
+        source.position(offset);
+        source.get(bytes);
+
+        return Certificate.fromByteArray(bytes);
+    }
+
+    private static UUID orNil(UUID uuid) {
+        return null == uuid ? UuidUtil.EMPTY_UUID : uuid;
+    }
+
+    /**
+     * Get the UUID of the block before the block at a given height, reading
+     * it from the block certificate if that block is not stored.
+     */
+    private UUID prevBlockId(long height, ByteBuffer cert) {
+
+        return getBlockIdByBlockHeight(height - 1).orElseGet(
+            () -> orNil(
+                ChainIndex.getUuidField(cert, Field.PREVIOUS_BLOCK_UUID)));
+    }
+
+    private Segment lastSegment() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private void addSegment(int capacity) throws IOException {
+        segments.add(new Segment(segmentPath(segments.size()), capacity));
+        appendPosition = 0;
+    }
+
+    private Path segmentPath(int segmentNumber) {
+        return directory.resolve(
+            String.format("%s%06d%s", SEGMENT_PREFIX, segmentNumber,
+                          SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Get the offset of an index entry.  A single mapping holds up to 2 GB,
+     * or some 268 million blocks.
+     */
+    private static int indexOffset(long entry) {
+        return Math.toIntExact(INDEX_HEADER_SIZE + entry * INDEX_ENTRY_SIZE);
+    }
+
+    /**
+     * Remap the index if it cannot hold the given number of entries.
+     * Readers holding the previous mapping may keep using it.
+     */
+    private void ensureIndexCapacity(long entries) throws IOException {
+
+        if (null != index && index.capacity() >= indexOffset(entries)) {
+            return;
+        }
+
+        long capacity = INDEX_HEADER_SIZE
+            + (entries / INDEX_GROWTH_ENTRIES + 1) * INDEX_GROWTH_ENTRIES
+              * INDEX_ENTRY_SIZE;
+        index = indexChannel.map(
+            FileChannel.MapMode.READ_WRITE, 0,
+            Math.max(capacity, indexChannel.size()));
+    }
+
+    /**
+     * A segment file, mapped at its full capacity.
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Open a segment, creating it with the given capacity if it does not
+         * exist.
+         */
+        Segment(Path path, int capacity) throws IOException {
+
+            this.path = path;
+            this.channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            this.buffer = channel.map(
+                FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(capacity, channel.size()));
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.velopayments.blockchain.store;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.cert.CertificateType;
+import com.velopayments.blockchain.client.BlockRecord;
+import com.velopayments.blockchain.client.TransactionRecord;
+import com.velopayments.blockchain.client.TransactionStatus;
+import com.velopayments.blockchain.client.VelochainConnection;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A read only connection which answers every query from a
+ * {@link LocalBlockStore}, without a round trip to an agent.
+ *
+ * Answers are as of the latest stored block, so a store kept up to date by
+ * a {@link BlockStoreFollower} lags the agent by at most one batch.
+ * Transactions cannot be submitted.
+ */
+public class LocalVelochainConnection implements VelochainConnection {
+
+    private final LocalBlockStore store;
+
+    /**
+     * Create a connection to a block store.  The store remains owned by the
+     * caller, and is not closed with this connection.
+     *
+     * @param store         The block store to query.
+     */
+    public LocalVelochainConnection(LocalBlockStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Transactions cannot be submitted to a local store.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public TransactionStatus submit(Certificate transaction) {
+        throw new UnsupportedOperationException(
+            "Transactions cannot be submitted to a local block store.");
+    }
+
+    /**
+     * Get the latest stored block UUID.
+     *
+     * @return the latest block UUID, or the root block UUID if the store is
+     * empty.
+     */
+    @Override
+    public UUID getLatestBlockId() {
+        return store.getLatestBlockId().orElse(CertificateType.ROOT_BLOCK);
+    }
+
+    @Override
+    public Optional<UUID>
+    getNextBlockId(UUID blockId) {
+
+        return store.getBlockHeight(blockId).flatMap(
+            height -> store.getBlockIdByBlockHeight(height + 1));
+    }
+
+    @Override
+    public Optional<UUID>
+    getPrevBlockId(UUID blockId) {
+
+        return store.getPrevBlockId(blockId);
+    }
+
+    @Override
+    public Optional<UUID>
+    getTransactionBlockId(UUID txnId) {
+
+        return store.getTransactionBlockId(txnId);
+    }
+
+    @Override
+    public Optional<Certificate>
+    getBlockById(UUID blockId) {
+
+        return store.getBlockById(blockId);
+    }
+
+    @Override
+    public Optional<BlockRecord>
+    getBlockRecordById(UUID blockId) {
+
+        return store.getBlockRecordById(blockId);
+    }
+
+    @Override
+    public Optional<UUID>
+    getBlockIdByBlockHeight(long height) {
+
+        return store.getBlockIdByBlockHeight(height);
+    }
+
+    @Override
+    public Optional<Certificate>
+    getTransactionById(UUID txnId) {
+
+        return store.getTransactionById(txnId);
+    }
+
+    @Override
+    public Optional<TransactionRecord>
+    getTransactionRecordById(UUID txnId) {
+
+        return store.getTransactionRecordById(txnId);
+    }
+
+    @Override
+    public Optional<UUID>
+    getFirstTransactionIdForArtifactById(UUID artifactId) {
+
+        return store.getFirstTransactionIdForArtifactById(artifactId);
+    }
+
+    @Override
+    public Optional<UUID>
+    getLastTransactionIdForArtifactById(UUID artifactId) {
+
+        return store.getLastTransactionIdForArtifactById(artifactId);
+    }
+
+    @Override
+    public Optional<UUID>
+    getPreviousTransactionIdForTransactionById(UUID txnId) {
+
+        return store.getPreviousTransactionIdForTransactionById(txnId);
+    }
+
+    @Override
+    public Optional<UUID>
+    getNextTransactionIdForTransactionById(UUID txnId) {
+
+        return store.getNextTransactionIdForTransactionById(txnId);
+    }
+
+    /**
+     * A local store is always available.
+     *
+     * @return 0.
+     */
+    @Override
+    public Integer
+    getConnectionStatus() {
+
+        return 0;
+    }
+}
@@ -0,0 +1,275 @@
+package com.velopayments.blockchain.store;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * An open addressing hash map from UUID to a fixed size value, held in
+ * direct memory so that it does not grow the Java heap.
+ *
+ * Keys are stored as two longs, and the nil UUID marks an empty slot, so it
+ * cannot be used as a key.  Slots are addressed by number, and values are
+ * read and written in place at an offset within a slot.  The table is
+ * split into pages, so it may grow beyond the 2 GB limit of a single
+ * buffer.
+ *
+ * This map is not thread safe.  Inserting may grow the table, which moves
+ * every entry, so slot numbers are only valid until the next insert.
+ */
+final class OffHeapUuidMap {
+
+    /* | Slot.                                                         | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | DATA                                           | SIZE         | */
+    /* | ---------------------------------------------- | ------------ | */
+    /* | key, most significant bits                     |   8 bytes    | */
+    /* | key, least significant bits                    |   8 bytes    | */
+    /* | value                                          |   n bytes    | */
+    /* | ---------------------------------------------- | ------------ | */
+    private static final int KEY_SIZE = 16;
+    private static final int MAX_PAGE_SHIFT = 20;
+    private static final int MIN_CAPACITY = 16;
+    private static final double MAX_LOAD = 0.7;
+
+    private final int valueSize;
+    private final int slotSize;
+    private ByteBuffer[] pages;
+    private int pageShift;
+    private long capacity;
+    private long size;
+
+    /**
+     * Create a map.
+     *
+     * @param valueSize     The size of each value, in bytes.
+     * @param expected      The number of entries to size the table for.
+     */
+    OffHeapUuidMap(int valueSize, long expected) {
+
+        this.valueSize = valueSize;
+        this.slotSize = KEY_SIZE + valueSize;
+
+        long slots = MIN_CAPACITY;
+        while (slots * MAX_LOAD < expected) {
+            slots <<= 1;
+        }
+        allocate(slots);
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the entry count.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Find the slot holding a key.
+     *
+     * @param key           The key to find.
+     *
+     * @return the slot number, or -1 if the key is not in the map.
+     */
+    long find(UUID key) {
+        return find(key.getMostSignificantBits(),
+                    key.getLeastSignificantBits());
+    }
+
+    /**
+     * Find the slot holding a key, given as two longs.
+     *
+     * @param msb           The most significant bits of the key.
+     * @param lsb           The least significant bits of the key.
+     *
+     * @return the slot number, or -1 if the key is not in the map.
+     */
+    long find(long msb, long lsb) {
+
+        if (0 == msb && 0 == lsb) {
+            return -1;
+        }
+
+        long mask = capacity - 1;
+        for (long slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            ByteBuffer page = page(slot);
+            int offset = offset(slot);
+            long slotMsb = page.getLong(offset);
+            long slotLsb = page.getLong(offset + 8);
+
+            if (slotMsb == msb && slotLsb == lsb) {
+                return slot;
+            }
+            if (0 == slotMsb && 0 == slotLsb) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Insert a key, if it is not already in the map.  The value of a new
+     * entry is zeroed.
+     *
+     * @param key           The key to insert, which must not be nil.
+     *
+     * @return the slot number holding the key.
+     */
+    long insert(UUID key) {
+
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        if (0 == msb && 0 == lsb) {
+            throw new IllegalArgumentException(
+                "The nil UUID cannot be used as a key.");
+        }
+
+        long slot = find(msb, lsb);
+        if (slot >= 0) {
+            return slot;
+        }
+
+        if (size + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+
+        slot = emptySlot(msb, lsb);
+        ByteBuffer page = page(slot);
+        int offset = offset(slot);
+        page.putLong(offset, msb);
+        page.putLong(offset + 8, lsb);
+        ++size;
+
+        return slot;
+    }
+
+    long getLong(long slot, int valueOffset) {
+        return page(slot).getLong(offset(slot) + KEY_SIZE + valueOffset);
+    }
+
+    void putLong(long slot, int valueOffset, long value) {
+        page(slot).putLong(offset(slot) + KEY_SIZE + valueOffset, value);
+    }
+
+    int getInt(long slot, int valueOffset) {
+        return page(slot).getInt(offset(slot) + KEY_SIZE + valueOffset);
+    }
+
+    void putInt(long slot, int valueOffset, int value) {
+        page(slot).putInt(offset(slot) + KEY_SIZE + valueOffset, value);
+    }
+
+    /**
+     * Read a UUID value.
+     *
+     * @return the UUID, or null if the value is the nil UUID.
+     */
+    UUID getUuid(long slot, int valueOffset) {
+
+        long msb = getLong(slot, valueOffset);
+        long lsb = getLong(slot, valueOffset + 8);
+
+        return 0 == msb && 0 == lsb ? null : new UUID(msb, lsb);
+    }
+
+    /**
+     * Write a UUID value.  A null UUID is written as the nil UUID.
+     */
+    void putUuid(long slot, int valueOffset, UUID value) {
+
+        putLong(slot, valueOffset,
+                null == value ? 0 : value.getMostSignificantBits());
+        putLong(slot, valueOffset + 8,
+                null == value ? 0 : value.getLeastSignificantBits());
+    }
+
+    /**
+     * Find the first empty slot for a key which is not in the map.
+     */
+    private long emptySlot(long msb, long lsb) {
+
+        long mask = capacity - 1;
+        for (long slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            ByteBuffer page = page(slot);
+            int offset = offset(slot);
+            if (0 == page.getLong(offset) && 0 == page.getLong(offset + 8)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Double the table, and move every entry into it.
+     */
+    private void grow() {
+
+        ByteBuffer[] oldPages = pages;
+        int oldPageSlots = 1 << pageShift;
+
+        allocate(capacity << 1);
+
+        byte[] value = new byte[valueSize];
+        for (ByteBuffer oldPage : oldPages) {
+            for (int i = 0; i < oldPageSlots; ++i) {
+                int oldOffset = i * slotSize;
+                long msb = oldPage.getLong(oldOffset);
+                long lsb = oldPage.getLong(oldOffset + 8);
+                if (0 == msb && 0 == lsb) {
+                    continue;
+                }
+
+                long slot = emptySlot(msb, lsb);
+                ByteBuffer page = page(slot).duplicate();
+                page.position(offset(slot));
+                page.putLong(msb);
+                page.putLong(lsb);
+
+                ByteBuffer old = oldPage.duplicate();
+                old.position(oldOffset + KEY_SIZE);
+                old.get(value);
+                page.put(value);
+            }
+        }
+    }
+
+    private void allocate(long slots) {
+
+        int shift = Math.min(
+            Long.numberOfTrailingZeros(slots), MAX_PAGE_SHIFT);
+        int pageCount = Math.toIntExact(slots >>> shift);
+
+        ByteBuffer[] newPages = new ByteBuffer[pageCount];
+        for (int i = 0; i < pageCount; ++i) {
+            newPages[i] = ByteBuffer.allocateDirect(
+                Math.multiplyExact(1 << shift, slotSize));
+        }
+
+        pages = newPages;
+        pageShift = shift;
+        capacity = slots;
+    }
+
+    private ByteBuffer page(long slot) {
+        return pages[(int)(slot >>> pageShift)];
+    }
+
+    private int offset(long slot) {
+        return (int)(slot & ((1L << pageShift) - 1)) * slotSize;
+    }
+
+    /**
+     * Mix both halves of a key, so that UUIDs differing in any bits spread
+     * across the table.
+     */
+    private static long hash(long msb, long lsb) {
+
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+}
@@ -35,6 +35,28 @@ public class ByteUtil {
                 .order(ByteOrder.BIG_ENDIAN).getLong();
     }
 
+    /**
+     * Read a 4 byte big endian value in place, without copying it out of the
+     * array.
+     *
+     * @param val           the array containing the value
+     * @param offset        the offset of the value in the array
+     *
+     * @return the unsigned value
+     */
+    public static long ntohl(byte[] val, int offset)
+    {
+        if (offset < 0 || val.length - offset < 4)
+        {
+            throw new IllegalArgumentException("expected 4 bytes at offset");
+        }
+
+        return ((val[offset]     & 0xFFL) << 24)
+             | ((val[offset + 1] & 0xFFL) << 16)
+             | ((val[offset + 2] & 0xFFL) <<  8)
+             |  (val[offset + 3] & 0xFFL);
+    }
+
     public static long ntohll(byte[] val)
     {
         if (val.length != 8)
@@ -46,6 +68,25 @@ public class ByteUtil {
                 .order(ByteOrder.BIG_ENDIAN).getLong();
     }
 
+    /**
+     * Read an 8 byte big endian value in place, without copying it out of
+     * the array.
+     *
+     * @param val           the array containing the value
+     * @param offset        the offset of the value in the array
+     *
+     * @return the value
+     */
+    public static long ntohll(byte[] val, int offset)
+    {
+        if (offset < 0 || val.length - offset < 8)
+        {
+            throw new IllegalArgumentException("expected 8 bytes at offset");
+        }
+
+        return (ntohl(val, offset) << 32) | ntohl(val, offset + 4);
+    }
+
     /**
      * Convert a long value to a byte array
      *
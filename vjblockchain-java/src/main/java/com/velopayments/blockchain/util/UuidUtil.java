@@ -56,6 +56,22 @@ public class UuidUtil {
         return new UUID(high, low);
     }
 
+    /**
+     * Convert 16 bytes of an array, starting at the given offset, to a UUID,
+     * without copying them out of the array.  The bytes are converted using
+     * Big Endian format.
+     *
+     * @param bytes byte array containing the UUID
+     * @param offset offset of the UUID in the array
+     * @return uuid
+     */
+    public static UUID getUUIDFromBytes(byte[] bytes, int offset) {
+        long high = ByteUtil.ntohll(bytes, offset);
+        long low = ByteUtil.ntohll(bytes, offset + 8);
+
+        return new UUID(high, low);
+    }
+
     /**
      * Convert byte array to an Optional<UUID>.  If the byte array contains
      * all zeros, the returned Optional is empty.
@@ -72,4 +88,22 @@ public class UuidUtil {
         return Optional.of(uuid);
     }
 
+    /**
+     * Convert 16 bytes of an array, starting at the given offset, to an
+     * Optional<UUID>.  If the bytes are all zero, the returned Optional is
+     * empty.
+     *
+     * @param bytes byte array containing the UUID
+     * @param offset offset of the UUID in the array
+     * @return Optional containing converted UUID, or empty if
+     *   bytes are all zero.
+     */
+    public static Optional<UUID> getOptUUIDFromBytes(byte[] bytes, int offset) {
+        UUID uuid = getUUIDFromBytes(bytes, offset);
+        if (EMPTY_UUID.equals(uuid)) {
+            return Optional.empty();
+        }
+        return Optional.of(uuid);
+    }
+
 }
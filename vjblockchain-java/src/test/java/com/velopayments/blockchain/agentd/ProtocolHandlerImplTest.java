@@ -1,6 +1,7 @@
 package com.velopayments.blockchain.agentd;
 
 import com.velopayments.blockchain.cert.*;
+import com.velopayments.blockchain.client.BlockRecord;
 import com.velopayments.blockchain.crypt.EncryptionKeyPair;
 import com.velopayments.blockchain.crypt.EncryptionPrivateKey;
 import com.velopayments.blockchain.crypt.EncryptionPublicKey;
@@ -9,17 +10,26 @@ import com.velopayments.blockchain.util.ByteUtil;
 import com.velopayments.blockchain.util.UuidUtil;
 import org.junit.Before;
 import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.net.ConnectException;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.*;
 
@@ -51,7 +61,7 @@ public class ProtocolHandlerImplTest {
         UUID.fromString("59665c03-fa18-454c-864d-862b92c7035d");
 
     @Before
-    public void setup() {
+    public void setup() throws IOException {
 
         dataChannel = mock(DataChannel.class);
         agentId = UUID.randomUUID();
@@ -93,6 +103,13 @@ public class ProtocolHandlerImplTest {
             }
         }).when(random).nextBytes(any(byte[].class));;
 
+        // reads into a buffer fall through to the stubbed array reads.
+        doAnswer(invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            buffer.put(dataChannel.recv(buffer.remaining()));
+            return null;
+        }).when(dataChannel).recv(any(ByteBuffer.class));
+
 
     }
 
@@ -347,8 +364,9 @@ public class ProtocolHandlerImplTest {
 
         byte[] sharedSecret ={ 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
                                7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7 };
-        stubDataChannel((int)UNAUTH_PROTOCOL_REQ_ID_TRANSACTION_SUBMIT, 0, 0, null,
-                        sharedSecret, null);
+        stubDataChannelWithMacPayload(
+            (int)UNAUTH_PROTOCOL_REQ_ID_TRANSACTION_SUBMIT, 0, 0, new byte[0],
+            sharedSecret, null);
 
         CertificateBuilder builder =
             CertificateBuilder.createCertificateBuilder(DUMMY_CERTIFICATE_TYPE);
@@ -359,14 +377,19 @@ public class ProtocolHandlerImplTest {
 
         // then there should have been three round trips
         verify(dataChannel, times(3)).send(Mockito.any());
-        // headers are 5 bytes each
-        verify(dataChannel, times(3)).recv(5);
+        // headers are 5 bytes each; the response reader stops when it reaches
+        // the end of the stream.
+        verify(dataChannel, timeout(1000).times(4)).recv(5);
+        // the response reader reads its headers into a reused buffer.
+        verify(dataChannel, times(2)).recv(any(ByteBuffer.class));
         // init response body
         verify(dataChannel, times(1)).recv(164);
-        // ack and submit HMAC
-        verify(dataChannel, times(2)).recv(32);
-        // ack and submit response bodies
-        verify(dataChannel, times(2)).recv(12);
+        // ack HMAC
+        verify(dataChannel, times(1)).recv(32);
+        // ack response body
+        verify(dataChannel, times(1)).recv(12);
+        // submit response body
+        verify(dataChannel, times(1)).recv(12 + 32);
         verifyNoMoreInteractions(dataChannel);
 
     }
@@ -405,8 +428,11 @@ public class ProtocolHandlerImplTest {
 
         // then there should have been three round trips
         verify(dataChannel, times(3)).send(Mockito.any());
-        // headers are 5 bytes each
-        verify(dataChannel, times(3)).recv(5);
+        // headers are 5 bytes each; the response reader stops when it reaches
+        // the end of the stream.
+        verify(dataChannel, timeout(1000).times(4)).recv(5);
+        // the response reader reads its headers into a reused buffer.
+        verify(dataChannel, times(2)).recv(any(ByteBuffer.class));
         // init response body
         verify(dataChannel, times(1)).recv(164);
         // ack HMAC
@@ -418,12 +444,168 @@ public class ProtocolHandlerImplTest {
         verifyNoMoreInteractions(dataChannel);
     }
 
+    @Test
+    public void requestsCarryUniqueOffsets() throws Exception {
+        stubDataChannelForHandshake(IPC_DATA_TYPE_DATA_PACKET,
+                UNAUTH_PROTOCOL_REQ_ID_HANDSHAKE_INITIATE,0,
+                PROTOCOL_VERSION, CRYPTO_SUITE_VERSION, agentId,
+                entityPrivateKey, null);
+
+        // when the handshake is invoked
+        protocolHandler.handshake();
+
+        // the responses echo the offsets of the two requests.
+        byte[] responseHeader = createUnencryptedHeader(12 + 16);
+        when(dataChannel.recv(5))
+            .thenReturn(responseHeader)
+            .thenReturn(responseHeader)
+            .thenThrow(new EOFException());
+        when(dataChannel.recv(12 + 16 + 32)).thenReturn(new byte[12 + 16 + 32]);
+        when(outerEnvelopeReader.decryptHeader(any(), any()))
+            .thenReturn(12 + 16);
+        when(outerEnvelopeReader.decryptPayload(any(), any(), any()))
+            .thenReturn(
+                createUnencryptedPayload(
+                    (int)UNAUTH_PROTOCOL_REQ_ID_LATEST_BLOCK_ID_GET, 0, 0,
+                    UuidUtil.getBytesFromUUID(LATEST_BLOCK_UUID)))
+            .thenReturn(
+                createUnencryptedPayload(
+                    (int)UNAUTH_PROTOCOL_REQ_ID_LATEST_BLOCK_ID_GET, 0, 1,
+                    UuidUtil.getBytesFromUUID(LATEST_BLOCK_UUID)));
+
+        assertEquals(LATEST_BLOCK_UUID, protocolHandler.getLatestBlockId());
+        assertEquals(LATEST_BLOCK_UUID, protocolHandler.getLatestBlockId());
+
+        // the first request has offset 0 and the second has offset 1.
+        ArgumentCaptor<byte[]> requests = ArgumentCaptor.forClass(byte[].class);
+        verify(outerEnvelopeWriter, times(3))
+            .encryptPayload(any(), requests.capture());
+        assertEquals(0L, ByteUtil.ntohl(
+            Arrays.copyOfRange(requests.getAllValues().get(1), 4, 8)));
+        assertEquals(1L, ByteUtil.ntohl(
+            Arrays.copyOfRange(requests.getAllValues().get(2), 4, 8)));
+    }
+
+    @Test
+    public void unmatchedResponseIsDropped() throws Exception {
+        stubDataChannelForHandshake(IPC_DATA_TYPE_DATA_PACKET,
+                UNAUTH_PROTOCOL_REQ_ID_HANDSHAKE_INITIATE,0,
+                PROTOCOL_VERSION, CRYPTO_SUITE_VERSION, agentId,
+                entityPrivateKey, null);
+
+        // when the handshake is invoked
+        protocolHandler.handshake();
+
+        // a stray response arrives before the response to the request.
+        byte[] responseHeader = createUnencryptedHeader(12 + 16);
+        when(dataChannel.recv(5))
+            .thenReturn(responseHeader)
+            .thenReturn(responseHeader)
+            .thenThrow(new EOFException());
+        when(dataChannel.recv(12 + 16 + 32))
+            .thenReturn(new byte[12 + 16 + 32]);
+        when(outerEnvelopeReader.decryptHeader(any(), any()))
+            .thenReturn(12 + 16);
+        when(outerEnvelopeReader.decryptPayload(any(), any(), any()))
+            .thenReturn(
+                createUnencryptedPayload(
+                    (int)UNAUTH_PROTOCOL_REQ_ID_LATEST_BLOCK_ID_GET, 0, 7,
+                    UuidUtil.getBytesFromUUID(UUID.randomUUID())))
+            .thenReturn(
+                createUnencryptedPayload(
+                    (int)UNAUTH_PROTOCOL_REQ_ID_LATEST_BLOCK_ID_GET, 0, 0,
+                    UuidUtil.getBytesFromUUID(LATEST_BLOCK_UUID)));
+
+        // the stray response is dropped, and the request still completes.
+        assertEquals(LATEST_BLOCK_UUID, protocolHandler.getLatestBlockId());
+    }
+
+    @Test
+    public void getLatestBlockIdAsync_happyPath() throws Exception {
+        stubDataChannelForHandshake(IPC_DATA_TYPE_DATA_PACKET,
+                UNAUTH_PROTOCOL_REQ_ID_HANDSHAKE_INITIATE,0,
+                PROTOCOL_VERSION, CRYPTO_SUITE_VERSION, agentId,
+                entityPrivateKey, null);
+
+        // when the handshake is invoked
+        protocolHandler.handshake();
+
+        byte[] sharedSecret ={ 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                               7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7 };
+        stubDataChannelWithMacPayload(
+            (int)UNAUTH_PROTOCOL_REQ_ID_LATEST_BLOCK_ID_GET, 0, 0,
+            UuidUtil.getBytesFromUUID(LATEST_BLOCK_UUID), sharedSecret, null);
+
+        CompletableFuture<UUID> id = protocolHandler.getLatestBlockIdAsync();
+
+        // the returned UUID matches the payload.
+        assertEquals(LATEST_BLOCK_UUID, id.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void getBlockRecordById_happyPath() throws Exception {
+        stubDataChannelForHandshake(IPC_DATA_TYPE_DATA_PACKET,
+                UNAUTH_PROTOCOL_REQ_ID_HANDSHAKE_INITIATE,0,
+                PROTOCOL_VERSION, CRYPTO_SUITE_VERSION, agentId,
+                entityPrivateKey, null);
+
+        // when the handshake is invoked
+        protocolHandler.handshake();
+
+        UUID blockId = UUID.randomUUID();
+        UUID prevBlockId = UUID.randomUUID();
+        UUID firstTxnId = UUID.randomUUID();
+        byte[] blockCert = new byte[] { 1, 2, 3, 4, 5 };
+
+        // block id, prev id, next id (none), first txn id, height, cert size.
+        byte[] payload = new byte[16 * 4 + 8 * 2 + blockCert.length];
+        System.arraycopy(
+            UuidUtil.getBytesFromUUID(blockId), 0, payload, 0, 16);
+        System.arraycopy(
+            UuidUtil.getBytesFromUUID(prevBlockId), 0, payload, 16, 16);
+        System.arraycopy(
+            UuidUtil.getBytesFromUUID(firstTxnId), 0, payload, 48, 16);
+        System.arraycopy(ByteUtil.htonll(17L), 0, payload, 64, 8);
+        System.arraycopy(
+            ByteUtil.htonll(blockCert.length), 0, payload, 72, 8);
+        System.arraycopy(blockCert, 0, payload, 80, blockCert.length);
+
+        byte[] sharedSecret ={ 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                               7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7 };
+        stubDataChannelWithMacPayload(
+            (int)UNAUTH_PROTOCOL_REQ_ID_BLOCK_BY_ID_GET, 0, 0, payload,
+            sharedSecret, null);
+
+        BlockRecord block = protocolHandler.getBlockRecordById(blockId).get();
+
+        // the block metadata matches the payload.
+        assertEquals(blockId, block.getBlockId());
+        assertEquals(prevBlockId, block.getPreviousBlockId());
+        assertEquals(Optional.empty(), block.getNextBlockId());
+        assertEquals(firstTxnId, block.getFirstTransactionId());
+        assertEquals(17L, block.getBlockHeight());
+        assertArrayEquals(blockCert, block.getCertificate().toByteArray());
+    }
+
     /* Throw a ConnectException if not connected. */
     @Test(expected = ConnectException.class)
     public void getLatestBlockId_noConnection() throws Exception {
         protocolHandler.getLatestBlockId();
     }
 
+    /* Complete exceptionally with a ConnectException if not connected. */
+    @Test
+    public void getLatestBlockIdAsync_noConnection() throws Exception {
+        CompletableFuture<UUID> id = protocolHandler.getLatestBlockIdAsync();
+
+        try {
+            id.get();
+            fail("Expected a ConnectException.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ConnectException);
+        }
+    }
+
     /* Throw a ConnectException if not connected. */
     @Test(expected = ConnectException.class)
     public void getBlockById_noConnection() throws Exception {
@@ -523,6 +705,13 @@ public class ProtocolHandlerImplTest {
             protocolHandler.getBlockIdByBlockHeight(EXPECTED_HEIGHT);
     }
 
+    /* Throw a ConnectException if not connected. */
+    @Test(expected = ConnectException.class)
+    public void getConnectionStatus_noConnection() throws Exception {
+
+        protocolHandler.getConnectionStatus();
+    }
+
     /* HELPER METHODS AND UTILITIES BELOW THIS LINE */
 
     private void stubDataChannelForHandshake(
@@ -588,62 +777,6 @@ public class ProtocolHandlerImplTest {
 
     }
 
-    private void stubDataChannel(
-            int requestId, int status, int offset, byte[] payload,
-            byte[] sharedSecret, byte[] hmacOverride)
-        throws IOException
-    {
-        int payloadLength = 0;
-        if (null != payload)
-            payloadLength = payload.length;
-
-        // return the response header
-        byte[] authedResponseHeader =
-            createAuthedResponseHeader(sharedSecret, payloadLength + 12);
-        when(dataChannel.recv(5))
-                .thenReturn(authedResponseHeader);
-
-        // build the payload
-        byte[] authedResponsePayload =
-            createAuthedResponsePayload(
-                sharedSecret, requestId, status, offset, payload);
-        when(dataChannel.recv(authedResponsePayload.length))
-            .thenReturn(authedResponsePayload);
-
-        // compute the MAC.
-        byte[] MAC = null;
-        if (null == hmacOverride) {
-            MAC = createMAC(sharedSecret, authedResponseHeader,
-                            authedResponsePayload);
-        } else {
-            MAC = hmacOverride;
-        }
-
-        // compute the combined MAC and payload.
-        byte[] combinedMacPayload =
-            new byte[MAC.length + authedResponsePayload.length];
-        System.arraycopy(MAC, 0, combinedMacPayload, 0, MAC.length);
-        System.arraycopy(
-            authedResponsePayload, 0, combinedMacPayload, MAC.length,
-            authedResponsePayload.length);
-
-        // return the MAC
-        when(dataChannel.recv(32))
-            .thenReturn(MAC);
-
-        // stub the decryption for the ack header
-        when(outerEnvelopeReader.decryptHeader(any(), any()))
-                .thenReturn(12);
-
-        // stub the decryption of the payload
-        when(outerEnvelopeReader.decryptPayload(
-                    any(), eq(authedResponseHeader), eq(combinedMacPayload)))
-            .thenReturn(
-                    createUnencryptedPayload(
-                        requestId, status, offset, payload));
-
-    }
-
     private void stubDataChannelWithMacPayload(
             int requestId, int status, int offset, byte[] payload,
             byte[] sharedSecret, byte[] hmacOverride)
@@ -653,11 +786,12 @@ public class ProtocolHandlerImplTest {
         if (null != payload)
             payloadLength = payload.length;
 
-        // return the response header
+        // return the response header, followed by the end of the stream
         byte[] authedResponseHeader =
             createAuthedResponseHeader(sharedSecret, payloadLength + 12);
         when(dataChannel.recv(5))
-                .thenReturn(authedResponseHeader);
+                .thenReturn(authedResponseHeader)
+                .thenThrow(new EOFException());
 
         // build the payload
         byte[] authedResponsePayload =
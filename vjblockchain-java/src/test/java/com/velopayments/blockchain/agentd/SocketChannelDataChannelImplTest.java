@@ -0,0 +1,108 @@
+package com.velopayments.blockchain.agentd;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+public class SocketChannelDataChannelImplTest {
+
+    ServerSocketChannel server;
+    SocketChannel peer;
+    SocketChannelDataChannelImpl socketDataChannel;
+
+    @Before
+    public void setup() throws Exception {
+
+        // listen on an ephemeral loopback port
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("localhost", 0));
+        int port = ((InetSocketAddress)server.getLocalAddress()).getPort();
+
+        // create the data channel under test, with a small buffer so that
+        // reads and writes span several refills.
+        socketDataChannel =
+            new SocketChannelDataChannelImpl("localhost", port, 4);
+        socketDataChannel.connect();
+        peer = server.accept();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        socketDataChannel.close();
+        peer.close();
+        server.close();
+    }
+
+    @Test
+    public void send() throws Exception {
+
+        // given a message to send
+        byte[] payload = "Hello, agent!".getBytes();
+
+        // when the message is sent
+        socketDataChannel.send(payload);
+
+        // the message should be written to the socket
+        assertThat(readFromPeer(payload.length), is(payload));
+    }
+
+    @Test
+    public void recv() throws Exception {
+
+        // given a message from the peer
+        peer.write(ByteBuffer.wrap("Hello, client!".getBytes()));
+
+        // the message can be read in pieces
+        assertThat(socketDataChannel.recv(5), is("Hello".getBytes()));
+        assertThat(socketDataChannel.recv(9), is(", client!".getBytes()));
+    }
+
+    @Test
+    public void recvIntoBuffer() throws Exception {
+
+        // given a message from the peer
+        peer.write(ByteBuffer.wrap("Hello, client!".getBytes()));
+
+        // the message can be read into caller buffers
+        ByteBuffer first = ByteBuffer.allocate(3);
+        socketDataChannel.recv(first);
+        ByteBuffer second = ByteBuffer.allocateDirect(11);
+        socketDataChannel.recv(second);
+
+        assertThat(first.array(), is("Hel".getBytes()));
+        second.flip();
+        byte[] rest = new byte[11];
+        second.get(rest);
+        assertThat(rest, is("lo, client!".getBytes()));
+    }
+
+    @Test(expected = EOFException.class)
+    public void recv_closedByPeer() throws Exception {
+
+        // given a short message from the peer before it disconnects
+        peer.write(ByteBuffer.wrap("Hi".getBytes()));
+        peer.close();
+
+        // reading past the end of the stream fails
+        socketDataChannel.recv(5);
+    }
+
+    private byte[] readFromPeer(int length) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            peer.read(buffer);
+        }
+
+        return buffer.array();
+    }
+}
@@ -0,0 +1,105 @@
+package com.velopayments.blockchain.cert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class AttestationEngineTest {
+
+    private static final byte VALID = 0;
+    private static final byte INVALID = 1;
+    private static final byte UNKNOWN = 2;
+
+    ExecutorService executor;
+    AttestationEngine engine;
+
+    @Before
+    public void setup() {
+
+        executor = Executors.newFixedThreadPool(4);
+
+        // each test certificate is one byte saying how it attests.
+        engine = new AttestationEngine(
+                mock(CertificateParserDelegate.class), executor) {
+            @Override
+            protected boolean verify(
+                Certificate certificate, long blockHeight,
+                boolean validateContract) {
+
+                switch (certificate.toByteArray()[0]) {
+                    case VALID:
+                        return true;
+                    case INVALID:
+                        return false;
+                    default:
+                        throw new UnknownEntityException(UUID.randomUUID());
+                }
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void resultsAreInOrder() {
+
+        List<Certificate> certs = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            certs.add(Certificate.fromByteArray(new byte[] { (byte)(i % 3) }));
+        }
+
+        List<AttestationResult> results = engine.attest(certs, 10, true);
+
+        assertThat(results, hasSize(100));
+        for (int i = 0; i < 100; ++i) {
+            AttestationResult result = results.get(i);
+            assertThat(result.getCertificate(), is(sameInstance(certs.get(i))));
+            assertThat(result.isValid(), is(i % 3 == VALID));
+        }
+    }
+
+    @Test
+    public void failuresAreKept() {
+
+        List<Certificate> certs = new ArrayList<>();
+        certs.add(Certificate.fromByteArray(new byte[] { INVALID }));
+        certs.add(Certificate.fromByteArray(new byte[] { UNKNOWN }));
+
+        List<AttestationResult> results = engine.attest(certs, 10, true);
+
+        assertThat(results.get(0).getFailure().isPresent(), is(false));
+        assertThat(results.get(1).isValid(), is(false));
+        assertThat(results.get(1).getFailure().get(),
+                   is(instanceOf(UnknownEntityException.class)));
+    }
+
+    @Test
+    public void countersAreUpdated() {
+
+        List<Certificate> certs = new ArrayList<>();
+        for (byte b : new byte[] { VALID, VALID, INVALID, UNKNOWN }) {
+            certs.add(Certificate.fromByteArray(new byte[] { b }));
+        }
+
+        engine.attestAsync(certs, 10, false).join();
+
+        assertThat(engine.getAttestedCount(), is(4L));
+        assertThat(engine.getValidCount(), is(2L));
+        assertThat(engine.getInvalidCount(), is(1L));
+        assertThat(engine.getFailedCount(), is(1L));
+        assertThat(engine.getAttestationNanos(), is(greaterThan(0L)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.velopayments.blockchain.cert;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BlockTransactionsTest {
+
+    @Test
+    public void transactionsInBlockOrder() {
+
+        List<Integer> txns = BlockTransactions.stream(block(5))
+            .map(txn -> (int)txn.toByteArray()[0])
+            .collect(Collectors.toList());
+
+        assertThat(txns, contains(0, 1, 2, 3, 4));
+    }
+
+    @Test
+    public void parallelStreamKeepsOrder() {
+
+        List<Integer> txns = BlockTransactions.parallelStream(block(1000))
+            .map(txn -> txn.toByteArray()[0] & 0xFF)
+            .collect(Collectors.toList());
+
+        assertThat(txns, hasSize(1000));
+        for (int i = 0; i < txns.size(); ++i) {
+            assertThat(txns.get(i), is(i % 256));
+        }
+    }
+
+    @Test
+    public void splitsEvenly() {
+
+        Spliterator<Certificate> suffix = new BlockTransactions(block(9));
+        Spliterator<Certificate> prefix = suffix.trySplit();
+
+        assertThat(prefix.estimateSize(), is(4L));
+        assertThat(suffix.estimateSize(), is(5L));
+        assertThat(suffix.hasCharacteristics(Spliterator.SUBSIZED), is(true));
+
+        Spliterator<Certificate> single = new BlockTransactions(block(1));
+        assertThat(single.trySplit(), is(nullValue()));
+    }
+
+    @Test
+    public void otherFieldsAreSkipped() {
+
+        assertThat(BlockTransactions.stream(block(0)).count(), is(0L));
+    }
+
+    /**
+     * Build a block holding a block height field and the given number of
+     * wrapped transactions, each a single byte holding its index.
+     */
+    private static Certificate block(int count) {
+
+        ByteBuffer block = ByteBuffer.allocate(12 + 5 * count);
+        block.putShort((short)Field.BLOCK_HEIGHT).putShort((short)8)
+            .putLong(count);
+        for (int i = 0; i < count; ++i) {
+            block.putShort((short)Field.WRAPPED_TRANSACTION_TUPLE)
+                .putShort((short)1)
+                .put((byte)i);
+        }
+
+        return Certificate.fromByteArray(block.array());
+    }
+}
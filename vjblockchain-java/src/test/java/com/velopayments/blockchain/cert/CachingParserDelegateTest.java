@@ -0,0 +1,131 @@
+package com.velopayments.blockchain.cert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class CachingParserDelegateTest {
+
+    private static final UUID ENTITY_ID = UUID.randomUUID();
+    private static final UUID ENTITY_TYPE = UUID.randomUUID();
+    private static final EntityReference OLD_KEYS =
+        new EntityReference(new byte[] { 1 }, new byte[] { 2 }, ENTITY_TYPE);
+    private static final EntityReference NEW_KEYS =
+        new EntityReference(new byte[] { 3 }, new byte[] { 4 }, ENTITY_TYPE);
+
+    CertificateParserDelegate delegate;
+    CachingParserDelegate cache;
+
+    @Before
+    public void setup() {
+
+        delegate = mock(CertificateParserDelegate.class);
+        cache = new CachingParserDelegate(delegate);
+
+        // the entity's keys are rotated at height 100.
+        when(delegate.resolveEntity(eq(ENTITY_ID), anyLong())).thenAnswer(
+            inv -> (long)inv.getArgument(1) < 100 ? OLD_KEYS : NEW_KEYS);
+    }
+
+    @Test
+    public void entityIsCachedAtResolvedHeight() {
+
+        assertThat(cache.resolveEntity(ENTITY_ID, 10), is(OLD_KEYS));
+        assertThat(cache.resolveEntity(ENTITY_ID, 10), is(OLD_KEYS));
+        verify(delegate, times(1)).resolveEntity(ENTITY_ID, 10);
+
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void unresolvedHeightIsPassedThrough() {
+
+        assertThat(cache.resolveEntity(ENTITY_ID, 10), is(OLD_KEYS));
+        assertThat(cache.resolveEntity(ENTITY_ID, 50), is(OLD_KEYS));
+
+        // the same keys on either side say nothing about a height between.
+        assertThat(cache.resolveEntity(ENTITY_ID, 30), is(OLD_KEYS));
+        verify(delegate).resolveEntity(ENTITY_ID, 30);
+        assertThat(cache.getHitCount(), is(0L));
+    }
+
+    @Test
+    public void rotatedKeysAreCachedAtEachHeight() {
+
+        assertThat(cache.resolveEntity(ENTITY_ID, 99), is(OLD_KEYS));
+        assertThat(cache.resolveEntity(ENTITY_ID, 100), is(NEW_KEYS));
+
+        assertThat(cache.resolveEntity(ENTITY_ID, 99), is(OLD_KEYS));
+        assertThat(cache.resolveEntity(ENTITY_ID, 100), is(NEW_KEYS));
+        verify(delegate, times(1)).resolveEntity(ENTITY_ID, 99);
+        verify(delegate, times(1)).resolveEntity(ENTITY_ID, 100);
+    }
+
+    @Test
+    public void invalidatedEntityIsResolvedAgain() {
+
+        cache.resolveEntity(ENTITY_ID, 10);
+        cache.invalidateEntity(ENTITY_ID);
+        cache.resolveEntity(ENTITY_ID, 10);
+
+        verify(delegate, times(2)).resolveEntity(ENTITY_ID, 10);
+    }
+
+    @Test(expected = UnknownEntityException.class)
+    public void failuresAreNotCached() {
+
+        UUID unknown = UUID.randomUUID();
+        when(delegate.resolveEntity(unknown, 10))
+            .thenThrow(new UnknownEntityException(unknown))
+            .thenReturn(OLD_KEYS);
+
+        try {
+            cache.resolveEntity(unknown, 10);
+        } finally {
+            assertThat(cache.resolveEntity(unknown, 10), is(OLD_KEYS));
+        }
+    }
+
+    @Test
+    public void contractsAreCachedByType() {
+
+        UUID artifactType = UUID.randomUUID();
+        UUID txnType = UUID.randomUUID();
+        CertificateContract contract = mock(CertificateContract.class);
+        when(delegate.resolveEntityContract(artifactType, txnType))
+            .thenReturn(contract);
+
+        assertThat(cache.resolveEntityContract(artifactType, txnType),
+                   is(sameInstance(contract)));
+        assertThat(cache.resolveEntityContract(artifactType, txnType),
+                   is(sameInstance(contract)));
+        verify(delegate, times(1)).resolveEntityContract(artifactType, txnType);
+    }
+
+    @Test
+    public void artifactStateIsCachedAtLatestHeight() {
+
+        UUID artifactId = UUID.randomUUID();
+        ArtifactState state = new ArtifactState(1, UUID.randomUUID());
+        when(delegate.resolveArtifactState(eq(artifactId), anyLong()))
+            .thenReturn(state);
+
+        cache.resolveArtifactState(artifactId, 5);
+        cache.resolveArtifactState(artifactId, 5);
+        verify(delegate, times(1)).resolveArtifactState(artifactId, 5);
+
+        // a new height discards the old states, and a lower height is
+        // passed through.
+        cache.resolveArtifactState(artifactId, 6);
+        cache.resolveArtifactState(artifactId, 5);
+        cache.resolveArtifactState(artifactId, 6);
+        verify(delegate, times(1)).resolveArtifactState(artifactId, 6);
+        verify(delegate, times(2)).resolveArtifactState(artifactId, 5);
+    }
+}
@@ -0,0 +1,126 @@
+package com.velopayments.blockchain.cert;
+
+import com.velopayments.blockchain.crypt.SigningPrivateKey;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class CertificateBatchSignerTest {
+
+    private static final byte[] PRIVATE_KEY = bytes(
+        0x65, 0x93, 0x21, 0xd0, 0x35, 0xa9, 0xf8, 0xcf,
+        0x35, 0x37, 0xd1, 0xd1, 0x82, 0xfd, 0xee, 0xf8,
+        0x92, 0x8e, 0x0c, 0xfe, 0xb4, 0x56, 0x4b, 0x2d,
+        0xb5, 0x11, 0x60, 0x6d, 0xc6, 0xf6, 0x13, 0xbd,
+        0x47, 0x83, 0xe9, 0xf6, 0x78, 0xd1, 0x49, 0xac,
+        0xd2, 0x09, 0x66, 0xb0, 0xab, 0x88, 0xf7, 0xd0,
+        0x5d, 0x6d, 0x4f, 0x54, 0x0f, 0x1f, 0x23, 0x82,
+        0x86, 0x00, 0x3a, 0xda, 0x0c, 0x27, 0xcc, 0x35);
+
+    private static final byte[] SIGNING_KEY = bytes(
+        0x47, 0x83, 0xe9, 0xf6, 0x78, 0xd1, 0x49, 0xac,
+        0xd2, 0x09, 0x66, 0xb0, 0xab, 0x88, 0xf7, 0xd0,
+        0x5d, 0x6d, 0x4f, 0x54, 0x0f, 0x1f, 0x23, 0x82,
+        0x86, 0x00, 0x3a, 0xda, 0x0c, 0x27, 0xcc, 0x35);
+
+    private static final UUID SIGNER_ID =
+        UUID.fromString("00010203-0405-0607-0809-0a0b0c0d0e0f");
+    private static final UUID CERT_TYPE =
+        UUID.fromString("23b11e7f-4260-48b3-993e-6baf1df0e8dd");
+    private static final int TEST_FIELD = 0x4301;
+    private static final long BLOCK_HEIGHT = 77;
+
+    @Test
+    public void signBuildersAcrossChunks() throws Exception {
+
+        List<CertificateBuilder> builders = new ArrayList<>();
+        for (long i = 0; i < 10; ++i) {
+            builders.add(
+                CertificateBuilder.createCertificateBuilder(CERT_TYPE)
+                    .addLong(TEST_FIELD, i));
+        }
+
+        List<Certificate> signed;
+        try (CertificateBatchSigner signer = new CertificateBatchSigner(
+                 SIGNER_ID, new SigningPrivateKey(PRIVATE_KEY),
+                 ForkJoinPool.commonPool(), 3)) {
+            signed = signer.sign(builders);
+        }
+
+        assertThat(signed, hasSize(10));
+        for (int i = 0; i < 10; ++i) {
+            assertThat(readAttested(signed.get(i)), is((long)i));
+        }
+    }
+
+    @Test
+    public void signUnsignedCertificates() throws Exception {
+
+        List<Certificate> unsigned = new ArrayList<>();
+        for (long i = 0; i < 3; ++i) {
+            unsigned.add(
+                CertificateBuilder.createCertificateBuilder(CERT_TYPE)
+                    .addLong(TEST_FIELD, i)
+                    .emit());
+        }
+
+        try (CertificateBatchSigner signer = new CertificateBatchSigner(
+                 SIGNER_ID, new SigningPrivateKey(PRIVATE_KEY))) {
+            List<Certificate> signed = signer.signCertificates(unsigned);
+
+            assertThat(readAttested(signed.get(2)), is(2L));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedSignerFails() throws Exception {
+
+        CertificateBatchSigner signer = new CertificateBatchSigner(
+            SIGNER_ID, new SigningPrivateKey(PRIVATE_KEY));
+        signer.close();
+        signer.close();
+
+        List<CertificateBuilder> builders = new ArrayList<>();
+        builders.add(CertificateBuilder.createCertificateBuilder(CERT_TYPE));
+        signer.sign(builders);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidChunkSize() throws Exception {
+
+        new CertificateBatchSigner(
+            SIGNER_ID, new SigningPrivateKey(PRIVATE_KEY),
+            ForkJoinPool.commonPool(), 0);
+    }
+
+    private static long readAttested(Certificate cert) throws Exception {
+
+        CertificateParser p = new CertificateParser(cert);
+
+        CertificateParserDelegate delegate =
+            mock(CertificateParserDelegate.class);
+        when(delegate.resolveEntity(SIGNER_ID, BLOCK_HEIGHT)).thenReturn(
+            new EntityReference(new byte[32], SIGNING_KEY, CERT_TYPE));
+        assertThat(p.attest(delegate, BLOCK_HEIGHT, false), is(true));
+
+        return new CertificateReader(p).getFirst(TEST_FIELD).asLong();
+    }
+
+    private static byte[] bytes(int... values) {
+
+        ByteBuffer buf = ByteBuffer.allocate(values.length);
+        for (int value : values) {
+            buf.put((byte)value);
+        }
+
+        return buf.array();
+    }
+}
@@ -566,4 +566,81 @@ public class CertificateBuilderTest {
                     .withZoneSameInstant(TEST_ZONE),
                     is(TEST_VALUE));
     }
+
+    /**
+     * Test that fields are encoded in order, in network byte order.
+     */
+    @Test
+    public void emitEncodesFieldsInOrderTest() throws Exception {
+        CertificateBuilder builder =
+            CertificateBuilder.createCertificateFragmentBuilder();
+        builder.addShort(0x7001, 0x0102);
+        builder.addByteArray(0x7002, new byte[] { 0x03 });
+
+        assertThat(
+            builder.emit().toByteArray(),
+            is(new byte[] {
+                0x70, 0x01, 0x00, 0x02, 0x01, 0x02,
+                0x70, 0x02, 0x00, 0x01, 0x03 }));
+    }
+
+    /**
+     * Test that the field buffer grows to hold large certificates.
+     */
+    @Test
+    public void largeCertificateTest() throws Exception {
+        final int TEST_FIELD = 0x4301;
+
+        CertificateBuilder builder =
+            CertificateBuilder.createCertificateFragmentBuilder();
+        for (long i = 0; i < 1000; ++i) {
+            builder.addLong(TEST_FIELD, i);
+        }
+
+        CertificateReader r =
+            new CertificateReader(new CertificateParser(builder.emit()));
+
+        assertThat(r.count(TEST_FIELD), is(1000));
+        assertThat(r.get(TEST_FIELD, 999).asLong(), is(999L));
+    }
+
+    /**
+     * Test that a value too large for a field is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void oversizedFieldFailsTest() throws Exception {
+        CertificateBuilder.createCertificateFragmentBuilder()
+            .addByteArray(0x4301, new byte[0x10000]);
+    }
+
+    /**
+     * Test that a reset builder keeps its header fields and nothing else.
+     */
+    @Test
+    public void resetKeepsHeaderFieldsTest() throws Exception {
+        CertificateBuilder builder =
+            CertificateBuilder.createCertificateBuilder(
+                CertificateType.TRANSACTION);
+        byte[] header = builder.emit().toByteArray();
+
+        builder.addLong(0x4301, 1L);
+        assertThat(builder.reset().emit().toByteArray(), is(header));
+
+        builder.addLong(0x4301, 2L);
+        CertificateReader r =
+            new CertificateReader(new CertificateParser(builder.emit()));
+        assertThat(r.count(0x4301), is(1));
+        assertThat(r.getFirst(0x4301).asLong(), is(2L));
+    }
+
+    /**
+     * Test that a reset fragment builder is empty.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void resetFragmentBuilderIsEmptyTest() throws Exception {
+        CertificateBuilder.createCertificateFragmentBuilder()
+            .addLong(0x4301, 1L)
+            .reset()
+            .emit();
+    }
 }
@@ -0,0 +1,96 @@
+package com.velopayments.blockchain.cert;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CertificateFieldIndexTest {
+
+    private static final byte[] TEST_CERT = {
+        //field 0x0001 is 0x01020304
+        0x00, 0x01, 0x00, 0x04, 0x01, 0x02, 0x03, 0x04,
+        //field 0x7002 is 0x01
+        0x70, 0x02, 0x00, 0x01, 0x01,
+        //field 0x0001 is empty
+        0x00, 0x01, 0x00, 0x00,
+        //field 0x7007 is 0x13
+        0x70, 0x07, 0x00, 0x01, 0x13
+    };
+
+    @Test
+    public void fieldsAreIndexedInPlace() {
+
+        CertificateFieldIndex fields =
+            new CertificateFieldIndex().parse(TEST_CERT);
+
+        assertThat(fields.size(), is(4));
+        assertThat(fields.getFieldId(1), is(0x7002));
+        assertThat(fields.getValueOffset(1), is(12));
+        assertThat(fields.getValueLength(1), is(1));
+        assertThat(fields.count(0x0001), is(2));
+        assertThat(fields.indexOf(0x0001, 1), is(2));
+        assertThat(fields.getValueLength(2), is(0));
+        assertThat(fields.indexOf(0x7007), is(3));
+        assertThat(fields.indexOf(0x7777), is(-1));
+    }
+
+    @Test
+    public void offsetsAreAbsolute() {
+
+        byte[] padded = new byte[TEST_CERT.length + 10];
+        System.arraycopy(TEST_CERT, 0, padded, 3, TEST_CERT.length);
+
+        CertificateFieldIndex fields = new CertificateFieldIndex()
+            .parse(padded, 3, TEST_CERT.length);
+        assertThat(fields.size(), is(4));
+        assertThat(fields.getValueOffset(0), is(7));
+
+        fields.parse(ByteBuffer.wrap(padded), 3, 3 + TEST_CERT.length);
+        assertThat(fields.size(), is(4));
+        assertThat(fields.getValueOffset(3), is(3 + 21));
+    }
+
+    @Test
+    public void walkStopsAtTruncatedField() {
+
+        byte[] truncated = new byte[TEST_CERT.length - 1];
+        System.arraycopy(TEST_CERT, 0, truncated, 0, truncated.length);
+
+        CertificateFieldIndex fields =
+            new CertificateFieldIndex().parse(truncated);
+
+        assertThat(fields.size(), is(3));
+        assertThat(fields.indexOf(0x7007), is(-1));
+    }
+
+    @Test
+    public void indexIsReusedAndGrows() {
+
+        CertificateFieldIndex fields = new CertificateFieldIndex(1);
+
+        assertThat(fields.parse(TEST_CERT).size(), is(4));
+        assertThat(fields.parse(new byte[] { 0x70, 0x07, 0x00, 0x00 }).size(),
+                   is(1));
+        assertThat(fields.getFieldId(0), is(0x7007));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void fieldOutOfRange() {
+
+        new CertificateFieldIndex().parse(TEST_CERT).getFieldId(4);
+    }
+
+    @Test
+    public void findValueWithoutIndex() {
+
+        ByteBuffer cert = ByteBuffer.wrap(TEST_CERT);
+
+        assertThat(CertificateFieldIndex.findValue(
+                       cert, 0, TEST_CERT.length, 0x7007), is(21));
+        assertThat(CertificateFieldIndex.findValue(
+                       cert, 0, TEST_CERT.length - 1, 0x7007), is(-1));
+    }
+}
@@ -217,4 +217,31 @@ public class CertificateFieldReaderTest {
         assertThat(
             new CertificateFieldReader(TEST_VALUE).asByteArray(), is(TEST_VALUE));
     }
+
+    /**
+     * Test that asByteArray copies only the field from a slice of a larger
+     * buffer.
+     */
+    @Test
+    public void asByteArraySliceTest() throws Exception {
+        ByteBuffer cert = ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5});
+        cert.position(1);
+        cert.limit(4);
+
+        assertThat(
+            new CertificateFieldReader(cert).asByteArray(),
+            is(new byte[] {2, 3, 4}));
+    }
+
+    /**
+     * Test that a field may be read more than once.
+     */
+    @Test
+    public void repeatedReadTest() throws Exception {
+        byte[] input = {0, 0, 0, 7};
+        CertificateFieldReader reader = new CertificateFieldReader(input);
+
+        assertThat(reader.asInt(), is(7));
+        assertThat(reader.asInt(), is(7));
+    }
 }
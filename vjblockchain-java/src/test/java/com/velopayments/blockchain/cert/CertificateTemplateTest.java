@@ -0,0 +1,70 @@
+package com.velopayments.blockchain.cert;
+
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CertificateTemplateTest {
+
+    private static final UUID ARTIFACT_TYPE = UUID.randomUUID();
+
+    private final CertificateTemplate template = CertificateTemplate.of(
+        CertificateBuilder.createCertificateBuilder(CertificateType.TRANSACTION)
+            .addUUID(Field.ARTIFACT_TYPE, ARTIFACT_TYPE));
+
+    @Test
+    public void templateFieldsAreKept() throws Exception {
+
+        for (long i = 0; i < 3; ++i) {
+            Certificate cert = template.builder()
+                .addLong(0x4301, i)
+                .emit();
+
+            CertificateReader r =
+                new CertificateReader(new CertificateParser(cert));
+            assertThat(r.getFirst(Field.CERTIFICATE_TYPE).asUUID(),
+                       is(CertificateType.TRANSACTION));
+            assertThat(r.getFirst(Field.ARTIFACT_TYPE).asUUID(),
+                       is(ARTIFACT_TYPE));
+            assertThat(r.count(0x4301), is(1));
+            assertThat(r.getFirst(0x4301).asLong(), is(i));
+        }
+    }
+
+    @Test
+    public void templateIsACopy() throws Exception {
+
+        CertificateBuilder builder =
+            CertificateBuilder.createCertificateFragmentBuilder()
+                .addShort(0x7001, 1);
+        CertificateTemplate copy = CertificateTemplate.of(builder);
+        builder.addShort(0x7002, 2);
+
+        assertThat(copy.size(), is(6));
+        assertThat(copy.newBuilder().emit().toByteArray(),
+                   is(new byte[] { 0x70, 0x01, 0x00, 0x02, 0x00, 0x01 }));
+    }
+
+    @Test
+    public void builderIsPerThread() throws Exception {
+
+        CertificateBuilder mine = template.builder();
+        assertThat(template.builder(), is(sameInstance(mine)));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Callable<CertificateBuilder> other = template::builder;
+            Future<CertificateBuilder> theirs = executor.submit(other);
+            assertThat(theirs.get(), is(not(sameInstance(mine))));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
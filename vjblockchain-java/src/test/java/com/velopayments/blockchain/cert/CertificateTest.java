@@ -0,0 +1,60 @@
+package com.velopayments.blockchain.cert;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CertificateTest {
+
+    @Test
+    public void fromByteArray_wholeArray() {
+
+        byte[] bytes = new byte[] { 1, 2, 3 };
+
+        Certificate cert = Certificate.fromByteArray(bytes);
+
+        // the array is not copied.
+        assertThat(cert.toByteArray(), is(sameInstance(bytes)));
+        assertThat(cert.size(), is(3));
+    }
+
+    @Test
+    public void fromByteArray_view() {
+
+        byte[] payload = new byte[] { 9, 9, 1, 2, 3, 9 };
+
+        Certificate cert = Certificate.fromByteArray(payload, 2, 3);
+        assertThat(cert.size(), is(3));
+
+        // the view can be read without copying.
+        ByteBuffer buffer = cert.asByteBuffer();
+        assertThat(buffer.position(), is(0));
+        assertThat(buffer.remaining(), is(3));
+        assertThat(buffer.get(0), is((byte)1));
+
+        byte[] dest = new byte[4];
+        cert.copyTo(dest, 1);
+        assertThat(dest, is(new byte[] { 0, 1, 2, 3 }));
+
+        // an exact array is created once on demand.
+        byte[] exact = cert.toByteArray();
+        assertThat(exact, is(new byte[] { 1, 2, 3 }));
+        assertThat(cert.toByteArray(), is(sameInstance(exact)));
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void asByteBuffer_readOnly() {
+
+        Certificate.fromByteArray(new byte[] { 1 }).asByteBuffer().put((byte)2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void fromByteArray_invalidRange() {
+
+        Certificate.fromByteArray(new byte[4], 2, 3);
+    }
+}
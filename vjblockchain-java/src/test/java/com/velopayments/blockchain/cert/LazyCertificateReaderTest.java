@@ -0,0 +1,87 @@
+package com.velopayments.blockchain.cert;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LazyCertificateReaderTest {
+
+    private static final byte[] TEST_CERT = {
+        //field 0x0001 is 0x01020304
+        0x00, 0x01, 0x00, 0x04, 0x01, 0x02, 0x03, 0x04,
+        //field 0x7002 is 0x01
+        0x70, 0x02, 0x00, 0x01, 0x01,
+        //field 0x0001 is 0xFFFFFFFF
+        0x00, 0x01, 0x00, 0x04, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF,
+        //field 0x7007 is 0x13
+        0x70, 0x07, 0x00, 0x01, 0x13
+    };
+
+    @Test
+    public void readFields() throws Exception {
+
+        LazyCertificateReader reader =
+            new LazyCertificateReader(Certificate.fromByteArray(TEST_CERT));
+
+        assertThat(reader.getFirst(0x0001).asInt(), is(0x01020304));
+        assertThat(reader.get(0x0001, 1).asInt(), is(0xFFFFFFFF));
+        assertThat(reader.getFirst(0x7007).asByte(), is((byte)0x13));
+        assertThat(reader.count(0x0001), is(2));
+        assertThat(reader.count(0x7777), is(0));
+        assertThat(reader.getFields(), contains(0x0001, 0x7002, 0x7007));
+    }
+
+    @Test
+    public void fieldsAreSlicesOfTheCertificate() throws Exception {
+
+        byte[] padded = new byte[TEST_CERT.length + 4];
+        System.arraycopy(TEST_CERT, 0, padded, 2, TEST_CERT.length);
+        Certificate cert =
+            Certificate.fromByteArray(padded, 2, TEST_CERT.length);
+
+        LazyCertificateReader reader = new LazyCertificateReader(cert);
+
+        assertThat(reader.getCertificate(), is(sameInstance(cert)));
+        assertThat(reader.get(0x0001, 1).asByteArray(),
+                   is(new byte[] {-1, -1, -1, -1}));
+
+        // a slice is a view, so later changes to the array are visible.
+        padded[2 + 12] = 0x02;
+        assertThat(reader.getFirst(0x7002).asByte(), is((byte)0x02));
+    }
+
+    @Test
+    public void uuidField() throws Exception {
+
+        UUID id = UUID.randomUUID();
+        byte[] cert = new byte[20];
+        cert[1] = (byte)Field.CERTIFICATE_ID;
+        cert[3] = 16;
+        ByteBuffer.wrap(cert, 4, 16)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits());
+
+        assertThat(
+            new LazyCertificateReader(Certificate.fromByteArray(cert))
+                .getFirst(Field.CERTIFICATE_ID).asUUID(),
+            is(id));
+    }
+
+    @Test(expected = MissingFieldException.class)
+    public void missingField() throws Exception {
+
+        new LazyCertificateReader(Certificate.fromByteArray(TEST_CERT))
+            .getFirst(0x7777);
+    }
+
+    @Test(expected = MissingFieldException.class)
+    public void missingNthField() throws Exception {
+
+        new LazyCertificateReader(Certificate.fromByteArray(TEST_CERT))
+            .get(0x7002, 1);
+    }
+}
@@ -0,0 +1,133 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.util.UuidUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class ArtifactHistorySpliteratorTest {
+
+    AsyncVelochainConnection conn;
+    UUID artifactId;
+    List<UUID> history;
+    CompletableFuture<Optional<UUID>> firstTxnId;
+
+    @Before
+    public void setup() {
+
+        conn = mock(AsyncVelochainConnection.class);
+        artifactId = UUID.randomUUID();
+
+        // an artifact with five transactions, each certificate holding its
+        // index in the history.
+        history = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            history.add(UUID.randomUUID());
+        }
+
+        firstTxnId = CompletableFuture.completedFuture(
+            Optional.of(history.get(0)));
+        when(conn.getFirstTransactionIdForArtifactByIdAsync(artifactId))
+            .thenAnswer(invocation -> firstTxnId);
+        when(conn.getLastTransactionIdForArtifactByIdAsync(artifactId))
+            .thenReturn(CompletableFuture.completedFuture(
+                Optional.of(history.get(history.size() - 1))));
+        when(conn.getNextTransactionIdForTransactionByIdAsync(any()))
+            .thenAnswer(invocation -> {
+                int index = history.indexOf(invocation.getArgument(0));
+                return CompletableFuture.completedFuture(
+                    index + 1 < history.size()
+                        ? Optional.of(history.get(index + 1))
+                        : Optional.empty());
+            });
+        when(conn.getPreviousTransactionIdForTransactionByIdAsync(any()))
+            .thenAnswer(invocation -> {
+                int index = history.indexOf(invocation.getArgument(0));
+                return CompletableFuture.completedFuture(
+                    Optional.of(
+                        index > 0 ? history.get(index - 1)
+                                  : UuidUtil.EMPTY_UUID));
+            });
+        when(conn.getTransactionByIdAsync(any())).thenAnswer(invocation -> {
+            int index = history.indexOf(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(
+                Optional.of(
+                    Certificate.fromByteArray(new byte[] { (byte)index })));
+        });
+    }
+
+    @Test
+    public void oldestFirst() {
+
+        assertThat(indexes(history(false, 3)), contains(0, 1, 2, 3, 4));
+    }
+
+    @Test
+    public void newestFirstStopsAtNilUuid() {
+
+        assertThat(indexes(history(true, 3)), contains(4, 3, 2, 1, 0));
+    }
+
+    @Test
+    public void certificatesRequestedAheadOfConsumer() {
+
+        ArtifactHistorySpliterator txns =
+            new ArtifactHistorySpliterator(conn, artifactId, false, 3);
+
+        assertThat(txns.tryAdvance(cert -> { }), is(true));
+
+        // the first certificate is read with two more requested behind it.
+        verify(conn, timeout(1000)).getTransactionByIdAsync(history.get(2));
+        verify(conn, times(3)).getTransactionByIdAsync(any());
+    }
+
+    @Test
+    public void noTransactions() {
+
+        firstTxnId = CompletableFuture.completedFuture(Optional.empty());
+
+        assertThat(history(false, 4).count(), is(0L));
+        verify(conn, never()).getTransactionByIdAsync(any());
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void failedRead() {
+
+        CompletableFuture<Optional<Certificate>> failed =
+            new CompletableFuture<>();
+        failed.completeExceptionally(new IOException());
+        when(conn.getTransactionByIdAsync(history.get(2))).thenReturn(failed);
+
+        history(false, 2).count();
+    }
+
+    private List<Integer> indexes(Stream<Certificate> txns) {
+
+        return txns
+            .map(cert -> (int)cert.toByteArray()[0])
+            .collect(Collectors.toList());
+    }
+
+    private Stream<Certificate> history(boolean newestFirst, int depth) {
+
+        return StreamSupport.stream(
+            new ArtifactHistorySpliterator(
+                conn, artifactId, newestFirst, depth),
+            false);
+    }
+}
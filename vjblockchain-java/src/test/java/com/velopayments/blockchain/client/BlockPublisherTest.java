@@ -0,0 +1,214 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.cert.CertificateType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class BlockPublisherTest {
+
+    VelochainConnection conn;
+    List<UUID> chain;
+    BlockPublisher publisher;
+    RecordingSubscriber subscriber;
+
+    @Before
+    public void setup() throws IOException {
+
+        conn = mock(VelochainConnection.class);
+        chain = new CopyOnWriteArrayList<>();
+        chain.add(CertificateType.ROOT_BLOCK);
+
+        when(conn.getLatestBlockId()).thenAnswer(
+            invocation -> chain.get(chain.size() - 1));
+        when(conn.getNextBlockId(any())).thenAnswer(invocation -> {
+            int index = chain.indexOf(invocation.getArgument(0));
+            return index + 1 < chain.size()
+                ? Optional.of(chain.get(index + 1))
+                : Optional.empty();
+        });
+        when(conn.getBlockRecordById(any())).thenAnswer(invocation -> {
+            UUID blockId = invocation.getArgument(0);
+            int index = chain.indexOf(blockId);
+            return Optional.of(
+                new BlockRecord(
+                    blockId, chain.get(index - 1),
+                    index + 1 < chain.size()
+                        ? Optional.of(chain.get(index + 1))
+                        : Optional.empty(),
+                    UUID.randomUUID(), index,
+                    Certificate.fromByteArray(new byte[] { (byte)index })));
+        });
+
+        publisher = new BlockPublisher(conn, 1, 20);
+        subscriber = new RecordingSubscriber();
+    }
+
+    @After
+    public void teardown() {
+        publisher.close();
+    }
+
+    void addBlocks(int count) {
+        for (int i = 0; i < count; ++i) {
+            chain.add(UUID.randomUUID());
+        }
+    }
+
+    /**
+     * Existing blocks are delivered in chain order, followed by new blocks
+     * as they are added.
+     */
+    @Test
+    public void deliversExistingThenNewBlocks() throws Exception {
+
+        addBlocks(3);
+        subscriber.requestOnSubscribe = Long.MAX_VALUE;
+        publisher.subscribe(subscriber, CertificateType.ROOT_BLOCK);
+
+        for (int i = 1; i <= 3; ++i) {
+            assertThat(subscriber.nextHeight(), is((long)i));
+        }
+
+        addBlocks(2);
+
+        assertThat(subscriber.nextHeight(), is(4L));
+        assertThat(subscriber.nextHeight(), is(5L));
+    }
+
+    /**
+     * A subscription without a starting block only sees blocks added after
+     * the subscription.
+     */
+    @Test
+    public void deliversOnlyNewBlocks() throws Exception {
+
+        addBlocks(3);
+        subscriber.requestOnSubscribe = Long.MAX_VALUE;
+        publisher.subscribe(subscriber);
+
+        /* wait for the first poll before adding a block. */
+        verify(conn, timeout(1000).atLeastOnce()).getLatestBlockId();
+        addBlocks(1);
+
+        assertThat(subscriber.nextHeight(), is(4L));
+    }
+
+    /**
+     * No more blocks are delivered than have been requested.
+     */
+    @Test
+    public void respectsDemand() throws Exception {
+
+        addBlocks(5);
+        subscriber.requestOnSubscribe = 2;
+        publisher.subscribe(subscriber, CertificateType.ROOT_BLOCK);
+
+        assertThat(subscriber.nextHeight(), is(1L));
+        assertThat(subscriber.nextHeight(), is(2L));
+        assertThat(subscriber.blocks.poll(100, TimeUnit.MILLISECONDS),
+                   is(nullValue()));
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.nextHeight(), is(3L));
+        assertThat(subscriber.blocks.poll(100, TimeUnit.MILLISECONDS),
+                   is(nullValue()));
+    }
+
+    /**
+     * Read failures are reported to the subscriber.
+     */
+    @Test
+    public void readFailureIsReported() throws Exception {
+
+        addBlocks(1);
+        doThrow(new IOException("read failed"))
+            .when(conn).getBlockRecordById(any());
+        subscriber.requestOnSubscribe = 1;
+        publisher.subscribe(subscriber, CertificateType.ROOT_BLOCK);
+
+        Throwable error = subscriber.errors.poll(1, TimeUnit.SECONDS);
+        assertThat(error, instanceOf(IOException.class));
+    }
+
+    /**
+     * Closing the publisher completes its subscriptions.
+     */
+    @Test
+    public void closeCompletesSubscriptions() throws Exception {
+
+        subscriber.requestOnSubscribe = 1;
+        publisher.subscribe(subscriber, CertificateType.ROOT_BLOCK);
+        verify(conn, timeout(1000).atLeastOnce()).getLatestBlockId();
+
+        publisher.close();
+
+        assertThat(subscriber.completed.poll(1, TimeUnit.SECONDS), is(true));
+    }
+
+    /**
+     * Subscribing to a closed publisher fails at once.
+     */
+    @Test
+    public void subscribeAfterCloseFails() throws Exception {
+
+        publisher.close();
+        publisher.subscribe(subscriber);
+
+        assertThat(subscriber.subscription, is(notNullValue()));
+        assertThat(subscriber.errors.poll(),
+                   instanceOf(IllegalStateException.class));
+        assertThat(subscriber.completed.isEmpty(), is(true));
+    }
+
+    static class RecordingSubscriber implements BlockSubscriber {
+
+        long requestOnSubscribe;
+        volatile BlockSubscription subscription;
+        BlockingQueue<BlockRecord> blocks = new LinkedBlockingQueue<>();
+        BlockingQueue<Throwable> errors = new LinkedBlockingQueue<>();
+        BlockingQueue<Boolean> completed = new LinkedBlockingQueue<>();
+
+        long nextHeight() throws InterruptedException {
+            BlockRecord block = blocks.poll(1, TimeUnit.SECONDS);
+            assertThat(block, is(notNullValue()));
+            return block.getBlockHeight();
+        }
+
+        @Override
+        public void onSubscribe(BlockSubscription subscription) {
+            this.subscription = subscription;
+            subscription.request(requestOnSubscribe);
+        }
+
+        @Override
+        public void onNext(BlockRecord block) {
+            blocks.add(block);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            errors.add(error);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.add(true);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.cert.Field;
+import com.velopayments.blockchain.util.UuidUtil;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BlockRecordTest {
+
+    UUID blockId = UUID.randomUUID();
+    UUID prevBlockId = UUID.randomUUID();
+    UUID nextBlockId = UUID.randomUUID();
+    UUID txnId = UUID.randomUUID();
+
+    /**
+     * Encode a single certificate field.
+     */
+    static byte[] field(int fieldId, byte[] value) {
+        return ByteBuffer.allocate(4 + value.length)
+            .putShort((short)fieldId)
+            .putShort((short)value.length)
+            .put(value)
+            .array();
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteBuffer buffer = ByteBuffer.allocate(
+            Arrays.stream(parts).mapToInt(p -> p.length).sum());
+        for (byte[] part : parts) {
+            buffer.put(part);
+        }
+
+        return buffer.array();
+    }
+
+    Certificate block() {
+        byte[] txn = concat(
+            field(Field.CERTIFICATE_ID, UuidUtil.getBytesFromUUID(txnId)),
+            field(Field.ARTIFACT_ID,
+                  UuidUtil.getBytesFromUUID(UUID.randomUUID())));
+
+        return Certificate.fromByteArray(concat(
+            field(Field.BLOCK_UUID, UuidUtil.getBytesFromUUID(blockId)),
+            field(Field.PREVIOUS_BLOCK_UUID,
+                  UuidUtil.getBytesFromUUID(prevBlockId)),
+            field(Field.BLOCK_HEIGHT,
+                  ByteBuffer.allocate(8).putLong(42).array()),
+            field(Field.WRAPPED_TRANSACTION_TUPLE, txn)));
+    }
+
+    @Test
+    public void fromCertificate() {
+
+        Certificate cert = block();
+        BlockRecord record =
+            BlockRecord.fromCertificate(blockId, Optional.of(nextBlockId),
+                                        cert);
+
+        assertThat(record.getBlockId(), is(blockId));
+        assertThat(record.getPreviousBlockId(), is(prevBlockId));
+        assertThat(record.getNextBlockId(), is(Optional.of(nextBlockId)));
+        assertThat(record.getFirstTransactionId(), is(txnId));
+        assertThat(record.getBlockHeight(), is(42L));
+        assertThat(record.getCertificate(), is(sameInstance(cert)));
+    }
+
+    @Test
+    public void fromCertificate_missingFields() {
+
+        BlockRecord record = BlockRecord.fromCertificate(
+            blockId, Optional.empty(),
+            Certificate.fromByteArray(new byte[0]));
+
+        assertThat(record.getPreviousBlockId(), is(UuidUtil.EMPTY_UUID));
+        assertThat(record.getFirstTransactionId(), is(UuidUtil.EMPTY_UUID));
+        assertThat(record.getBlockHeight(), is(-1L));
+    }
+}
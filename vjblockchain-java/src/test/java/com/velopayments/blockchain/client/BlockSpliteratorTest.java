@@ -0,0 +1,115 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class BlockSpliteratorTest {
+
+    AsyncVelochainConnection conn;
+    List<UUID> chain;
+    List<Long> requestedHeights;
+
+    @Before
+    public void setup() {
+
+        conn = mock(AsyncVelochainConnection.class);
+        requestedHeights = new ArrayList<>();
+
+        // a chain of ten blocks, each certificate holding its height.
+        chain = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            chain.add(UUID.randomUUID());
+        }
+
+        when(conn.getBlockIdByBlockHeightAsync(anyLong())).thenAnswer(
+            invocation -> {
+                long height = invocation.getArgument(0);
+                requestedHeights.add(height);
+                return CompletableFuture.completedFuture(
+                    height < chain.size()
+                        ? Optional.of(chain.get((int)height))
+                        : Optional.empty());
+            });
+        when(conn.getBlockByIdAsync(any())).thenAnswer(invocation -> {
+            int height = chain.indexOf(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(
+                Optional.of(
+                    Certificate.fromByteArray(new byte[] { (byte)height })));
+        });
+    }
+
+    @Test
+    public void blocksInHeightOrder() {
+
+        List<Integer> heights =
+            blocks(2, 6, 3)
+                .map(cert -> (int)cert.toByteArray()[0])
+                .collect(Collectors.toList());
+
+        assertThat(heights, contains(2, 3, 4, 5, 6));
+        assertThat(requestedHeights, contains(2L, 3L, 4L, 5L, 6L));
+    }
+
+    @Test
+    public void prefetchesAheadOfConsumer() {
+
+        BlockSpliterator blocks = new BlockSpliterator(conn, 0, 9, 4);
+
+        // the first block is read with three more requested behind it.
+        assertThat(blocks.tryAdvance(cert -> { }), is(true));
+        assertThat(requestedHeights, contains(0L, 1L, 2L, 3L));
+
+        // each further block tops the prefetch queue back up.
+        assertThat(blocks.tryAdvance(cert -> { }), is(true));
+        assertThat(requestedHeights, contains(0L, 1L, 2L, 3L, 4L));
+    }
+
+    @Test
+    public void stopsAtEndOfChain() {
+
+        long count = blocks(7, Long.MAX_VALUE, 4).count();
+
+        assertThat(count, is(3L));
+    }
+
+    @Test
+    public void emptyRange() {
+
+        assertThat(blocks(5, 4, 4).count(), is(0L));
+        assertThat(requestedHeights, is(empty()));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void failedRead() {
+
+        CompletableFuture<Optional<UUID>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IOException());
+        when(conn.getBlockIdByBlockHeightAsync(5L)).thenReturn(failed);
+
+        blocks(3, 8, 2).count();
+    }
+
+    private Stream<Certificate>
+    blocks(long fromHeight, long toHeight, int prefetchDepth) {
+
+        return StreamSupport.stream(
+            new BlockSpliterator(conn, fromHeight, toHeight, prefetchDepth),
+            false);
+    }
+}
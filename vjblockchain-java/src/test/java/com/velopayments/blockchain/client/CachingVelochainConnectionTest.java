@@ -0,0 +1,273 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class CachingVelochainConnectionTest {
+
+    VelochainConnection conn;
+    UUID blockId;
+    UUID txnId;
+
+    @Before
+    public void setup() throws IOException {
+
+        conn = mock(VelochainConnection.class);
+        blockId = UUID.randomUUID();
+        txnId = UUID.randomUUID();
+
+        when(conn.getBlockById(any())).thenAnswer(
+            invocation -> Optional.of(certificate(100)));
+        when(conn.getTransactionById(any())).thenAnswer(
+            invocation -> Optional.of(certificate(10)));
+    }
+
+    @Test
+    public void certificatesAreCached() throws IOException {
+
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000);
+
+        Certificate first = cache.getBlockById(blockId).get();
+        Certificate second = cache.getBlockById(blockId).get();
+
+        assertThat(second, is(sameInstance(first)));
+        verify(conn, times(1)).getBlockById(blockId);
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getCachedBytes(), is(100L));
+    }
+
+    @Test
+    public void blocksAndTransactionsAreKeptApart() throws IOException {
+
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000);
+
+        cache.getBlockById(blockId);
+        cache.getTransactionById(blockId);
+
+        verify(conn).getBlockById(blockId);
+        verify(conn).getTransactionById(blockId);
+    }
+
+    @Test
+    public void missingCertificatesAreNotCachedWithoutNegativeCache()
+    throws IOException {
+
+        when(conn.getBlockById(blockId)).thenReturn(Optional.empty());
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000, 0);
+
+        assertThat(cache.getBlockById(blockId), is(Optional.empty()));
+        assertThat(cache.getBlockById(blockId), is(Optional.empty()));
+
+        verify(conn, times(2)).getBlockById(blockId);
+        assertThat(cache.getCachedBytes(), is(0L));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws IOException {
+
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 250);
+
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+
+        cache.getBlockById(a);
+        cache.getBlockById(b);
+        cache.getBlockById(a);
+
+        // a third block pushes out b, which was used least recently.
+        cache.getBlockById(c);
+
+        assertThat(cache.getEvictionCount(), is(1L));
+        assertThat(cache.getCachedBytes(), is(200L));
+
+        cache.getBlockById(a);
+        cache.getBlockById(b);
+
+        verify(conn, times(1)).getBlockById(a);
+        verify(conn, times(2)).getBlockById(b);
+    }
+
+    @Test
+    public void oversizedCertificatesAreNotCached() throws IOException {
+
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 50);
+
+        cache.getBlockById(blockId);
+
+        assertThat(cache.getCachedBytes(), is(0L));
+        assertThat(cache.getEvictionCount(), is(0L));
+    }
+
+    @Test
+    public void immutableLinksAreCached() throws IOException {
+
+        UUID prevId = UUID.randomUUID();
+        when(conn.getPrevBlockId(blockId)).thenReturn(Optional.of(prevId));
+        when(conn.getTransactionBlockId(txnId))
+            .thenReturn(Optional.of(blockId));
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000);
+
+        for (int i = 0; i < 3; ++i) {
+            assertThat(cache.getPrevBlockId(blockId), is(Optional.of(prevId)));
+            assertThat(cache.getTransactionBlockId(txnId),
+                       is(Optional.of(blockId)));
+        }
+
+        verify(conn, times(1)).getPrevBlockId(blockId);
+        verify(conn, times(1)).getTransactionBlockId(txnId);
+    }
+
+    @Test
+    public void negativeAnswersCachedUntilLatestBlockChanges()
+    throws IOException {
+
+        UUID nextBlockId = UUID.randomUUID();
+        when(conn.getLatestBlockId()).thenReturn(blockId, nextBlockId);
+        when(conn.getTransactionBlockId(txnId))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(nextBlockId));
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000, 60000);
+
+        assertThat(cache.getLatestBlockId(), is(blockId));
+        assertThat(cache.getTransactionBlockId(txnId), is(Optional.empty()));
+        assertThat(cache.getTransactionBlockId(txnId), is(Optional.empty()));
+        verify(conn, times(1)).getTransactionBlockId(txnId);
+
+        // a new block invalidates the negative answer.
+        assertThat(cache.getLatestBlockId(), is(nextBlockId));
+        assertThat(cache.getTransactionBlockId(txnId),
+                   is(Optional.of(nextBlockId)));
+        verify(conn, times(2)).getTransactionBlockId(txnId);
+    }
+
+    @Test
+    public void negativeAnswersRecheckLatestBlockAfterTtl()
+    throws Exception {
+
+        when(conn.getLatestBlockId()).thenReturn(blockId);
+        when(conn.getNextBlockId(blockId)).thenReturn(Optional.empty());
+        when(conn.getBlockById(txnId)).thenReturn(Optional.empty());
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000, 20);
+
+        cache.getLatestBlockId();
+        cache.getNextBlockId(blockId);
+        cache.getBlockById(txnId);
+        Thread.sleep(40);
+
+        // the expired check is made once, and covers both negative answers.
+        assertThat(cache.getNextBlockId(blockId), is(Optional.empty()));
+        assertThat(cache.getBlockById(txnId), is(Optional.empty()));
+
+        verify(conn, times(2)).getLatestBlockId();
+        verify(conn, times(1)).getNextBlockId(blockId);
+        verify(conn, times(1)).getBlockById(txnId);
+    }
+
+    @Test
+    public void mutableLookupsPassThrough() throws IOException {
+
+        when(conn.getLatestBlockId()).thenReturn(blockId);
+        when(conn.getLastTransactionIdForArtifactById(txnId))
+            .thenReturn(Optional.of(UUID.randomUUID()));
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000);
+
+        cache.getLatestBlockId();
+        cache.getLatestBlockId();
+        cache.getLastTransactionIdForArtifactById(txnId);
+        cache.getLastTransactionIdForArtifactById(txnId);
+
+        verify(conn, times(2)).getLatestBlockId();
+        verify(conn, times(2)).getLastTransactionIdForArtifactById(txnId);
+    }
+
+    @Test
+    public void blockRecordFillsCache() throws IOException {
+
+        UUID prevId = UUID.randomUUID();
+        Certificate cert = certificate(20);
+        when(conn.getBlockRecordById(blockId)).thenReturn(
+            Optional.of(
+                new BlockRecord(blockId, prevId, Optional.empty(),
+                                txnId, 7, cert)));
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000);
+
+        cache.getBlockRecordById(blockId);
+
+        assertThat(cache.getBlockById(blockId).get(), is(sameInstance(cert)));
+        assertThat(cache.getPrevBlockId(blockId), is(Optional.of(prevId)));
+        assertThat(cache.getBlockIdByBlockHeight(7), is(Optional.of(blockId)));
+        verify(conn, never()).getBlockById(any());
+        verify(conn, never()).getPrevBlockId(any());
+        verify(conn, never()).getBlockIdByBlockHeight(anyLong());
+    }
+
+    @Test
+    public void bulkLookupOnlyFetchesMisses() throws IOException {
+
+        UUID other = UUID.randomUUID();
+        when(conn.getTransactionsByIds(any())).thenReturn(
+            Collections.singletonMap(other, Optional.of(certificate(10))));
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000);
+
+        cache.getTransactionById(txnId);
+        Map<UUID, Optional<Certificate>> certs =
+            cache.getTransactionsByIds(Arrays.asList(other, txnId));
+
+        assertThat(certs.keySet(), contains(other, txnId));
+        verify(conn).getTransactionsByIds(Collections.singletonList(other));
+        assertThat(cache.getCachedBytes(), is(20L));
+    }
+
+    @Test
+    public void bulkLookupPartialFailure() throws IOException {
+
+        UUID other = UUID.randomUUID();
+        IOException failure = new IOException();
+        when(conn.getTransactionsByIds(any())).thenThrow(
+            new PartialResultException(
+                Collections.emptyMap(),
+                Collections.singletonMap(other, failure)));
+        CachingVelochainConnection cache =
+            new CachingVelochainConnection(conn, 1000);
+
+        cache.getTransactionById(txnId);
+        try {
+            cache.getTransactionsByIds(Arrays.asList(txnId, other));
+            fail("Expected a PartialResultException.");
+        } catch (PartialResultException e) {
+            assertThat(e.getResults().keySet(), contains(txnId));
+            assertThat(e.getFailures().get(other),
+                       is(sameInstance(failure)));
+        }
+    }
+
+    private static Certificate certificate(int size) {
+        return Certificate.fromByteArray(new byte[size]);
+    }
+}
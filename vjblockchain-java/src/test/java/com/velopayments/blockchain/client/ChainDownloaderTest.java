@@ -0,0 +1,169 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.cert.Certificate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class ChainDownloaderTest {
+
+    static final int CHAIN_LENGTH = 100;
+
+    List<UUID> chain;
+
+    @Before
+    public void setup() {
+
+        chain = new ArrayList<>();
+        for (int i = 0; i < CHAIN_LENGTH; ++i) {
+            chain.add(UUID.randomUUID());
+        }
+    }
+
+    /**
+     * Mock a connection to an agent holding the chain.  Each certificate
+     * holds the low byte of its block height.  When slow is set, every block
+     * is delayed, so that other connections run ahead of this one.
+     */
+    AsyncVelochainConnection connection(boolean slow) throws IOException {
+
+        AsyncVelochainConnection conn = mock(AsyncVelochainConnection.class);
+
+        when(conn.getBlockIdByBlockHeightAsync(anyLong())).thenAnswer(
+            invocation -> {
+                long height = invocation.getArgument(0);
+                return CompletableFuture.completedFuture(
+                    height < chain.size()
+                        ? Optional.of(chain.get((int)height))
+                        : Optional.empty());
+            });
+        when(conn.getBlockByIdAsync(any())).thenAnswer(invocation -> {
+            int height = chain.indexOf(invocation.getArgument(0));
+            return CompletableFuture.supplyAsync(() -> {
+                if (slow) {
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return Optional.of(
+                    Certificate.fromByteArray(new byte[] { (byte)height }));
+            });
+        });
+
+        UUID latest = chain.get(chain.size() - 1);
+        when(conn.getLatestBlockId()).thenReturn(latest);
+        when(conn.getBlockRecordById(latest)).thenReturn(
+            Optional.of(
+                new BlockRecord(
+                    latest, chain.get(chain.size() - 2), Optional.empty(),
+                    UUID.randomUUID(), chain.size() - 1,
+                    Certificate.fromByteArray(new byte[] { 0 }))));
+
+        return conn;
+    }
+
+    @Test
+    public void downloadDeliversBlocksInHeightOrder() throws IOException {
+
+        ChainDownloader downloader =
+            new ChainDownloader(
+                Arrays.asList(connection(true), connection(false),
+                              connection(false)),
+                7, 20, 4);
+
+        List<Long> heights = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> contents =
+            Collections.synchronizedList(new ArrayList<>());
+
+        long count = downloader.download((height, block) -> {
+            heights.add(height);
+            contents.add((int)block.toByteArray()[0]);
+        });
+
+        assertThat(count, is((long)CHAIN_LENGTH));
+        assertThat(heights, hasSize(CHAIN_LENGTH));
+        for (int i = 0; i < CHAIN_LENGTH; ++i) {
+            assertThat(heights.get(i), is((long)i));
+            assertThat(contents.get(i), is(i));
+        }
+    }
+
+    @Test
+    public void downloadRange() throws IOException {
+
+        ChainDownloader downloader =
+            new ChainDownloader(
+                Arrays.asList(connection(false), connection(false)),
+                3, 4, 2);
+
+        List<Long> heights = new ArrayList<>();
+
+        long count = downloader.download(
+            10, 19, (height, block) -> heights.add(height));
+
+        assertThat(count, is(10L));
+        assertThat(heights,
+            contains(10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L));
+    }
+
+    @Test
+    public void downloadMissingBlockFails() throws IOException {
+
+        ChainDownloader downloader =
+            new ChainDownloader(
+                Arrays.asList(connection(false), connection(false)),
+                10, 50, 4);
+
+        List<Long> heights = new ArrayList<>();
+
+        try {
+            downloader.download(
+                90, 120, (height, block) -> heights.add(height));
+            fail("Expected an IOException for the missing block.");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("Missing block"));
+        }
+
+        assertThat(heights, everyItem(lessThan(100L)));
+    }
+
+    @Test
+    public void sinkFailureStopsDownload() throws IOException {
+
+        ChainDownloader downloader =
+            new ChainDownloader(
+                Arrays.asList(connection(false), connection(false)),
+                5, 10, 4);
+
+        try {
+            downloader.download((height, block) -> {
+                if (height == 42) {
+                    throw new IOException("sink full");
+                }
+            });
+            fail("Expected the sink failure to propagate.");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("sink full"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noConnections() {
+        new ChainDownloader(Collections.emptyList(), 10, 10, 4);
+    }
+}
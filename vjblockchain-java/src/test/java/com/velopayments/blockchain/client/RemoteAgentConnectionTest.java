@@ -0,0 +1,204 @@
+package com.velopayments.blockchain.client;
+
+import com.velopayments.blockchain.agentd.DataChannel;
+import com.velopayments.blockchain.agentd.ProtocolHandler;
+import com.velopayments.blockchain.cert.Certificate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class RemoteAgentConnectionTest {
+
+    DataChannel dataChannel;
+    ProtocolHandler protocolHandler;
+    LinkedBlockingQueue<CompletableFuture<Long>> submissions;
+
+    @Before
+    public void setup() {
+
+        dataChannel = mock(DataChannel.class);
+        protocolHandler = mock(ProtocolHandler.class);
+        submissions = new LinkedBlockingQueue<>();
+
+        // each submission is answered when the test completes its future.
+        when(protocolHandler.submitAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<Long> submission = new CompletableFuture<>();
+            submissions.add(submission);
+            return submission;
+        });
+    }
+
+    @Test
+    public void submitAsync_statusMapping() throws Exception {
+        RemoteAgentConnection conn =
+            new RemoteAgentConnection(dataChannel, protocolHandler, 3, 10);
+
+        CompletableFuture<TransactionStatus> accepted =
+            conn.submitAsync(certificate(1));
+        CompletableFuture<TransactionStatus> rejected =
+            conn.submitAsync(certificate(2));
+        CompletableFuture<TransactionStatus> disconnected =
+            conn.submitAsync(certificate(3));
+
+        submissions.take().complete(0L);
+        submissions.take().complete(1L);
+        submissions.take().completeExceptionally(new IOException());
+
+        assertEquals(TransactionStatus.SUCCEEDED, accepted.get());
+        assertEquals(TransactionStatus.FAILED, rejected.get());
+        assertEquals(TransactionStatus.FAILED, disconnected.get());
+    }
+
+    @Test
+    public void close_releasesSessionAfterChannel() throws Exception {
+        RemoteAgentConnection conn =
+            new RemoteAgentConnection(dataChannel, protocolHandler, 3, 10);
+        doThrow(new IOException()).when(dataChannel).close();
+
+        try {
+            conn.close();
+            fail("expected IOException");
+        } catch (IOException e) {
+            // the session is released even when the channel fails to close.
+        }
+
+        verify(dataChannel).close();
+        verify(protocolHandler).close();
+    }
+
+    @Test
+    public void submitBatch_boundedWindow() throws Exception {
+        RemoteAgentConnection conn =
+            new RemoteAgentConnection(dataChannel, protocolHandler, 2, 10);
+
+        List<Certificate> batch = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            batch.add(certificate(i));
+        }
+
+        CompletableFuture<List<TransactionStatus>> result =
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return conn.submitBatch(batch);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+        // only two submissions are sent before a reply arrives.
+        CompletableFuture<Long> first = submissions.poll(1, TimeUnit.SECONDS);
+        CompletableFuture<Long> second = submissions.poll(1, TimeUnit.SECONDS);
+        assertNull(submissions.poll(100, TimeUnit.MILLISECONDS));
+
+        // replies may arrive out of order, each opening the window by one.
+        second.complete(0L);
+        CompletableFuture<Long> third = submissions.poll(1, TimeUnit.SECONDS);
+        assertNull(submissions.poll(100, TimeUnit.MILLISECONDS));
+
+        first.complete(1L);
+        CompletableFuture<Long> fourth = submissions.poll(1, TimeUnit.SECONDS);
+        third.complete(0L);
+        CompletableFuture<Long> fifth = submissions.poll(1, TimeUnit.SECONDS);
+        fourth.complete(0L);
+        fifth.complete(0L);
+
+        // statuses are returned in submission order.
+        assertEquals(
+            Arrays.asList(
+                TransactionStatus.FAILED, TransactionStatus.SUCCEEDED,
+                TransactionStatus.SUCCEEDED, TransactionStatus.SUCCEEDED,
+                TransactionStatus.SUCCEEDED),
+            result.get(1, TimeUnit.SECONDS));
+        verify(protocolHandler, times(5)).submitAsync(any());
+    }
+
+    @Test
+    public void getTransactionsByIds_sentTogether() throws Exception {
+        RemoteAgentConnection conn =
+            new RemoteAgentConnection(dataChannel, protocolHandler, 1, 10);
+
+        UUID found = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        CompletableFuture<Optional<Certificate>> foundReply =
+            new CompletableFuture<>();
+        CompletableFuture<Optional<Certificate>> missingReply =
+            new CompletableFuture<>();
+        when(protocolHandler.getTransactionByIdAsync(found))
+            .thenReturn(foundReply);
+        when(protocolHandler.getTransactionByIdAsync(missing))
+            .thenReturn(missingReply);
+
+        CompletableFuture<Map<UUID, Optional<Certificate>>> result =
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return conn.getTransactionsByIds(
+                        Arrays.asList(found, missing, found));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+        // both lookups are sent before either reply arrives, and the
+        // duplicate id is only looked up once.
+        verify(protocolHandler, timeout(1000)).getTransactionByIdAsync(found);
+        verify(protocolHandler, timeout(1000))
+            .getTransactionByIdAsync(missing);
+
+        missingReply.complete(Optional.empty());
+        foundReply.complete(Optional.of(certificate(1)));
+
+        Map<UUID, Optional<Certificate>> certs =
+            result.get(1, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList(found, missing),
+                     new ArrayList<>(certs.keySet()));
+        assertEquals(1, certs.get(found).get().toByteArray()[0]);
+        assertEquals(Optional.empty(), certs.get(missing));
+        verify(protocolHandler, times(2)).getTransactionByIdAsync(any());
+    }
+
+    @Test
+    public void getBlocksByIds_partialFailure() throws Exception {
+        RemoteAgentConnection conn =
+            new RemoteAgentConnection(dataChannel, protocolHandler, 1, 10);
+
+        UUID good = UUID.randomUUID();
+        UUID bad = UUID.randomUUID();
+        IOException failure = new IOException("lost");
+        CompletableFuture<Optional<Certificate>> badReply =
+            new CompletableFuture<>();
+        badReply.completeExceptionally(failure);
+        when(protocolHandler.getBlockByIdAsync(good)).thenReturn(
+            CompletableFuture.completedFuture(Optional.of(certificate(2))));
+        when(protocolHandler.getBlockByIdAsync(bad)).thenReturn(badReply);
+
+        try {
+            conn.getBlocksByIds(Arrays.asList(good, bad));
+            fail("Expected a PartialResultException.");
+        } catch (PartialResultException e) {
+            assertEquals(Collections.singleton(good),
+                         e.getResults().keySet());
+            assertSame(failure, e.getFailures().get(bad));
+        }
+    }
+
+    private static Certificate certificate(int i) {
+        return Certificate.fromByteArray(new byte[] { (byte)i });
+    }
+}
@@ -0,0 +1,222 @@
+package com.velopayments.blockchain.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class VelochainConnectionPoolTest {
+
+    LinkedBlockingQueue<VelochainConnection> opened;
+    VelochainConnectionPool pool;
+
+    @Before
+    public void setup() {
+        opened = new LinkedBlockingQueue<>();
+    }
+
+    @After
+    public void teardown() {
+        if (null != pool) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Open a mock connection which reports a valid status.
+     */
+    private VelochainConnection connect() throws IOException {
+        VelochainConnection conn = mock(VelochainConnection.class);
+        when(conn.getConnectionStatus()).thenReturn(0);
+        opened.add(conn);
+
+        return conn;
+    }
+
+    @Test
+    public void warmsAllConnections() throws Exception {
+        pool = new VelochainConnectionPool(this::connect, 4, 60000);
+
+        assertEquals(4, opened.size());
+        assertEquals(4, pool.getIdleCount());
+    }
+
+    @Test
+    public void invalidIntervalOpensNoConnections() throws Exception {
+        try {
+            pool = new VelochainConnectionPool(this::connect, 2, 0);
+            fail("Expected an IllegalArgumentException.");
+        } catch (IllegalArgumentException e) {
+        }
+
+        assertEquals(0, opened.size());
+    }
+
+    @Test
+    public void leaseAndReturn() throws Exception {
+        pool = new VelochainConnectionPool(this::connect, 2, 60000);
+
+        VelochainConnection first = pool.lease();
+        VelochainConnection second = pool.lease();
+        assertEquals(0, pool.getIdleCount());
+
+        first.close();
+        assertEquals(1, pool.getIdleCount());
+
+        // closing twice does not return the connection twice.
+        first.close();
+        assertEquals(1, pool.getIdleCount());
+
+        second.close();
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(2, opened.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void returnedLeaseCannotBeUsed() throws Exception {
+        pool = new VelochainConnectionPool(this::connect, 1, 60000);
+
+        VelochainConnection conn = pool.lease();
+        conn.close();
+
+        conn.getLatestBlockId();
+    }
+
+    @Test(expected = IOException.class)
+    public void leaseTimesOut() throws Exception {
+        pool = new VelochainConnectionPool(this::connect, 1, 60000);
+        pool.lease();
+
+        pool.lease(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void closeWakesWaitingLease() throws Exception {
+        pool = new VelochainConnectionPool(this::connect, 1, 60000);
+        pool.lease();
+
+        CompletableFuture<VelochainConnection> waiting =
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return pool.lease();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        pool.close();
+
+        // the waiting lease fails once it sees that the pool is closed.
+        try {
+            waiting.get(1, TimeUnit.SECONDS);
+            fail("Expected an IOException.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void brokenConnectionIsReplaced() throws Exception {
+        pool = new VelochainConnectionPool(this::connect, 1, 60000);
+        VelochainConnection broken = opened.take();
+        when(broken.getLatestBlockId()).thenThrow(new ConnectException());
+
+        VelochainConnection conn = pool.lease();
+        try {
+            conn.getLatestBlockId();
+            fail("Expected a ConnectException.");
+        } catch (ConnectException e) {
+        }
+        conn.close();
+
+        // the broken connection is closed and a new one takes its place.
+        verify(broken).close();
+        VelochainConnection replacement = opened.take();
+        UUID latest = UUID.randomUUID();
+        when(replacement.getLatestBlockId()).thenReturn(latest);
+
+        conn = pool.lease();
+        assertEquals(latest, conn.getLatestBlockId());
+        conn.close();
+    }
+
+    @Test
+    public void requestErrorKeepsConnection() throws Exception {
+        pool = new VelochainConnectionPool(this::connect, 1, 60000);
+        VelochainConnection pooled = opened.take();
+        when(pooled.getLatestBlockId())
+            .thenThrow(new IllegalArgumentException());
+
+        VelochainConnection conn = pool.lease();
+        try {
+            conn.getLatestBlockId();
+            fail("Expected an IllegalArgumentException.");
+        } catch (IllegalArgumentException e) {
+        }
+        conn.close();
+
+        // the connection is returned to the pool rather than replaced.
+        verify(pooled, never()).close();
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(0, opened.size());
+    }
+
+    @Test
+    public void invalidIdleConnectionIsReplaced() throws Exception {
+        pool = new VelochainConnectionPool(this::connect, 1, 10);
+        VelochainConnection broken = opened.take();
+        when(broken.getConnectionStatus()).thenThrow(new ConnectException());
+
+        // the validator closes the broken connection and replaces it.
+        opened.take();
+        verify(broken, timeout(1000)).close();
+    }
+
+    @Test
+    public void hungValidationIsReplaced() throws Exception {
+        AsyncVelochainConnection hung = mock(AsyncVelochainConnection.class);
+        when(hung.getConnectionStatusAsync())
+            .thenReturn(new CompletableFuture<>());
+        AtomicInteger attempts = new AtomicInteger();
+        pool = new VelochainConnectionPool(() -> {
+            if (attempts.getAndIncrement() == 0) {
+                return hung;
+            }
+            return connect();
+        }, 1, 10);
+
+        // the validator gives up on the hung connection and replaces it.
+        verify(hung, timeout(1000)).close();
+        opened.take();
+    }
+
+    @Test
+    public void failedWarmupClosesOpenedConnections() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            pool = new VelochainConnectionPool(() -> {
+                if (attempts.getAndIncrement() > 0) {
+                    throw new ConnectException();
+                }
+                return connect();
+            }, 2, 60000);
+            fail("Expected an IOException.");
+        } catch (IOException e) {
+        }
+
+        verify(opened.take()).close();
+    }
+}
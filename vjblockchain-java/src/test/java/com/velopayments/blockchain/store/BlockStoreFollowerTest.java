@@ -0,0 +1,90 @@
+package com.velopayments.blockchain.store;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.cert.CertificateType;
+import com.velopayments.blockchain.client.BlockPublisher;
+import com.velopayments.blockchain.client.BlockRecord;
+import com.velopayments.blockchain.client.BlockSubscription;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class BlockStoreFollowerTest {
+
+    LocalBlockStore store;
+    BlockSubscription subscription;
+    BlockStoreFollower follower;
+
+    @Before
+    public void setup() {
+
+        store = mock(LocalBlockStore.class);
+        subscription = mock(BlockSubscription.class);
+        follower = new BlockStoreFollower(store, 2);
+    }
+
+    @Test
+    public void followsFromLatestStoredBlock() {
+
+        UUID latest = UUID.randomUUID();
+        BlockPublisher publisher = mock(BlockPublisher.class);
+        when(store.getLatestBlockId()).thenReturn(Optional.of(latest));
+
+        follower.follow(publisher);
+
+        verify(publisher).subscribe(follower, latest);
+    }
+
+    @Test
+    public void followsFromRootWhenEmpty() {
+
+        BlockPublisher publisher = mock(BlockPublisher.class);
+        when(store.getLatestBlockId()).thenReturn(Optional.empty());
+
+        follower.follow(publisher);
+
+        verify(publisher).subscribe(follower, CertificateType.ROOT_BLOCK);
+    }
+
+    @Test
+    public void appendsAndRequestsInBatches() throws IOException {
+
+        follower.onSubscribe(subscription);
+        verify(subscription, times(1)).request(2);
+
+        follower.onNext(block());
+        verify(subscription, times(1)).request(2);
+
+        follower.onNext(block());
+        verify(subscription, times(2)).request(2);
+        verify(store, times(2)).append(Mockito.any(BlockRecord.class));
+    }
+
+    @Test
+    public void appendFailureCancels() throws IOException {
+
+        IOException failure = new IOException();
+        doThrow(failure).when(store).append(Mockito.any(BlockRecord.class));
+
+        follower.onSubscribe(subscription);
+        follower.onNext(block());
+
+        verify(subscription).cancel();
+        assertThat(follower.getFailure(), is(Optional.of(failure)));
+    }
+
+    private static BlockRecord block() {
+
+        return new BlockRecord(
+            UUID.randomUUID(), UUID.randomUUID(), Optional.empty(),
+            UUID.randomUUID(), 1, Certificate.fromByteArray(new byte[1]));
+    }
+}
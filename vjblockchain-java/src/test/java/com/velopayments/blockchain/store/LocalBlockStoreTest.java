@@ -0,0 +1,161 @@
+package com.velopayments.blockchain.store;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.client.BlockRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LocalBlockStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Path directory;
+    LocalBlockStore store;
+    List<UUID> blockIds;
+
+    @Before
+    public void setup() throws IOException {
+
+        directory = folder.getRoot().toPath().resolve("blockdb");
+        store = new LocalBlockStore(directory, 100);
+        blockIds = new ArrayList<>();
+    }
+
+    @After
+    public void teardown() throws IOException {
+        store.close();
+    }
+
+    /**
+     * Append blocks starting at height 1, each certificate holding its height
+     * and padded to the given size.
+     */
+    void appendBlocks(int n, int size) throws IOException {
+
+        for (int i = 0; i < n; ++i) {
+            UUID blockId = UUID.randomUUID();
+            long height = blockIds.size() + 1;
+            byte[] cert = new byte[size];
+            cert[0] = (byte)height;
+
+            store.append(height, blockId, Certificate.fromByteArray(cert));
+            blockIds.add(blockId);
+        }
+    }
+
+    @Test
+    public void emptyStore() {
+
+        assertThat(store.getBlockCount(), is(0L));
+        assertThat(store.getLatestBlockId(), is(Optional.empty()));
+        assertThat(store.getBlockIdByBlockHeight(0), is(Optional.empty()));
+        assertThat(store.getBlockById(UUID.randomUUID()),
+                   is(Optional.empty()));
+    }
+
+    @Test
+    public void readAppendedBlocks() throws IOException {
+
+        appendBlocks(5, 10);
+
+        assertThat(store.getBlockCount(), is(5L));
+        assertThat(store.getLatestBlockId(), is(Optional.of(blockIds.get(4))));
+        for (int height = 1; height <= 5; ++height) {
+            UUID blockId = blockIds.get(height - 1);
+
+            assertThat(store.getBlockIdByBlockHeight(height),
+                       is(Optional.of(blockId)));
+            assertThat(store.getBlockHeight(blockId),
+                       is(Optional.of((long)height)));
+
+            byte[] cert = store.getBlockById(blockId).get().toByteArray();
+            assertThat(cert.length, is(10));
+            assertThat(cert[0], is((byte)height));
+        }
+
+        assertThat(store.getBlockIdByBlockHeight(0), is(Optional.empty()));
+        assertThat(store.getBlockIdByBlockHeight(6), is(Optional.empty()));
+    }
+
+    @Test
+    public void segmentsRollOver() throws IOException {
+
+        // three 30 byte records fit in a 100 byte segment, and a block
+        // larger than a segment gets one of its own.
+        appendBlocks(7, 10);
+        appendBlocks(1, 200);
+        appendBlocks(1, 10);
+
+        assertThat(segmentFiles(), hasSize(5));
+        assertThat(store.getBlockById(blockIds.get(7)).get().size(), is(200));
+        assertThat(store.getBlockById(blockIds.get(8)).get().toByteArray()[0],
+                   is((byte)9));
+    }
+
+    @Test
+    public void reopenRestoresBlocks() throws IOException {
+
+        appendBlocks(7, 10);
+        store.close();
+
+        store = new LocalBlockStore(directory, 100);
+
+        assertThat(store.getBlockCount(), is(7L));
+        assertThat(store.getBlockHeight(blockIds.get(3)),
+                   is(Optional.of(4L)));
+        assertThat(store.getBlockById(blockIds.get(6)).get().toByteArray()[0],
+                   is((byte)7));
+
+        // appends continue after the last stored block.
+        appendBlocks(2, 10);
+        assertThat(store.getBlockById(blockIds.get(8)).get().toByteArray()[0],
+                   is((byte)9));
+        assertThat(store.getBlockById(blockIds.get(6)).get().toByteArray()[0],
+                   is((byte)7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void heightGap() throws IOException {
+
+        appendBlocks(2, 10);
+        store.append(4, UUID.randomUUID(), Certificate.fromByteArray(
+            new byte[] { 4 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void blockMustFollowLatest() throws IOException {
+
+        appendBlocks(2, 10);
+        store.append(
+            new BlockRecord(
+                UUID.randomUUID(), UUID.randomUUID(), Optional.empty(),
+                UUID.randomUUID(), 3,
+                Certificate.fromByteArray(new byte[] { 3 })));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(f -> f.getFileName().toString().startsWith("segment"))
+                .collect(Collectors.toList());
+        }
+    }
+}
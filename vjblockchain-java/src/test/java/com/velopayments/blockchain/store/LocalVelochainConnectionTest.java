@@ -0,0 +1,218 @@
+package com.velopayments.blockchain.store;
+
+import com.velopayments.blockchain.cert.Certificate;
+import com.velopayments.blockchain.cert.CertificateType;
+import com.velopayments.blockchain.cert.Field;
+import com.velopayments.blockchain.client.BlockRecord;
+import com.velopayments.blockchain.client.TransactionRecord;
+import com.velopayments.blockchain.util.UuidUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LocalVelochainConnectionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Path directory;
+    LocalBlockStore store;
+    LocalVelochainConnection conn;
+    UUID rootPrevId;
+    UUID[] blockIds;
+    UUID artifactId;
+    UUID[] txnIds;
+    Certificate[] txns;
+
+    @Before
+    public void setup() throws IOException {
+
+        directory = folder.getRoot().toPath().resolve("blockdb");
+        store = new LocalBlockStore(directory, 200);
+        conn = new LocalVelochainConnection(store);
+
+        // three blocks from height 5, the first holding two transactions for
+        // one artifact and the last holding a third.
+        rootPrevId = UUID.randomUUID();
+        blockIds = new UUID[] {
+            UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID() };
+        artifactId = UUID.randomUUID();
+        txnIds = new UUID[] {
+            UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID() };
+        txns = new Certificate[3];
+        for (int i = 0; i < 3; ++i) {
+            txns[i] = transaction(txnIds[i], artifactId);
+        }
+
+        store.append(5, blockIds[0], block(rootPrevId, txns[0], txns[1]));
+        store.append(6, blockIds[1], block(blockIds[0]));
+        store.append(7, blockIds[2], block(blockIds[1], txns[2]));
+    }
+
+    @After
+    public void teardown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void blockQueries() {
+
+        assertThat(conn.getLatestBlockId(), is(blockIds[2]));
+        assertThat(conn.getBlockIdByBlockHeight(6),
+                   is(Optional.of(blockIds[1])));
+        assertThat(conn.getNextBlockId(blockIds[0]),
+                   is(Optional.of(blockIds[1])));
+        assertThat(conn.getNextBlockId(blockIds[2]), is(Optional.empty()));
+        assertThat(conn.getPrevBlockId(blockIds[1]),
+                   is(Optional.of(blockIds[0])));
+
+        // the first stored block reads its previous block from the
+        // certificate.
+        assertThat(conn.getPrevBlockId(blockIds[0]),
+                   is(Optional.of(rootPrevId)));
+    }
+
+    @Test
+    public void blockRecord() {
+
+        BlockRecord block = conn.getBlockRecordById(blockIds[0]).get();
+
+        assertThat(block.getBlockHeight(), is(5L));
+        assertThat(block.getPreviousBlockId(), is(rootPrevId));
+        assertThat(block.getNextBlockId(), is(Optional.of(blockIds[1])));
+        assertThat(block.getFirstTransactionId(), is(txnIds[0]));
+
+        // a block without transactions has a nil first transaction.
+        assertThat(
+            conn.getBlockRecordById(blockIds[1]).get().getFirstTransactionId(),
+            is(UuidUtil.EMPTY_UUID));
+    }
+
+    @Test
+    public void transactionsAreSlicedFromBlocks() {
+
+        for (int i = 0; i < 3; ++i) {
+            assertThat(conn.getTransactionById(txnIds[i]).get().toByteArray(),
+                       is(txns[i].toByteArray()));
+        }
+        assertThat(conn.getTransactionBlockId(txnIds[2]),
+                   is(Optional.of(blockIds[2])));
+        assertThat(conn.getTransactionById(UUID.randomUUID()),
+                   is(Optional.empty()));
+    }
+
+    @Test
+    public void artifactHistory() {
+
+        assertThat(conn.getFirstTransactionIdForArtifactById(artifactId),
+                   is(Optional.of(txnIds[0])));
+        assertThat(conn.getLastTransactionIdForArtifactById(artifactId),
+                   is(Optional.of(txnIds[2])));
+        assertThat(conn.getNextTransactionIdForTransactionById(txnIds[1]),
+                   is(Optional.of(txnIds[2])));
+        assertThat(conn.getPreviousTransactionIdForTransactionById(txnIds[1]),
+                   is(Optional.of(txnIds[0])));
+        assertThat(conn.getPreviousTransactionIdForTransactionById(txnIds[0]),
+                   is(Optional.empty()));
+
+        TransactionRecord txn = conn.getTransactionRecordById(txnIds[2]).get();
+        assertThat(txn.getArtifactId(), is(artifactId));
+        assertThat(txn.getBlockId(), is(blockIds[2]));
+        assertThat(txn.getPreviousTransactionId(),
+                   is(Optional.of(txnIds[1])));
+        assertThat(txn.getNextTransactionId(), is(Optional.empty()));
+    }
+
+    @Test
+    public void indexesRebuiltOnOpen() throws IOException {
+
+        store.close();
+        store = new LocalBlockStore(directory, 200);
+        conn = new LocalVelochainConnection(store);
+
+        assertThat(store.getTransactionCount(), is(3L));
+        assertThat(conn.getLastTransactionIdForArtifactById(artifactId),
+                   is(Optional.of(txnIds[2])));
+        assertThat(conn.getTransactionBlockId(txnIds[0]),
+                   is(Optional.of(blockIds[0])));
+    }
+
+    @Test
+    public void emptyStoreIsAtRoot() throws IOException {
+
+        LocalBlockStore empty =
+            new LocalBlockStore(folder.newFolder().toPath());
+        try {
+            assertThat(new LocalVelochainConnection(empty).getLatestBlockId(),
+                       is(CertificateType.ROOT_BLOCK));
+        } finally {
+            empty.close();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void submitUnsupported() {
+
+        conn.submit(txns[0]);
+    }
+
+    /**
+     * Build a transaction certificate holding its id and artifact id.
+     */
+    static Certificate transaction(UUID txnId, UUID artifactId) {
+
+        return Certificate.fromByteArray(
+            concat(uuidField(Field.CERTIFICATE_ID, txnId),
+                   uuidField(Field.ARTIFACT_ID, artifactId)));
+    }
+
+    /**
+     * Build a block certificate wrapping the given transactions.
+     */
+    static Certificate block(UUID prevBlockId, Certificate... txns) {
+
+        byte[] block = uuidField(Field.PREVIOUS_BLOCK_UUID, prevBlockId);
+        for (Certificate txn : txns) {
+            block = concat(
+                block, field(Field.WRAPPED_TRANSACTION_TUPLE,
+                             txn.toByteArray()));
+        }
+
+        return Certificate.fromByteArray(block);
+    }
+
+    private static byte[] uuidField(int id, UUID uuid) {
+
+        return field(
+            id,
+            ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array());
+    }
+
+    private static byte[] field(int id, byte[] value) {
+
+        return ByteBuffer.allocate(4 + value.length)
+            .putShort((short)id)
+            .putShort((short)value.length)
+            .put(value)
+            .array();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+
+        return ByteBuffer.allocate(a.length + b.length).put(a).put(b).array();
+    }
+}
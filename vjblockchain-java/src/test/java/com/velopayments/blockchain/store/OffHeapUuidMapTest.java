@@ -0,0 +1,79 @@
+package com.velopayments.blockchain.store;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OffHeapUuidMapTest {
+
+    @Test
+    public void insertAndFind() {
+
+        OffHeapUuidMap map = new OffHeapUuidMap(24, 0);
+        UUID key = UUID.randomUUID();
+        UUID value = UUID.randomUUID();
+
+        long slot = map.insert(key);
+        map.putLong(slot, 0, 42L);
+        map.putUuid(slot, 8, value);
+
+        assertThat(map.find(key), is(slot));
+        assertThat(map.insert(key), is(slot));
+        assertThat(map.size(), is(1L));
+        assertThat(map.getLong(slot, 0), is(42L));
+        assertThat(map.getUuid(slot, 8), is(value));
+        assertThat(map.find(UUID.randomUUID()), is(-1L));
+    }
+
+    @Test
+    public void newValuesAreZeroed() {
+
+        OffHeapUuidMap map = new OffHeapUuidMap(16, 0);
+
+        long slot = map.insert(UUID.randomUUID());
+
+        assertThat(map.getUuid(slot, 0), is(nullValue()));
+    }
+
+    @Test
+    public void growKeepsEntries() {
+
+        OffHeapUuidMap map = new OffHeapUuidMap(8, 0);
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 10000; ++i) {
+            UUID key = UUID.randomUUID();
+            map.putLong(map.insert(key), 0, i);
+            keys.add(key);
+        }
+
+        assertThat(map.size(), is(10000L));
+        for (int i = 0; i < keys.size(); ++i) {
+            assertThat(map.getLong(map.find(keys.get(i)), 0), is((long)i));
+        }
+    }
+
+    @Test
+    public void keysDifferingInOneHalf() {
+
+        OffHeapUuidMap map = new OffHeapUuidMap(8, 0);
+        for (long i = 1; i <= 100; ++i) {
+            map.putLong(map.insert(new UUID(7, i)), 0, i);
+            map.putLong(map.insert(new UUID(i, 7)), 0, -i);
+        }
+
+        assertThat(map.size(), is(199L));
+        assertThat(map.getLong(map.find(new UUID(7, 50)), 0), is(50L));
+        assertThat(map.getLong(map.find(new UUID(50, 7)), 0), is(-50L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nilKeyRejected() {
+
+        new OffHeapUuidMap(8, 0).insert(new UUID(0, 0));
+    }
+}
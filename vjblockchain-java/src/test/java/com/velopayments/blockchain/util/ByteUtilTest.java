@@ -32,6 +32,31 @@ public class ByteUtilTest {
         assertThat(ByteUtil.ntohll(bytes), is(0x060708090a0b0c0dL));
     }
 
+    @Test
+    public void ntohl_inPlace() {
+
+        byte[] bytes = new byte[] { 0x01, (byte)0xfe,0x07,0x08,0x09,0x0a };
+
+        assertThat(ByteUtil.ntohl(bytes, 1), is(0xfe070809L));
+        assertThat(ByteUtil.ntohl(bytes, 2),
+                   is(ByteUtil.ntohl(new byte[] { 0x07,0x08,0x09,0x0a })));
+    }
+
+    @Test
+    public void ntohll_inPlace() {
+
+        byte[] bytes =
+            new byte[] { 0x00,0x06,0x07,0x08,0x09,0x0a,0x0b,0x0c,(byte)0x8d };
+
+        assertThat(ByteUtil.ntohll(bytes, 1), is(0x060708090a0b0c8dL));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ntohl_inPlace_pastEnd() {
+
+        ByteUtil.ntohl(new byte[6], 3);
+    }
+
     @Test
     public void roundTrip() {
 
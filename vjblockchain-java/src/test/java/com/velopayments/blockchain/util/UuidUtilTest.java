@@ -62,4 +62,18 @@ public class UuidUtilTest {
         assertThat(UuidUtil.getOptUUIDFromBytes(new byte[16]).isPresent(), is(false));
     }
 
+    @Test
+    public void bytesToUuid_inPlace() {
+
+        UUID uuid = UUID.fromString("23000000-0000-0000-0000-000000000012");
+        byte[] bytes = new byte[20];
+        System.arraycopy(UuidUtil.getBytesFromUUID(uuid), 0, bytes, 3, 16);
+
+        assertThat(UuidUtil.getUUIDFromBytes(bytes, 3), is(uuid));
+        assertThat(UuidUtil.getOptUUIDFromBytes(bytes, 3).get(), is(uuid));
+        assertThat(
+            UuidUtil.getOptUUIDFromBytes(new byte[20], 4).isPresent(),
+            is(false));
+    }
+
 }
@@ -16,27 +16,26 @@
 #include <vpr/parameters.h>
 
 #include "../init/init.h"
+#include "OuterEnvelopeSession.h"
 
 /*
  * Class:     com_velopayments_blockchain_agentd_OuterEnvelopeReader
  * Method:    decryptHeaderNative
- * Signature: ([B[B)I
+ * Signature: (JJJ[B)I
  */
 JNIEXPORT jint JNICALL 
 Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptHeaderNative(
         JNIEnv* env, jobject UNUSED(outer_env_reader), jlong nativeInst,
-        jbyteArray shared_secret, jlong iv, jbyteArray header)
+        jlong sessionPtr, jlong iv, jbyteArray header)
 {
     jint retval = -1;
-    jbyte* shared_secret_bytes;
-    vccrypt_buffer_t shared_secret_buffer;
     jbyte* header_bytes;
     vccrypt_buffer_t header_buffer;
 
     /* function contract enforcement */
     MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
     MODEL_ASSERT(0 != nativeInst);
-    MODEL_ASSERT(NULL != shared_secret);
+    MODEL_ASSERT(0 != sessionPtr);
     MODEL_ASSERT(NULL != header);
 
     /* get a pointer to the native instance. */
@@ -52,11 +51,14 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptHeaderNative(
         goto done;
     }
 
-    /* verify that the shared_secret parameter is not null. */
-    if (NULL == shared_secret)
+    /* get a pointer to the session. */
+    OuterEnvelopeSession_context* session =
+        (OuterEnvelopeSession_context*)sessionPtr;
+    if (NULL == session)
     {
         (*env)->ThrowNew(
-            env, native_inst->NullPointerException.classid, "shared_secret");
+            env, native_inst->IllegalStateException.classid,
+            "session is closed.");
         goto done;
     }
 
@@ -78,36 +80,6 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptHeaderNative(
         goto done;
     }
 
-    /* get the raw bytes of the shared secret */
-    shared_secret_bytes = (*env)->GetByteArrayElements(
-            env, shared_secret, NULL);
-    if (NULL == shared_secret_bytes)
-    {
-        (*env)->ThrowNew(
-            env, native_inst->NullPointerException.classid,
-            "shared_secret_bytes");
-        goto done;
-    }
-
-    /* create a buffer to hold the shared secret */
-    size_t shared_secret_size = (*env)->GetArrayLength(env, shared_secret);
-    if (VCCRYPT_STATUS_SUCCESS != 
-            vccrypt_buffer_init(
-                    &shared_secret_buffer, &native_inst->alloc_opts, 
-                    shared_secret_size))
-    {
-        (*env)->ThrowNew(
-            env, native_inst->IllegalStateException.classid,
-            "shared secret buffer create failure.");
-        goto shared_secret_bytes_dispose;
-    }
-
-    /* copy the shared secret to the buffer. */
-    MODEL_EXEMPT(
-        memcpy(
-            shared_secret_buffer.data, shared_secret_bytes,
-            shared_secret_size));
-
     /* get the raw bytes of the header */
     header_bytes = (*env)->GetByteArrayElements(
             env, header, NULL);
@@ -115,7 +87,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptHeaderNative(
     {
         (*env)->ThrowNew(
             env, native_inst->NullPointerException.classid, "header_bytes");
-        goto shared_secret_buffer_dispose;
+        goto done;
     }
 
     /* create a buffer to hold the header */
@@ -148,41 +120,32 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptHeaderNative(
     /* create a pointer for convenience */
     uint8_t* dheader = (uint8_t*)dheader_buffer.data;
 
-    /* create a stream cipher */
-    vccrypt_stream_context_t stream;
-    if (VCCRYPT_STATUS_SUCCESS !=
-            vccrypt_suite_stream_init(
-                    &native_inst->crypto_suite, &stream, &shared_secret_buffer))
-    {
-        (*env)->ThrowNew(
-            env, native_inst->IllegalStateException.classid,
-            "stream context failure.");
-        goto dheader_buffer_dispose;
-    }
+    /* the session's stream cipher is already keyed. */
+    vccrypt_stream_context_t* stream = &session->stream;
 
     /* start decryption of the stream. */
     uint64_t server_iv = (uint64_t)iv;
     if (VCCRYPT_STATUS_SUCCESS !=
-            vccrypt_stream_continue_decryption(&stream, &server_iv, 
+            vccrypt_stream_continue_decryption(stream, &server_iv, 
                 sizeof(server_iv), 0))
     {
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "continue_decryption failure");
-        goto stream_cipher_dispose;
+        goto dheader_buffer_dispose;
     }
 
     /* decrypt enough of the header to determine the type and size. */
     size_t offset = 0;
     if (VCCRYPT_STATUS_SUCCESS !=
             vccrypt_stream_decrypt(
-                &stream, header_buffer.data, header_size, dheader_buffer.data, 
+                stream, header_buffer.data, header_size, dheader_buffer.data, 
                 &offset))
     {
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "decryption failure");
-        goto stream_cipher_dispose;
+        goto dheader_buffer_dispose;
     }
 
     /* verify that the type is IPC_DATA_TYPE_AUTHED_PACKET. */
@@ -192,7 +155,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptHeaderNative(
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "invalid packet type");
-        goto stream_cipher_dispose;
+        goto dheader_buffer_dispose;
     }
 
     uint32_t nsize;
@@ -203,16 +166,13 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptHeaderNative(
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "invalid packet size");
-        goto stream_cipher_dispose;
+        goto dheader_buffer_dispose;
     }
 
     retval = payload_size;
 
     /* clean up resources and return */
 
-stream_cipher_dispose:
-    dispose((disposable_t*)&stream);
-
 dheader_buffer_dispose:
     dispose((disposable_t*)&dheader_buffer);
 
@@ -222,13 +182,6 @@ header_buffer_dispose:
 header_bytes_dispose:
     (*env)->ReleaseByteArrayElements(env, header, header_bytes, 0);
 
-shared_secret_buffer_dispose:
-    dispose((disposable_t*)&shared_secret_buffer);
-
-shared_secret_bytes_dispose:
-    (*env)->ReleaseByteArrayElements(
-            env, shared_secret, shared_secret_bytes, 0);
-
 done:
     return retval;
 }
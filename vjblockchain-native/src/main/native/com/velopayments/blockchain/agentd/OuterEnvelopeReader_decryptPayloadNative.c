@@ -17,21 +17,20 @@
 #include <vpr/parameters.h>
 
 #include "../init/init.h"
+#include "OuterEnvelopeSession.h"
 
 /*
  * Class:     com_velopayments_blockchain_agentd_OuterEnvelopeReader
  * Method:    decryptPayloadNative
- * Signature: ([B[B)[B
+ * Signature: (JJJ[B[B)[B
  */
 JNIEXPORT jbyteArray JNICALL 
 Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative(
         JNIEnv* env, jobject UNUSED(outer_env_reader), jlong nativeInst,
-        jbyteArray shared_secret, jlong iv, jbyteArray header,
+        jlong sessionPtr, jlong iv, jbyteArray header,
         jbyteArray payload)
 {
     jbyteArray retval = NULL;
-    jbyte* shared_secret_bytes;
-    vccrypt_buffer_t shared_secret_buffer;
     jbyte* header_bytes;
     jbyte* payload_bytes;
     vccrypt_buffer_t header_buffer;
@@ -43,7 +42,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative
     /* function contract enforcement */
     MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
     MODEL_ASSERT(0 != nativeInst);
-    MODEL_ASSERT(NULL != shared_secret);
+    MODEL_ASSERT(0 != sessionPtr);
     MODEL_ASSERT(NULL != header);
     MODEL_ASSERT(NULL != payload);
 
@@ -60,11 +59,14 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative
         goto done;
     }
 
-    /* verify that the shared_secret parameter is not null. */
-    if (NULL == shared_secret)
+    /* get a pointer to the session. */
+    OuterEnvelopeSession_context* session =
+        (OuterEnvelopeSession_context*)sessionPtr;
+    if (NULL == session)
     {
         (*env)->ThrowNew(
-            env, native_inst->NullPointerException.classid, "shared_secret");
+            env, native_inst->IllegalStateException.classid,
+            "session is closed.");
         goto done;
     }
 
@@ -84,42 +86,13 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative
         goto done;
     }
 
-    /* get the raw bytes of the shared secret */
-    shared_secret_bytes = (*env)->GetByteArrayElements(
-            env, shared_secret, NULL);
-    if (NULL == shared_secret_bytes)
-    {
-        (*env)->ThrowNew(
-            env, native_inst->NullPointerException.classid,
-            "shared_secret_bytes");
-        goto done;
-    }
-
-    /* create a buffer to hold the shared secret */
-    size_t shared_secret_size = (*env)->GetArrayLength(env, shared_secret);
-    if (VCCRYPT_STATUS_SUCCESS != 
-            vccrypt_buffer_init(
-                    &shared_secret_buffer, &native_inst->alloc_opts, 
-                    shared_secret_size))
-    {
-        (*env)->ThrowNew(
-            env, native_inst->IllegalStateException.classid,
-            "shared secret buffer create failure.");
-        goto shared_secret_bytes_dispose;
-    }
-
-    /* copy the shared secret to the buffer. */
-    MODEL_EXEMPT(
-        memcpy(shared_secret_buffer.data, shared_secret_bytes, 
-            shared_secret_size));
-
     /* get the raw bytes of the header. */
     header_bytes = (*env)->GetByteArrayElements(env, header, NULL);
     if (NULL == header_bytes)
     {
         (*env)->ThrowNew(
             env, native_inst->NullPointerException.classid, "header_bytes");
-        goto shared_secret_buffer_dispose;
+        goto done;
     }
 
     /* create a buffer to hold the header. */
@@ -180,7 +153,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative
     vccrypt_mac_context_t mac;
     if (VCCRYPT_STATUS_SUCCESS !=
             vccrypt_suite_mac_short_init(
-                    &native_inst->crypto_suite, &mac, &shared_secret_buffer))
+                    &native_inst->crypto_suite, &mac, &session->shared_secret))
     {
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
@@ -245,41 +218,32 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative
         goto digest_buffer_dispose;
     }
 
-    /* create a stream cipher */
-    vccrypt_stream_context_t stream;
-    if (VCCRYPT_STATUS_SUCCESS !=
-            vccrypt_suite_stream_init(
-                    &native_inst->crypto_suite, &stream, &shared_secret_buffer))
-    {
-        (*env)->ThrowNew(
-            env, native_inst->IllegalStateException.classid,
-            "stream context failure.");
-        goto dpayload_buffer_dispose;
-    }
+    /* the session's stream cipher is already keyed. */
+    vccrypt_stream_context_t* stream = &session->stream;
 
     /* start decryption of the stream. */
     uint64_t server_iv = (uint64_t)iv;
     if (VCCRYPT_STATUS_SUCCESS !=
-            vccrypt_stream_continue_decryption(&stream, &server_iv, 
+            vccrypt_stream_continue_decryption(stream, &server_iv, 
                 sizeof(server_iv), 5)) // TODO
     {
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "continue_decryption failure");
-        goto stream_cipher_dispose;
+        goto dpayload_buffer_dispose;
     }
 
     /* decrypt the payload. */
     size_t offset = 0;
     if (VCCRYPT_STATUS_SUCCESS !=
             vccrypt_stream_decrypt(
-                &stream, payload_begin, payload_size - mac_size, 
+                stream, payload_begin, payload_size - mac_size, 
                 dpayload_buffer.data, &offset))
     {
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "decryption failure");
-        goto stream_cipher_dispose;
+        goto dpayload_buffer_dispose;
     }
 
     /* create a byte array for the return value */
@@ -289,7 +253,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "return value array could not be allocated.");
-        goto stream_cipher_dispose;
+        goto dpayload_buffer_dispose;
     }
 
     /* get the buffer of this array. */
@@ -299,7 +263,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "return value array data could not be dereferenced.");
-        goto stream_cipher_dispose;
+        goto dpayload_buffer_dispose;
     }
 
     /* copy the data to the buffer. */
@@ -312,9 +276,6 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeReader_decryptPayloadNative
 
     /* clean up resources and return */
 
-stream_cipher_dispose:
-    dispose((disposable_t*)&stream);
-
 dpayload_buffer_dispose:
     dispose((disposable_t*)&dpayload_buffer);
 
@@ -337,13 +298,6 @@ header_bytes_dispose:
     (*env)->ReleaseByteArrayElements(
             env, header, header_bytes, 0);
 
-shared_secret_buffer_dispose:
-    dispose((disposable_t*)&shared_secret_buffer);
-
-shared_secret_bytes_dispose:
-    (*env)->ReleaseByteArrayElements(
-            env, shared_secret, shared_secret_bytes, 0);
-
 done:
     return retval;
 }
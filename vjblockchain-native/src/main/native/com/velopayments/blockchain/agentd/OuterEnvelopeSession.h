@@ -0,0 +1,38 @@
+/**
+ * \file OuterEnvelopeSession.h
+ *
+ * Native cipher state for one direction of an agentd session.  The shared
+ * secret and the keyed stream cipher are kept for the whole session, so
+ * that each packet only sets the cipher's IV.
+ *
+ * \copyright 2020 Velo Payments, Inc.  All rights reserved.
+ */
+
+#ifndef  PRIVATE_OUTER_ENVELOPE_SESSION_HEADER_GUARD
+# define PRIVATE_OUTER_ENVELOPE_SESSION_HEADER_GUARD
+
+#include <vccrypt/buffer.h>
+#include <vccrypt/stream_cipher.h>
+
+/* make this header C++ friendly */
+#ifdef __cplusplus
+extern "C" {
+#endif /*__cplusplus*/
+
+/**
+ * \brief Session cipher state.
+ */
+typedef struct OuterEnvelopeSession_context
+{
+    /* the shared secret, used to key a MAC for each packet. */
+    vccrypt_buffer_t shared_secret;
+
+    /* the stream cipher, keyed with the shared secret. */
+    vccrypt_stream_context_t stream;
+} OuterEnvelopeSession_context;
+
+#ifdef __cplusplus
+}
+#endif /*__cplusplus*/
+
+#endif /*PRIVATE_OUTER_ENVELOPE_SESSION_HEADER_GUARD*/
@@ -0,0 +1,108 @@
+/**
+ * \file OuterEnvelopeSession_createNative.c
+ *
+ * Create the native cipher state for an agentd session.
+ *
+ * \copyright 2020 Velo Payments, Inc.  All rights reserved.
+ */
+
+#include <cbmc/model_assert.h>
+#include <stdlib.h>
+#include <string.h>
+#include <vccrypt/suite.h>
+#include <vpr/parameters.h>
+#include <com_velopayments_blockchain_agentd_OuterEnvelopeSession.h>
+
+#include "../init/init.h"
+#include "OuterEnvelopeSession.h"
+
+/*
+ * Class:     com_velopayments_blockchain_agentd_OuterEnvelopeSession
+ * Method:    createNative
+ * Signature: (J[B)J
+ */
+JNIEXPORT jlong JNICALL
+Java_com_velopayments_blockchain_agentd_OuterEnvelopeSession_createNative(
+        JNIEnv* env, jclass UNUSED(clazz), jlong nativeInst,
+        jbyteArray shared_secret)
+{
+    /* function contract enforcement */
+    MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
+    MODEL_ASSERT(0 != nativeInst);
+    MODEL_ASSERT(NULL != shared_secret);
+
+    /* get a pointer to the native instance. */
+    vjblockchain_native_instance* native_inst =
+        (vjblockchain_native_instance*)nativeInst;
+
+    /* verify that the vjblockchain library has been initialized. */
+    if (!native_inst || !native_inst->initialized)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "vjblockchain not initialized.");
+        return 0;
+    }
+
+    /* verify that the shared_secret parameter is not null. */
+    if (NULL == shared_secret)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->NullPointerException.classid, "shared_secret");
+        return 0;
+    }
+
+    /* create the session. */
+    OuterEnvelopeSession_context* session =
+        (OuterEnvelopeSession_context*)
+        malloc(sizeof(OuterEnvelopeSession_context));
+    if (NULL == session)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "session create failure.");
+        return 0;
+    }
+    memset(session, 0, sizeof(*session));
+
+    /* create a buffer to hold the shared secret */
+    size_t shared_secret_size = (*env)->GetArrayLength(env, shared_secret);
+    if (VCCRYPT_STATUS_SUCCESS !=
+            vccrypt_buffer_init(
+                    &session->shared_secret, &native_inst->alloc_opts,
+                    shared_secret_size))
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "shared secret buffer create failure.");
+        goto session_free;
+    }
+
+    /* copy the shared secret to the buffer. */
+    (*env)->GetByteArrayRegion(
+        env, shared_secret, 0, shared_secret_size,
+        (jbyte*)session->shared_secret.data);
+
+    /* key the stream cipher once for the whole session. */
+    if (VCCRYPT_STATUS_SUCCESS !=
+            vccrypt_suite_stream_init(
+                    &native_inst->crypto_suite, &session->stream,
+                    &session->shared_secret))
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "stream context failure.");
+        goto shared_secret_buffer_dispose;
+    }
+
+    /* success */
+    return (jlong)session;
+
+shared_secret_buffer_dispose:
+    dispose((disposable_t*)&session->shared_secret);
+
+session_free:
+    free(session);
+
+    return 0;
+}
@@ -0,0 +1,42 @@
+/**
+ * \file OuterEnvelopeSession_releaseNative.c
+ *
+ * Release the native cipher state for an agentd session.
+ *
+ * \copyright 2020 Velo Payments, Inc.  All rights reserved.
+ */
+
+#include <cbmc/model_assert.h>
+#include <stdlib.h>
+#include <vpr/parameters.h>
+#include <com_velopayments_blockchain_agentd_OuterEnvelopeSession.h>
+
+#include "../init/init.h"
+#include "OuterEnvelopeSession.h"
+
+/*
+ * Class:     com_velopayments_blockchain_agentd_OuterEnvelopeSession
+ * Method:    releaseNative
+ * Signature: (JJ)V
+ */
+JNIEXPORT void JNICALL
+Java_com_velopayments_blockchain_agentd_OuterEnvelopeSession_releaseNative(
+        JNIEnv* env, jclass UNUSED(clazz), jlong UNUSED(nativeInst),
+        jlong sessionPtr)
+{
+    /* function contract enforcement */
+    MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
+    (void)env;
+
+    OuterEnvelopeSession_context* session =
+        (OuterEnvelopeSession_context*)sessionPtr;
+    if (NULL == session)
+    {
+        return;
+    }
+
+    /* disposing the cipher and buffer clears the key material. */
+    dispose((disposable_t*)&session->stream);
+    dispose((disposable_t*)&session->shared_secret);
+    free(session);
+}
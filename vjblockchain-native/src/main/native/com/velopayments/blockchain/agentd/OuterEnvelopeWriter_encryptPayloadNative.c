@@ -16,20 +16,19 @@
 #include <vpr/parameters.h>
 
 #include "../init/init.h"
+#include "OuterEnvelopeSession.h"
 
 /*
  * Class:     com_velopayments_blockchain_agentd_OuterEnvelopeWriter
  * Method:    encryptPayloadNative
- * Signature: ()[B
+ * Signature: (JJJ[B)[B
  */
 JNIEXPORT jbyteArray JNICALL 
 Java_com_velopayments_blockchain_agentd_OuterEnvelopeWriter_encryptPayloadNative(
         JNIEnv* env, jobject UNUSED(outer_env), jlong nativeInst,
-        jbyteArray shared_secret, jlong iv, jbyteArray payload)
+        jlong sessionPtr, jlong iv, jbyteArray payload)
 {
     jbyteArray retval = NULL;
-    jbyte* shared_secret_bytes;
-    vccrypt_buffer_t shared_secret_buffer;
     jbyte* payload_bytes;
     vccrypt_buffer_t payload_buffer;
 
@@ -39,7 +38,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeWriter_encryptPayloadNative
     /* function contract enforcement */
     MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
     MODEL_ASSERT(0 != nativeInst);
-    MODEL_ASSERT(NULL != shared_secret);
+    MODEL_ASSERT(0 != sessionPtr);
     MODEL_ASSERT(NULL != payload);
 
     /* get a pointer to the native instance. */
@@ -55,11 +54,14 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeWriter_encryptPayloadNative
         return NULL;
     }
 
-    /* verify that the shared_secret parameter is not null. */
-    if (NULL == shared_secret)
+    /* get a pointer to the session. */
+    OuterEnvelopeSession_context* session =
+        (OuterEnvelopeSession_context*)sessionPtr;
+    if (NULL == session)
     {
         (*env)->ThrowNew(
-            env, native_inst->NullPointerException.classid, "shared_secret");
+            env, native_inst->IllegalStateException.classid,
+            "session is closed.");
         return NULL;
     }
 
@@ -100,64 +102,25 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeWriter_encryptPayloadNative
         goto digest_dispose;
     }
 
-    /* get the raw bytes of the shared secret */
-    shared_secret_bytes = (*env)->GetByteArrayElements(
-            env, shared_secret, NULL);
-    if (NULL == shared_secret_bytes)
-    {
-        (*env)->ThrowNew(
-            env, native_inst->NullPointerException.classid,
-            "shared_secret_bytes");
-        goto packet_dispose;
-    }
-
-    /* create a buffer to hold the shared secret */
-    size_t shared_secret_size = (*env)->GetArrayLength(env, shared_secret);
-    if (VCCRYPT_STATUS_SUCCESS != 
-            vccrypt_buffer_init(
-                    &shared_secret_buffer, &native_inst->alloc_opts, 
-                    shared_secret_size))
-    {
-        (*env)->ThrowNew(
-            env, native_inst->IllegalStateException.classid,
-            "shared secret buffer create failure.");
-        goto shared_secret_bytes_dispose;
-    }
-
-    /* copy the shared secret to the buffer. */
-    MODEL_EXEMPT(
-        memcpy(
-            shared_secret_buffer.data, shared_secret_bytes,
-            shared_secret_size));
-
-    /* create a stream cipher */
-    vccrypt_stream_context_t stream;
-    if (VCCRYPT_STATUS_SUCCESS !=
-            vccrypt_suite_stream_init(
-                    &native_inst->crypto_suite, &stream, &shared_secret_buffer))
-    {
-        (*env)->ThrowNew(
-            env, native_inst->IllegalStateException.classid,
-            "stream context failure.");
-        goto shared_secret_buffer_dispose;
-    }
+    /* the session's stream cipher is already keyed. */
+    vccrypt_stream_context_t* stream = &session->stream;
 
     /* create a mac instance for building the packet authentication code. */
     vccrypt_mac_context_t mac;
     if (VCCRYPT_STATUS_SUCCESS !=
             vccrypt_suite_mac_short_init(
-                    &native_inst->crypto_suite, &mac, &shared_secret_buffer))
+                    &native_inst->crypto_suite, &mac, &session->shared_secret))
     {
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid,
             "mac init failure.");
-        goto stream_cipher_dispose;
+        goto packet_dispose;
     }
 
     /* start the stream cipher. */
     uint64_t client_iv = (uint64_t)iv;
     if (VCCRYPT_STATUS_SUCCESS !=
-            vccrypt_stream_continue_encryption(&stream, &client_iv, 
+            vccrypt_stream_continue_encryption(stream, &client_iv, 
                 sizeof(client_iv), 0))
     {
         (*env)->ThrowNew(
@@ -173,7 +136,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeWriter_encryptPayloadNative
     /* encrypt the type. */
     if (VCCRYPT_STATUS_SUCCESS !=
             vccrypt_stream_encrypt(
-                &stream, &type, sizeof(type), bpacket, &offset))
+                stream, &type, sizeof(type), bpacket, &offset))
     {
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid, 
@@ -184,7 +147,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeWriter_encryptPayloadNative
     /* encrypt the size. */
     if (VCCRYPT_STATUS_SUCCESS !=
             vccrypt_stream_encrypt(
-                &stream, &nsize, sizeof(nsize), bpacket, &offset))
+                stream, &nsize, sizeof(nsize), bpacket, &offset))
     {
         (*env)->ThrowNew(
             env, native_inst->IllegalStateException.classid, 
@@ -220,7 +183,7 @@ Java_com_velopayments_blockchain_agentd_OuterEnvelopeWriter_encryptPayloadNative
     /* encrypt the payload. */
     if (VCCRYPT_STATUS_SUCCESS !=
             vccrypt_stream_encrypt(
-                &stream, payload_buffer.data, payload_size, 
+                stream, payload_buffer.data, payload_size, 
                 bpacket + digest.size, &offset))
     {
         (*env)->ThrowNew(
@@ -295,16 +258,6 @@ payload_bytes_dispose:
 mac_dispose:
     dispose((disposable_t*)&mac);
 
-stream_cipher_dispose:
-    dispose((disposable_t*)&stream);
-
-shared_secret_buffer_dispose:
-    dispose((disposable_t*)&shared_secret_buffer);
-
-shared_secret_bytes_dispose:
-    (*env)->ReleaseByteArrayElements(
-            env, shared_secret, shared_secret_bytes, 0);
-
 packet_dispose:
     dispose((disposable_t*)&packet);
 
@@ -0,0 +1,40 @@
+/**
+ * \file CertificateBatchSigner.h
+ *
+ * Native signing context for CertificateBatchSigner.  The signer id and
+ * private key are copied into this context once, and used to sign every
+ * certificate in a batch.
+ *
+ * \copyright 2020 Velo Payments, Inc.  All rights reserved.
+ */
+
+#ifndef  PRIVATE_CERTIFICATE_BATCH_SIGNER_HEADER_GUARD
+# define PRIVATE_CERTIFICATE_BATCH_SIGNER_HEADER_GUARD
+
+#include <stdint.h>
+#include <vccrypt/buffer.h>
+
+/* make this header C++ friendly */
+#ifdef __cplusplus
+extern "C" {
+#endif /*__cplusplus*/
+
+/**
+ * \brief The size of a signer id.
+ */
+#define BATCH_SIGNER_ID_SIZE 16
+
+/**
+ * \brief Signing context shared by every chunk of a batch.
+ */
+typedef struct CertificateBatchSigner_context
+{
+    uint8_t signer_id[BATCH_SIGNER_ID_SIZE];
+    vccrypt_buffer_t private_key;
+} CertificateBatchSigner_context;
+
+#ifdef __cplusplus
+}
+#endif /*__cplusplus*/
+
+#endif /*PRIVATE_CERTIFICATE_BATCH_SIGNER_HEADER_GUARD*/
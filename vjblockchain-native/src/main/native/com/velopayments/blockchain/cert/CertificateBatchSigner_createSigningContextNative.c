@@ -0,0 +1,122 @@
+/**
+ * \file CertificateBatchSigner_createSigningContextNative.c
+ *
+ * Copy a signer id and private key into a native signing context.
+ *
+ * \copyright 2020 Velo Payments, Inc.  All rights reserved.
+ */
+
+#include <cbmc/model_assert.h>
+#include <stdlib.h>
+#include <string.h>
+#include <vccrypt/suite.h>
+#include <vpr/parameters.h>
+#include <com_velopayments_blockchain_cert_CertificateBatchSigner.h>
+
+#include "../init/init.h"
+#include "CertificateBatchSigner.h"
+
+/*
+ * Class:     com_velopayments_blockchain_cert_CertificateBatchSigner
+ * Method:    createSigningContextNative
+ * Signature: (J[B[B)J
+ */
+JNIEXPORT jlong JNICALL
+Java_com_velopayments_blockchain_cert_CertificateBatchSigner_createSigningContextNative(
+    JNIEnv *env, jclass UNUSED(clazz), jlong nativeInst, jbyteArray signer_id,
+    jbyteArray private_key)
+{
+    /* function contract enforcement */
+    MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
+    MODEL_ASSERT(0 != nativeInst);
+    MODEL_ASSERT(NULL != signer_id);
+    MODEL_ASSERT(NULL != private_key);
+
+    /* get a pointer to the native instance. */
+    vjblockchain_native_instance* native_inst =
+        (vjblockchain_native_instance*)nativeInst;
+
+    /* verify that the vjblockchain library has been initialized. */
+    if (!native_inst || !native_inst->initialized)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "vjblockchain not initialized.");
+        return 0;
+    }
+
+    /* verify that the signer_id parameter is not null. */
+    if (NULL == signer_id)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->NullPointerException.classid, "signerId");
+        return 0;
+    }
+
+    /* verify that the private_key parameter is not null. */
+    if (NULL == private_key)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->NullPointerException.classid, "privateKey");
+        return 0;
+    }
+
+    /* verify the signer id size matches */
+    if (BATCH_SIGNER_ID_SIZE != (*env)->GetArrayLength(env, signer_id))
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalArgumentException.classid,
+            "Signer ID is the wrong size");
+        return 0;
+    }
+
+    /* create the signing context. */
+    CertificateBatchSigner_context* ctx =
+        (CertificateBatchSigner_context*)
+        malloc(sizeof(CertificateBatchSigner_context));
+    if (NULL == ctx)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "Couldn't create signing context");
+        return 0;
+    }
+    memset(ctx, 0, sizeof(*ctx));
+
+    /* create a buffer for the private key */
+    if (0 != vccrypt_suite_buffer_init_for_signature_private_key(
+                &native_inst->crypto_suite, &ctx->private_key))
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "Couldn't create private key buffer");
+        goto free_ctx;
+    }
+
+    /* verify that the private key size matches the crypto suite size */
+    jsize priv_size = (*env)->GetArrayLength(env, private_key);
+    if ((unsigned)priv_size != ctx->private_key.size)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalArgumentException.classid,
+            "Private key is the wrong size");
+        goto dispose_priv;
+    }
+
+    /* copy the private key and signer id from Java */
+    (*env)->GetByteArrayRegion(
+        env, private_key, 0, priv_size, (jbyte*)ctx->private_key.data);
+    (*env)->GetByteArrayRegion(
+        env, signer_id, 0, BATCH_SIGNER_ID_SIZE, (jbyte*)ctx->signer_id);
+
+    /* success */
+    return (jlong)ctx;
+
+dispose_priv:
+    dispose((disposable_t*)&ctx->private_key);
+
+free_ctx:
+    free(ctx);
+
+    return 0;
+}
@@ -0,0 +1,41 @@
+/**
+ * \file CertificateBatchSigner_releaseSigningContextNative.c
+ *
+ * Release a native signing context, clearing its private key.
+ *
+ * \copyright 2020 Velo Payments, Inc.  All rights reserved.
+ */
+
+#include <cbmc/model_assert.h>
+#include <stdlib.h>
+#include <vpr/parameters.h>
+#include <com_velopayments_blockchain_cert_CertificateBatchSigner.h>
+
+#include "../init/init.h"
+#include "CertificateBatchSigner.h"
+
+/*
+ * Class:     com_velopayments_blockchain_cert_CertificateBatchSigner
+ * Method:    releaseSigningContextNative
+ * Signature: (JJ)V
+ */
+JNIEXPORT void JNICALL
+Java_com_velopayments_blockchain_cert_CertificateBatchSigner_releaseSigningContextNative(
+    JNIEnv *env, jclass UNUSED(clazz), jlong UNUSED(nativeInst),
+    jlong signingContext)
+{
+    /* function contract enforcement */
+    MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
+    (void)env;
+
+    CertificateBatchSigner_context* ctx =
+        (CertificateBatchSigner_context*)signingContext;
+    if (NULL == ctx)
+    {
+        return;
+    }
+
+    /* disposing the key buffer clears it before it is freed. */
+    dispose((disposable_t*)&ctx->private_key);
+    free(ctx);
+}
@@ -0,0 +1,111 @@
+/**
+ * \file CertificateBatchSigner_signBatchNative.c
+ *
+ * Sign a chunk of certificates with a cached signing context.
+ *
+ * \copyright 2020 Velo Payments, Inc.  All rights reserved.
+ */
+
+#include <cbmc/model_assert.h>
+#include <vpr/parameters.h>
+#include <com_velopayments_blockchain_cert_CertificateBatchSigner.h>
+
+#include "../init/init.h"
+#include "CertificateBatchSigner.h"
+
+/*
+ * Class:     com_velopayments_blockchain_cert_CertificateBatchSigner
+ * Method:    signBatchNative
+ * Signature: (JJ[[B[I)[Lcom/velopayments/blockchain/cert/Certificate;
+ */
+JNIEXPORT jobjectArray JNICALL
+Java_com_velopayments_blockchain_cert_CertificateBatchSigner_signBatchNative(
+    JNIEnv *env, jclass UNUSED(clazz), jlong nativeInst,
+    jlong signingContext, jobjectArray fields, jintArray sizes)
+{
+    /* function contract enforcement */
+    MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
+    MODEL_ASSERT(0 != nativeInst);
+    MODEL_ASSERT(0 != signingContext);
+    MODEL_ASSERT(NULL != fields);
+    MODEL_ASSERT(NULL != sizes);
+
+    /* get a pointer to the native instance. */
+    vjblockchain_native_instance* native_inst =
+        (vjblockchain_native_instance*)nativeInst;
+
+    /* verify that the vjblockchain library has been initialized. */
+    if (!native_inst || !native_inst->initialized)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "vjblockchain not initialized.");
+        return NULL;
+    }
+
+    /* get a pointer to the signing context. */
+    CertificateBatchSigner_context* ctx =
+        (CertificateBatchSigner_context*)signingContext;
+    if (NULL == ctx)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "Signer is closed.");
+        return NULL;
+    }
+
+    /* verify that the fields and sizes parameters are not null. */
+    if (NULL == fields || NULL == sizes)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->NullPointerException.classid, "fields");
+        return NULL;
+    }
+
+    /* there must be a size for every certificate. */
+    jsize count = (*env)->GetArrayLength(env, fields);
+    if (count != (*env)->GetArrayLength(env, sizes))
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalArgumentException.classid,
+            "Invalid fields size");
+        return NULL;
+    }
+
+    /* create the output array. */
+    jobjectArray out =
+        (*env)->NewObjectArray(
+            env, count, native_inst->Certificate.classid, NULL);
+    if (NULL == out)
+    {
+        return NULL;
+    }
+
+    /* sign each certificate in turn. */
+    jint* sizes_elements = (*env)->GetIntArrayElements(env, sizes, NULL);
+    for (jsize i = 0; i < count; ++i)
+    {
+        jbyteArray cert_fields =
+            (jbyteArray)(*env)->GetObjectArrayElement(env, fields, i);
+
+        jobject cert =
+            CertificateBuilder_signFields(
+                env, native_inst, cert_fields, sizes_elements[i],
+                ctx->signer_id, &ctx->private_key);
+
+        /* no longer need local reference to these fields */
+        (*env)->DeleteLocalRef(env, cert_fields);
+
+        if (NULL == cert)
+        {
+            out = NULL;
+            break;
+        }
+
+        (*env)->SetObjectArrayElement(env, out, i, cert);
+        (*env)->DeleteLocalRef(env, cert);
+    }
+    (*env)->ReleaseIntArrayElements(env, sizes, sizes_elements, JNI_ABORT);
+
+    return out;
+}
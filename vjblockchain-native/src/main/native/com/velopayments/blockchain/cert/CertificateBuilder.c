@@ -16,7 +16,6 @@
  */
 #define MODEL_PROP_GLOBALS_SET(inst) \
     (   NULL != inst->CertificateBuilder.classid \
-     && NULL != inst->CertificateBuilder.field_fields \
      && NULL != inst->CertificateBuilder.addByte \
      && NULL != inst->CertificateBuilder.addShort \
      && NULL != inst->CertificateBuilder.addInt \
@@ -63,14 +62,6 @@ CertificateBuilder_register(
     /* delete local reference */
     (*env)->DeleteLocalRef(env, tempClassID);
 
-    /* register fields field */
-    inst->CertificateBuilder.field_fields =
-        (*env)->GetFieldID(
-            env, inst->CertificateBuilder.classid,
-            "fields", "Ljava/util/LinkedList;");
-    if (NULL == inst->CertificateBuilder.field_fields)
-        return 1;
-
     /* register addByte method. */
     inst->CertificateBuilder.addByte =
         (*env)->GetMethodID(
@@ -11,6 +11,8 @@
 # define PRIVATE_CERTIFICATE_BUILDER_HEADER_GUARD
 
 #include <jni.h>
+#include <stdint.h>
+#include <vccrypt/buffer.h>
 
 #include "../init/init_fwd.h"
 
@@ -40,6 +42,30 @@ CertificateBuilder_register(
     JNIEnv* env,
     vjblockchain_native_instance* inst);
 
+/**
+ * Build and sign a certificate from its encoded fields.  This is shared by
+ * CertificateBuilder.signNative and CertificateBatchSigner.signBatchNative.
+ *
+ * On failure, a Java exception has been thrown.
+ *
+ * \param env           JNI environment to use.
+ * \param native_inst   native instance to use.
+ * \param fields        the encoded fields.
+ * \param fields_size   the number of bytes of the encoded fields in use.
+ * \param signer_id     the signer id, 16 bytes.
+ * \param private_key   the private key of the signer.
+ *
+ * \returns the signed Certificate, or NULL on failure.
+ */
+jobject
+CertificateBuilder_signFields(
+    JNIEnv* env,
+    vjblockchain_native_instance* native_inst,
+    jbyteArray fields,
+    jint fields_size,
+    const uint8_t* signer_id,
+    vccrypt_buffer_t* private_key);
+
 /**
  * \brief Java variables for CertificateBuilder.
  */
@@ -49,13 +75,6 @@ struct CertificateBuilder_JavaVars
      */
     jclass classid;
 
-    /* private java.util.LinkedList<
-     *      java.util.AbstractMap$SimpleEntry<java.lang.Integer, byte[]>>
-     *      fields;
-     * descriptor: Ljava/util/LinkedList;
-     */
-    jfieldID field_fields;
-
     /* public com.velopayments.blockchain.cert.CertificateBuilder
      * addByte(int, byte);
      * descriptor: (IB)Lcom/velopayments/blockchain/cert/CertificaeBuilder;
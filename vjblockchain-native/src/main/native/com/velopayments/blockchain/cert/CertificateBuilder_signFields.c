@@ -0,0 +1,160 @@
+/**
+ * \file CertificateBuilder_signFields.c
+ *
+ * Build and sign a certificate from its encoded fields.
+ *
+ * \copyright 2017-2020 Velo Payments, Inc.  All rights reserved.
+ */
+
+#include <cbmc/model_assert.h>
+#include <string.h>
+#include <vccrypt/suite.h>
+#include <vpr/parameters.h>
+
+#include "../init/init.h"
+
+/**
+ * Build and sign a certificate from its encoded fields.
+ *
+ * On failure, a Java exception has been thrown.
+ *
+ * \param env           JNI environment to use.
+ * \param native_inst   native instance to use.
+ * \param fields        the encoded fields.
+ * \param fields_size   the number of bytes of the encoded fields in use.
+ * \param signer_id     the signer id, 16 bytes.
+ * \param private_key   the private key of the signer.
+ *
+ * \returns the signed Certificate, or NULL on failure.
+ */
+jobject
+CertificateBuilder_signFields(
+    JNIEnv* env,
+    vjblockchain_native_instance* native_inst,
+    jbyteArray fields,
+    jint fields_size,
+    const uint8_t* signer_id,
+    vccrypt_buffer_t* private_key)
+{
+    jobject retval = NULL;
+
+    /* function contract enforcement */
+    MODEL_ASSERT(MODEL_PROP_VALID_JNI_ENV(env));
+    MODEL_ASSERT(NULL != native_inst);
+    MODEL_ASSERT(NULL != signer_id);
+    MODEL_ASSERT(NULL != private_key);
+
+    /* verify that the fields parameter is not null. */
+    if (NULL == fields)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->NullPointerException.classid, "fields");
+        return NULL;
+    }
+
+    /* verify that the encoded fields fit in the fields array. */
+    if (fields_size < 0
+     || fields_size > (*env)->GetArrayLength(env, fields))
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalArgumentException.classid,
+            "Invalid fields size");
+        return NULL;
+    }
+
+    /* the fields are already encoded, so the certificate size is their
+     * size plus the size of the signature fields. */
+    jsize cert_size = fields_size;
+    cert_size += FIELD_TYPE_SIZE*2 + FIELD_SIZE_SIZE*2 + 16 +
+                 native_inst->crypto_suite.sign_opts.signature_size;
+
+    /* create builder context */
+    vccert_builder_context_t builder;
+    if (0 != vccert_builder_init(
+                    &native_inst->builder_opts, &builder, cert_size))
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid, "general error.");
+        return NULL;
+    }
+
+    /* walk the encoded fields, adding each to the builder */
+    jbyte* fields_bytes = (*env)->GetByteArrayElements(env, fields, NULL);
+    const uint8_t* field = (const uint8_t*)fields_bytes;
+    const uint8_t* fields_end = field + fields_size;
+    while (field < fields_end)
+    {
+        /* each field is a type and a size, in network byte order. */
+        if (fields_end - field < FIELD_TYPE_SIZE + FIELD_SIZE_SIZE)
+        {
+            break;
+        }
+
+        uint16_t field_type = (uint16_t)((field[0] << 8) | field[1]);
+        size_t field_size = (size_t)((field[2] << 8) | field[3]);
+        field += FIELD_TYPE_SIZE + FIELD_SIZE_SIZE;
+
+        if ((size_t)(fields_end - field) < field_size
+         || 0 !=
+            vccert_builder_add_short_buffer(
+                &builder, field_type, field, field_size))
+        {
+            break;
+        }
+
+        field += field_size;
+    }
+    (*env)->ReleaseByteArrayElements(env, fields, fields_bytes, JNI_ABORT);
+
+    /* every field must have been added */
+    if (field != fields_end)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "general error.");
+        goto dispose_builder;
+    }
+
+    /* sign the certificate */
+    if (0 != vccert_builder_sign(&builder, signer_id, private_key))
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "signature error");
+        goto dispose_builder;
+    }
+
+    /* use emit() to get the current size and assert that it matches */
+    size_t emitted_size = 0;
+    const uint8_t* outbuf = vccert_builder_emit(&builder, &emitted_size);
+    if (emitted_size != (unsigned)cert_size)
+    {
+        (*env)->ThrowNew(
+            env, native_inst->IllegalStateException.classid,
+            "emitted_size != cert_size");
+        goto dispose_builder;
+    }
+
+    /* copy the certificate to a new byte array */
+    jbyteArray out = (*env)->NewByteArray(env, cert_size);
+    if (NULL == out)
+    {
+        goto dispose_builder;
+    }
+    (*env)->SetByteArrayRegion(
+        env, out, 0, cert_size, (const jbyte*)outbuf);
+
+    /* set retval to the certificate */
+    retval =
+        (*env)->CallStaticObjectMethod(
+            env, native_inst->Certificate.classid,
+            native_inst->Certificate.fromByteArray, out);
+
+    /* no longer need local reference to the array */
+    (*env)->DeleteLocalRef(env, out);
+
+dispose_builder:
+    dispose((disposable_t*)&builder);
+
+    return retval;
+}